@@ -0,0 +1,153 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.library.cache.BookJsonCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单本图书接口的内存分配基准：关闭和打开 {@link BookJsonCache} 各请求一轮 GET /api/books/{id}，
+ * 统计服务端每个请求分配的字节数（请求期间除压测线程外所有线程的分配量之和 / 请求数）和响应体大小，
+ * 分别测量不带和带 Accept-Encoding: gzip 的请求，结果写入 report-dir/allocation.json。
+ * <p>
+ * 请求在单个线程上顺序发出，调度任务等后台线程的分配也会计入，多跑几次看稳定值即可。
+ * 测量的图书会写入一段长简介，接近真实详情页的响应体大小，也让响应超过 gzip 阈值。
+ */
+public class AllocationBenchmark {
+
+    private static final int HOT_BOOKS = 20;
+
+    private final String baseUrl;
+    private final String token;
+    private final List<Long> bookIds;
+    private final BookJsonCache bookJsonCache;
+    private final LoadTestProperties properties;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public AllocationBenchmark(String baseUrl, String token, List<Long> bookIds, BookJsonCache bookJsonCache,
+                               LoadTestProperties properties) {
+        this.baseUrl = baseUrl;
+        this.token = token;
+        this.bookIds = bookIds.subList(0, Math.min(HOT_BOOKS, bookIds.size()));
+        this.bookJsonCache = bookJsonCache;
+        this.properties = properties;
+    }
+
+    public static void addDescriptions(JdbcTemplate jdbcTemplate, List<Long> bookIds) {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 1500) {
+            description.append("本书系统介绍了分布式系统中的一致性、复制与分区，结合大量工程案例讨论性能与可用性之间的取舍。");
+        }
+        for (Long id : bookIds.subList(0, Math.min(HOT_BOOKS, bookIds.size()))) {
+            jdbcTemplate.update("UPDATE books SET description = ? WHERE id = ?", description.toString(), id);
+        }
+    }
+
+    public void run(PrintStream out) throws IOException {
+        boolean enabled = bookJsonCache.isEnabled();
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("requests", properties.getAllocRequests());
+        ArrayNode results = report.putArray("results");
+        out.printf("%-10s %-9s %18s %16s%n", "cache", "encoding", "bytes/request", "response bytes");
+        try {
+            for (boolean cache : new boolean[]{false, true}) {
+                bookJsonCache.setEnabled(cache);
+                for (boolean gzip : new boolean[]{false, true}) {
+                    Sample sample = measure(gzip);
+                    out.printf("%-10s %-9s %18d %16d%n", cache ? "on" : "off", gzip ? "gzip" : "identity",
+                            sample.allocatedPerRequest, sample.responseBytes);
+                    ObjectNode result = results.addObject();
+                    result.put("cache", cache);
+                    result.put("gzip", gzip);
+                    result.put("allocatedBytesPerRequest", sample.allocatedPerRequest);
+                    result.put("responseBytes", sample.responseBytes);
+                }
+            }
+        } finally {
+            bookJsonCache.setEnabled(enabled);
+        }
+
+        File dir = new File(properties.getReportDir());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create report directory " + dir);
+        }
+        objectMapper.writeValue(new File(dir, "allocation.json"), report);
+    }
+
+    private Sample measure(boolean gzip) throws IOException {
+        for (int i = 0; i < properties.getAllocWarmupRequests(); i++) {
+            get(bookIds.get(i % bookIds.size()), gzip);
+        }
+        long self = Thread.currentThread().getId();
+        long before = allocatedBytes(self);
+        long responseBytes = 0;
+        int requests = properties.getAllocRequests();
+        for (int i = 0; i < requests; i++) {
+            responseBytes += get(bookIds.get(i % bookIds.size()), gzip);
+        }
+        long allocated = allocatedBytes(self) - before;
+        return new Sample(allocated / requests, responseBytes / requests);
+    }
+
+    // 除压测线程外所有存活线程的累计分配量；测量期间结束的线程不计入
+    private long allocatedBytes(long excludedThread) {
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != excludedThread && bytes[i] > 0) {
+                total += bytes[i];
+            }
+        }
+        return total;
+    }
+
+    // 返回响应体字节数（压缩时为压缩后的大小）
+    private int get(long bookId, boolean gzip) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/api/books/" + bookId).openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Authorization", "Bearer " + token);
+        if (gzip) {
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+        }
+        int status = connection.getResponseCode();
+        if (status != 200) {
+            throw new IOException("GET /api/books/" + bookId + " returned HTTP " + status);
+        }
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                body.write(buffer, 0, n);
+            }
+            return body.size();
+        }
+    }
+
+    private static class Sample {
+        final long allocatedPerRequest;
+        final long responseBytes;
+
+        Sample(long allocatedPerRequest, long responseBytes) {
+            this.allocatedPerRequest = allocatedPerRequest;
+            this.responseBytes = responseBytes;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 向内嵌数据库批量写入压测用的读者和图书。所有读者共用一个密码哈希，避免逐个 BCrypt。
+ */
+public class DataSeeder {
+
+    public static final String PASSWORD = "loadtest";
+
+    // 管理端借阅列表需要老师或管理员角色
+    public static final String STAFF_USERNAME = "lt_staff";
+
+    static final String[] WORDS = {
+            "Java", "Spring", "算法", "数据", "系统", "设计", "网络", "分布式", "数据库", "编程",
+            "原理", "实战", "架构", "机器学习", "操作系统", "编译", "并发", "安全", "云计算", "微服务"
+    };
+
+    private static final String[] CATEGORIES = {"计算机", "文学", "历史", "科学", "艺术"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final LoadTestProperties properties;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, LoadTestProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+    }
+
+    public List<String> seedUsers() {
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<String> usernames = new ArrayList<>(properties.getUsers());
+        List<Object[]> rows = new ArrayList<>(properties.getUsers());
+        for (int i = 0; i < properties.getUsers(); i++) {
+            String username = "lt_user_" + i;
+            usernames.add(username);
+            rows.add(new Object[]{username, hash, username + "@loadtest.local", "压测读者" + i, "LT" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, email, real_name, student_id, role, status) " +
+                "VALUES (?, ?, ?, ?, ?, 'STUDENT', 1)", rows);
+        jdbcTemplate.update("INSERT INTO users (username, password, email, real_name, role, status) " +
+                "VALUES (?, ?, ?, '压测馆员', 'TEACHER', 1)", STAFF_USERNAME, hash, STAFF_USERNAME + "@loadtest.local");
+        return usernames;
+    }
+
+    public List<Long> seedBooks() {
+        Random random = new Random(properties.getSeed());
+        List<Object[]> rows = new ArrayList<>(properties.getBooks());
+        for (int i = 0; i < properties.getBooks(); i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + WORDS[random.nextInt(WORDS.length)] + " 第" + i + "版";
+            rows.add(new Object[]{"LT-" + i, title, "作者" + random.nextInt(500), "压测出版社",
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    properties.getCopiesPerBook(), properties.getCopiesPerBook()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (isbn, title, author, publisher, category, total_quantity, " +
+                "available_quantity, status) VALUES (?, ?, ?, ?, ?, ?, ?, 'AVAILABLE')", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM books WHERE isbn LIKE 'LT-%' ORDER BY id", Long.class);
+    }
+}
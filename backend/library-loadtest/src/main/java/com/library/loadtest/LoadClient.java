@@ -0,0 +1,157 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 通过 HTTP 调用被测服务，走完整的过滤器链和控制器。基于 HttpURLConnection 的 keep-alive 连接池，
+ * 每次都读完响应体以便连接复用。
+ */
+public class LoadClient {
+
+    public enum Outcome {
+        OK,
+        // 业务拒绝（Result.code 非 200），如库存不足、重复借阅
+        REJECTED,
+        // 服务端并发限制拒绝（HTTP 503）
+        SHED,
+        // HTTP 错误或网络异常
+        FAILED
+    }
+
+    public static class Response {
+        private final Outcome outcome;
+        private final JsonNode body;
+
+        Response(Outcome outcome, JsonNode body) {
+            this.outcome = outcome;
+            this.body = body;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public JsonNode getData() {
+            return body == null ? null : body.get("data");
+        }
+    }
+
+    private static final Response NETWORK_FAILURE = new Response(Outcome.FAILED, null);
+    private static final Response SHED = new Response(Outcome.SHED, null);
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+
+    public LoadClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    public Response login(String username, String password) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        return send("POST", "/api/auth/login", null, body);
+    }
+
+    public Response searchBooks(String token, String keyword) {
+        return send("GET", "/api/books/page?page=1&size=10&keyword=" + encode(keyword), token, null);
+    }
+
+    public Response getBook(String token, long bookId) {
+        return send("GET", "/api/books/" + bookId, token, null);
+    }
+
+    public Response borrowBook(String token, long bookId) {
+        return send("POST", "/api/borrow/" + bookId, token, null, UUID.randomUUID().toString());
+    }
+
+    public Response returnBook(String token, long recordId) {
+        return send("PUT", "/api/borrow/return/" + recordId, token, null, UUID.randomUUID().toString());
+    }
+
+    public Response getMyBorrowRecords(String token) {
+        return send("GET", "/api/borrow/my-records?page=1&size=10", token, null);
+    }
+
+    public Response getAllBorrowRecords(String token, int page) {
+        return send("GET", "/api/borrow/records?page=" + page + "&size=10", token, null);
+    }
+
+    private Response send(String method, String path, String token, String body) {
+        return send(method, path, token, body, null);
+    }
+
+    // 借还与前端一样每次携带新的幂等键，压测结果包含幂等键存取的开销
+    private Response send(String method, String path, String token, String body, String idempotencyKey) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            connection.setRequestProperty("Accept", "application/json");
+            if (token != null) {
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            if (idempotencyKey != null) {
+                connection.setRequestProperty("Idempotency-Key", idempotencyKey);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            int status = connection.getResponseCode();
+            byte[] payload = readFully(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+            if (status == 503) {
+                return SHED;
+            }
+            if (status != 200) {
+                return NETWORK_FAILURE;
+            }
+            JsonNode json = objectMapper.readTree(payload);
+            return new Response(json.path("code").asInt() == 200 ? Outcome.OK : Outcome.REJECTED, json);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return NETWORK_FAILURE;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
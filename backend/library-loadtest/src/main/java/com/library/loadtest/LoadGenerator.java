@@ -0,0 +1,191 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环负载生成：调度线程按到达率计算每个请求的计划发出时刻，到点即提交给发送线程池，
+ * 不等待前一个请求完成。服务端变慢时请求在池队列中积压，积压时间计入延迟。
+ */
+public class LoadGenerator {
+
+    public static class VirtualUser {
+        private final String username;
+        private volatile String token;
+
+        public VirtualUser(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+    }
+
+    private static class Loan {
+        private final VirtualUser user;
+        private final long recordId;
+
+        private Loan(VirtualUser user, long recordId) {
+            this.user = user;
+            this.recordId = recordId;
+        }
+    }
+
+    private final LoadTestProperties properties;
+    private final LoadClient client;
+    private final List<VirtualUser> users;
+    private final VirtualUser staff;
+    private final List<Long> bookIds;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final ConcurrentLinkedQueue<Loan> loans = new ConcurrentLinkedQueue<>();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private int maxBacklog;
+
+    public LoadGenerator(LoadTestProperties properties, LoadClient client, List<VirtualUser> users,
+                         VirtualUser staff, List<Long> bookIds) {
+        this.properties = properties;
+        this.client = client;
+        this.users = users;
+        this.staff = staff;
+        this.bookIds = bookIds;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        operations = properties.getMix().keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += properties.getMix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("loadtest.mix must contain at least one positive weight");
+        }
+    }
+
+    public void run() throws InterruptedException {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.getConcurrency(), properties.getConcurrency(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.prestartAllCoreThreads();
+
+        Random random = new Random(properties.getSeed());
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / properties.getRate();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(properties.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(properties.getDurationSeconds());
+
+        long next = start;
+        while (next < end) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            final long intended = next;
+            final boolean measured = intended >= measureFrom;
+            final Operation operation = pick(random);
+            final VirtualUser user = users.get(random.nextInt(users.size()));
+            final long bookId = bookIds.get(random.nextInt(bookIds.size()));
+            final String keyword = DataSeeder.WORDS[random.nextInt(DataSeeder.WORDS.length)];
+            executor.execute(() -> execute(operation, user, bookId, keyword, intended, measured));
+
+            maxBacklog = Math.max(maxBacklog, executor.getQueue().size());
+            double interval = properties.isPoisson()
+                    ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+            next += (long) interval;
+        }
+
+        executor.shutdown();
+        if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+    }
+
+    public Map<Operation, OperationStats> getStats() {
+        return stats;
+    }
+
+    public int getMaxBacklog() {
+        return maxBacklog;
+    }
+
+    private Operation pick(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void execute(Operation operation, VirtualUser user, long bookId, String keyword,
+                         long intended, boolean measured) {
+        Operation actual = operation;
+        LoadClient.Response response;
+        switch (operation) {
+            case LOGIN:
+                response = client.login(user.username, DataSeeder.PASSWORD);
+                if (response.getOutcome() == LoadClient.Outcome.OK) {
+                    user.token = response.getData().path("token").asText();
+                }
+                break;
+            case SEARCH:
+                response = client.searchBooks(user.token, keyword);
+                break;
+            case DETAIL:
+                response = client.getBook(user.token, bookId);
+                break;
+            case RETURN:
+                Loan loan = loans.poll();
+                if (loan != null) {
+                    response = client.returnBook(loan.user.token, loan.recordId);
+                    break;
+                }
+                // 没有未归还的借阅时改为借书，保持借还比例大致稳定
+                actual = Operation.BORROW;
+                response = borrow(user, bookId);
+                break;
+            case BORROW:
+                response = borrow(user, bookId);
+                break;
+            case ALL_RECORDS:
+                // 前几页即可覆盖各分片结果的合并排序
+                response = client.getAllBorrowRecords(staff.token, 1 + (int) (bookId % 3));
+                break;
+            default:
+                response = client.getMyBorrowRecords(user.token);
+        }
+        if (measured) {
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+            stats.get(actual).record(latencyMicros, response.getOutcome());
+        }
+    }
+
+    private LoadClient.Response borrow(VirtualUser user, long bookId) {
+        LoadClient.Response response = client.borrowBook(user.token, bookId);
+        if (response.getOutcome() == LoadClient.Outcome.OK) {
+            JsonNode id = response.getData().get("id");
+            if (id != null) {
+                loans.add(new Loan(user, id.asLong()));
+            }
+        }
+        return response;
+    }
+}
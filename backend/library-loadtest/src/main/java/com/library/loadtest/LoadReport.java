@@ -0,0 +1,158 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测报告：report.json 字段顺序固定、数值取整到微秒，便于不同构建之间直接 diff；
+ * 每个操作另存一份 .hgrm 延迟分布，可用 HdrHistogram 的绘图工具叠加对比。
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final Map<Operation, OperationStats> stats;
+    private final double seconds;
+
+    public LoadReport(LoadTestProperties properties, Map<Operation, OperationStats> stats, int maxBacklog) {
+        this.stats = stats;
+        this.seconds = properties.getDurationSeconds();
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", properties.getRate());
+        config.put("durationSeconds", properties.getDurationSeconds());
+        config.put("warmupSeconds", properties.getWarmupSeconds());
+        config.put("poisson", properties.isPoisson());
+        config.put("concurrency", properties.getConcurrency());
+        config.put("users", properties.getUsers());
+        config.put("books", properties.getBooks());
+        config.put("mix", properties.getMix());
+        report.put("config", config);
+        report.put("maxBacklog", maxBacklog);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long total = 0;
+        long failed = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            if (operationStats.getCount() == 0) {
+                continue;
+            }
+            total += operationStats.getCount();
+            failed += operationStats.getFailed();
+            operations.put(entry.getKey().name(), summarize(operationStats));
+        }
+        report.put("operations", operations);
+        report.put("totalCount", total);
+        report.put("totalThroughput", round(total / seconds));
+        report.put("errorRate", total == 0 ? 0 : round((double) failed / total));
+    }
+
+    public double getErrorRate() {
+        return ((Number) report.get("errorRate")).doubleValue();
+    }
+
+    public void write(String directory) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(dir.resolve("report.json").toFile(), report);
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            if (entry.getValue().getCount() == 0) {
+                continue;
+            }
+            File file = dir.resolve(entry.getKey().name().toLowerCase() + ".hgrm").toFile();
+            try (PrintStream out = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+                // 直方图以微秒记录，输出按毫秒缩放
+                entry.getValue().getHistogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void print(PrintStream out) {
+        out.println();
+        out.printf("%-12s %9s %9s %9s %9s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "rejected", "shed", "failed", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        Map<String, Map<String, Object>> operations = (Map<String, Map<String, Object>>) report.get("operations");
+        for (Map.Entry<String, Map<String, Object>> entry : operations.entrySet()) {
+            Map<String, Object> row = entry.getValue();
+            out.printf("%-12s %9d %9d %9d %9d %8.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(),
+                    row.get("count"), row.get("rejected"), row.get("shed"), row.get("failed"), row.get("throughput"),
+                    row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+        }
+        out.printf("total %d requests, %.1f ops/s, error rate %.4f, max backlog %s%n",
+                report.get("totalCount"), report.get("totalThroughput"), report.get("errorRate"), report.get("maxBacklog"));
+    }
+
+    /**
+     * 与基线报告逐项对比吞吐量和 p50/p99，正数表示本次更慢（延迟）或更快（吞吐量）。
+     */
+    @SuppressWarnings("unchecked")
+    public void compare(String baselinePath, PrintStream out) throws IOException {
+        JsonNode baseline = new ObjectMapper().readTree(new File(baselinePath)).path("operations");
+        Map<String, Map<String, Object>> operations = (Map<String, Map<String, Object>>) report.get("operations");
+        out.println();
+        out.println("compared with " + baselinePath);
+        out.printf("%-12s %14s %14s %14s%n", "operation", "throughput", "p50", "p99");
+        for (Map.Entry<String, Map<String, Object>> entry : operations.entrySet()) {
+            JsonNode previous = baseline.path(entry.getKey());
+            if (previous.isMissingNode()) {
+                continue;
+            }
+            Map<String, Object> row = entry.getValue();
+            out.printf("%-12s %14s %14s %14s%n", entry.getKey(),
+                    change(previous.path("throughput").asDouble(), (Double) row.get("throughput")),
+                    change(previous.path("p50Ms").asDouble(), (Double) row.get("p50Ms")),
+                    change(previous.path("p99Ms").asDouble(), (Double) row.get("p99Ms")));
+        }
+    }
+
+    private Map<String, Object> summarize(OperationStats operationStats) {
+        Histogram histogram = operationStats.getHistogram();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", operationStats.getCount());
+        row.put("ok", operationStats.getOk());
+        row.put("rejected", operationStats.getRejected());
+        row.put("shed", operationStats.getShed());
+        row.put("failed", operationStats.getFailed());
+        row.put("throughput", round(operationStats.getCount() / seconds));
+        row.put("meanMs", millis(histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            String key = "p" + (percentile == Math.floor(percentile)
+                    ? String.valueOf((int) percentile)
+                    : String.valueOf(percentile).replace(".", "")) + "Ms";
+            row.put(key, millis(histogram.getValueAtPercentile(percentile)));
+        }
+        row.put("maxMs", millis(histogram.getMaxValue()));
+        return row;
+    }
+
+    private static String change(double before, double after) {
+        if (before == 0) {
+            return "n/a";
+        }
+        return String.format("%+.1f%%", (after - before) / before * 100);
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
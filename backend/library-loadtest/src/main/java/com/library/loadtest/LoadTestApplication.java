@@ -0,0 +1,155 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.LibraryServiceApplication;
+import com.library.cache.BookJsonCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 离线压测入口：以 loadtest profile 在本进程内启动服务（H2 内存库 + 内嵌 Redis），写入测试数据，
+ * 按配置的请求比例和到达率施压，输出延迟分布报告。
+ *
+ * <pre>
+ * mvn -Ploadtest -pl library-loadtest -am package -DskipTests
+ * java -jar library-loadtest/target/library-loadtest-1.0.0.jar --loadtest.rate=300 --loadtest.baseline=previous/report.json
+ * </pre>
+ *
+ * 第一个参数为 startup 时改为运行启动耗时基准，见 {@link StartupBenchmark}；
+ * 为 alloc 时启动服务并写入数据后只运行单本图书接口的内存分配基准，见 {@link AllocationBenchmark}。
+ *
+ * 压测客户端与服务在同一 JVM 中竞争 CPU，结果适合同一台机器上不同构建之间的对比，而非容量评估。
+ */
+public class LoadTestApplication {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "startup".equals(args[0])) {
+            StartupBenchmark.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        boolean allocation = args.length > 0 && "alloc".equals(args[0]);
+        if (allocation) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        SimpleCommandLinePropertySource commandLine = new SimpleCommandLinePropertySource(args);
+        RedisServer redisServer = null;
+        if (!"false".equals(commandLine.getProperty("loadtest.embedded-redis"))) {
+            int port = freePort();
+            redisServer = new RedisServer(port);
+            redisServer.start();
+            System.setProperty("spring.redis.host", "127.0.0.1");
+            System.setProperty("spring.redis.port", String.valueOf(port));
+        }
+
+        int exitCode;
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryServiceApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        try {
+            exitCode = run(context, allocation);
+        } finally {
+            context.close();
+            if (redisServer != null) {
+                redisServer.stop();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(ConfigurableApplicationContext context, boolean allocation) throws Exception {
+        LoadTestProperties properties = Binder.get(context.getEnvironment())
+                .bind("loadtest", Bindable.ofInstance(new LoadTestProperties()))
+                .orElseGet(LoadTestProperties::new);
+        // HttpURLConnection 默认每个目标只保留 5 个空闲连接
+        System.setProperty("http.maxConnections", String.valueOf(properties.getConcurrency()));
+
+        String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        LoadClient client = new LoadClient(baseUrl, context.getBean(ObjectMapper.class));
+
+        DataSeeder seeder = new DataSeeder(context.getBean(JdbcTemplate.class),
+                context.getBean(PasswordEncoder.class), properties);
+        List<String> usernames = seeder.seedUsers();
+        List<Long> bookIds = seeder.seedBooks();
+        log.info("Seeded {} users and {} books", usernames.size(), bookIds.size());
+
+        if (allocation) {
+            String token = client.login(usernames.get(0), DataSeeder.PASSWORD).getData().path("token").asText();
+            AllocationBenchmark.addDescriptions(context.getBean(JdbcTemplate.class), bookIds);
+            new AllocationBenchmark(baseUrl, token, bookIds, context.getBean(BookJsonCache.class), properties)
+                    .run(System.out);
+            log.info("Report written to {}", properties.getReportDir());
+            return 0;
+        }
+
+        List<LoadGenerator.VirtualUser> users = login(client, usernames);
+        LoadGenerator.VirtualUser staff = login(client, Collections.singletonList(DataSeeder.STAFF_USERNAME)).get(0);
+        LoadGenerator generator = new LoadGenerator(properties, client, users, staff, bookIds);
+        log.info("Running {} req/s for {}s after {}s warm-up", properties.getRate(),
+                properties.getDurationSeconds(), properties.getWarmupSeconds());
+        generator.run();
+
+        LoadReport report = new LoadReport(properties, generator.getStats(), generator.getMaxBacklog());
+        report.write(properties.getReportDir());
+        report.print(System.out);
+        if (properties.getBaseline() != null) {
+            report.compare(properties.getBaseline(), System.out);
+        }
+        log.info("Report written to {}", properties.getReportDir());
+
+        if (report.getErrorRate() > properties.getMaxErrorRate()) {
+            log.error("Error rate {} exceeds loadtest.max-error-rate {}", report.getErrorRate(), properties.getMaxErrorRate());
+            return 1;
+        }
+        return 0;
+    }
+
+    // 施压前为每个读者登录一次，登录本身不计入统计（LOGIN 操作会在压测中另行测量）
+    private static List<LoadGenerator.VirtualUser> login(LoadClient client, List<String> usernames) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<LoadGenerator.VirtualUser>> futures = new ArrayList<>(usernames.size());
+            for (String username : usernames) {
+                futures.add(executor.submit(() -> {
+                    LoadClient.Response response = client.login(username, DataSeeder.PASSWORD);
+                    if (response.getOutcome() != LoadClient.Outcome.OK) {
+                        throw new IllegalStateException("Login failed for " + username);
+                    }
+                    return new LoadGenerator.VirtualUser(username, response.getData().path("token").asText());
+                }));
+            }
+            List<LoadGenerator.VirtualUser> users = new ArrayList<>(usernames.size());
+            for (Future<LoadGenerator.VirtualUser> future : futures) {
+                users.add(future.get());
+            }
+            return Collections.unmodifiableList(users);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
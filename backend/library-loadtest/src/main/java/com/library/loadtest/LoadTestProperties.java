@@ -0,0 +1,32 @@
+package com.library.loadtest;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+public class LoadTestProperties {
+    // 每秒到达的请求数（开环，与服务端响应快慢无关）
+    private double rate = 200;
+    private int durationSeconds = 60;
+    // 预热期间的请求不计入统计
+    private int warmupSeconds = 10;
+    // true 时到达间隔服从指数分布，否则为固定间隔
+    private boolean poisson = true;
+    private int concurrency = 256;
+    private int users = 500;
+    private int books = 2000;
+    private int copiesPerBook = 5;
+    private boolean embeddedRedis = true;
+    private String reportDir = "target/loadtest";
+    // 上一次的 report.json，用于对比
+    private String baseline;
+    // 失败率超过该值时以非零状态码退出
+    private double maxErrorRate = 0.01;
+    private long seed = 42;
+    // alloc 子命令每种情况的请求数和不计入统计的预热请求数
+    private int allocRequests = 5000;
+    private int allocWarmupRequests = 2000;
+    private Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+}
@@ -0,0 +1,11 @@
+package com.library.loadtest;
+
+public enum Operation {
+    LOGIN,
+    SEARCH,
+    DETAIL,
+    BORROW,
+    RETURN,
+    MY_RECORDS,
+    ALL_RECORDS
+}
@@ -0,0 +1,62 @@
+package com.library.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个操作的延迟分布（微秒）和结果计数。延迟从计划发出时刻算起，包含排队等待，避免协调遗漏。
+ */
+public class OperationStats {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Histogram histogram = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public void record(long latencyMicros, LoadClient.Outcome outcome) {
+        histogram.recordValue(Math.min(Math.max(latencyMicros, 0), MAX_TRACKABLE_MICROS));
+        switch (outcome) {
+            case OK:
+                ok.increment();
+                break;
+            case REJECTED:
+                rejected.increment();
+                break;
+            case SHED:
+                shed.increment();
+                break;
+            default:
+                failed.increment();
+        }
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public long getOk() {
+        return ok.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getCount() {
+        return getOk() + getRejected() + getShed() + getFailed();
+    }
+}
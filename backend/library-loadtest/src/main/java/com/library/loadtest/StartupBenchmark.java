@@ -0,0 +1,148 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动耗时基准：多次启动服务进程，从创建进程开始计时，轮询 url 直到第一次返回 2xx，得到 time-to-first-request。
+ * 每次测量后结束进程再开始下一次，结果写入 report-dir/startup.json，各次启动的输出保存为 startup-N.log。
+ *
+ * <pre>
+ * java -jar library-loadtest-1.0.0.jar startup --runs=5 -- \
+ *   java -XX:SharedArchiveFile=app.jsa -cp 'app.jar:lib/*' com.library.LibraryServiceApplication --spring.profiles.active=docker,faststart
+ * </pre>
+ *
+ * 被测进程需要能连上数据库和 Redis；对比不同启动参数时分别运行并比较中位数。
+ */
+public class StartupBenchmark {
+
+    private int runs = 5;
+    private String url = "http://127.0.0.1:8080/actuator/health";
+    private long timeoutSeconds = 120;
+    private String reportDir = "target/loadtest";
+    private final List<String> command = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        StartupBenchmark benchmark = new StartupBenchmark();
+        benchmark.parse(args);
+        System.exit(benchmark.run(System.out) ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        int i = 0;
+        for (; i < args.length && !"--".equals(args[i]); i++) {
+            String arg = args[i];
+            if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(value(arg));
+            } else if (arg.startsWith("--url=")) {
+                url = value(arg);
+            } else if (arg.startsWith("--timeout-seconds=")) {
+                timeoutSeconds = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--report-dir=")) {
+                reportDir = value(arg);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        command.addAll(Arrays.asList(args).subList(Math.min(i + 1, args.length), args.length));
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("Usage: startup [--runs=N] [--url=URL] [--timeout-seconds=S] -- command...");
+        }
+    }
+
+    private boolean run(PrintStream out) throws Exception {
+        File dir = new File(reportDir);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create report directory " + dir);
+        }
+
+        List<Long> samples = new ArrayList<>(runs);
+        for (int i = 1; i <= runs; i++) {
+            long millis = measure(new File(dir, "startup-" + i + ".log"));
+            if (millis < 0) {
+                out.printf("run %d: no response within %ds, see startup-%d.log%n", i, timeoutSeconds, i);
+                return false;
+            }
+            samples.add(millis);
+            out.printf("run %d: first request after %d ms%n", i, millis);
+        }
+
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        long median = sorted.get(sorted.size() / 2);
+        double mean = samples.stream().mapToLong(Long::longValue).average().orElse(0);
+        out.printf("time-to-first-request over %d runs: min %d ms, median %d ms, mean %.0f ms, max %d ms%n",
+                runs, sorted.get(0), median, mean, sorted.get(sorted.size() - 1));
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("command", String.join(" ", command));
+        report.put("url", url);
+        ArrayNode values = report.putArray("samplesMs");
+        samples.forEach(values::add);
+        report.put("minMs", sorted.get(0));
+        report.put("medianMs", median);
+        report.put("meanMs", Math.round(mean));
+        report.put("maxMs", sorted.get(sorted.size() - 1));
+        objectMapper.writeValue(new File(dir, "startup.json"), report);
+        return true;
+    }
+
+    // 返回从创建进程到首次 2xx 响应的毫秒数，超时返回 -1
+    private long measure(File logFile) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (System.nanoTime() < deadline && process.isAlive()) {
+                if (ready()) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                Thread.sleep(10);
+            }
+            return -1;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private boolean ready() {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(200);
+            connection.setReadTimeout(5000);
+            int status = connection.getResponseCode();
+            return status >= 200 && status < 300;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+}
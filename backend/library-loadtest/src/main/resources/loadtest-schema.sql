@@ -0,0 +1,123 @@
+-- 压测用 H2 结构：等同于 db/migration 下 V1~V7 执行后的最终结构（不含示例数据）。
+-- H2 的索引名在整个 schema 内唯一，MySQL 只要求表内唯一，因此归档表的索引名加了 archive 前缀；
+-- 迁移脚本新增表或索引时需同步修改本文件。
+
+CREATE TABLE `users` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `username` varchar(50) NOT NULL,
+    `password` varchar(255) NOT NULL,
+    `email` varchar(100) DEFAULT NULL,
+    `phone` varchar(20) DEFAULT NULL,
+    `real_name` varchar(50) DEFAULT NULL,
+    `student_id` varchar(20) DEFAULT NULL,
+    `role` enum('STUDENT','TEACHER','ADMIN') NOT NULL DEFAULT 'STUDENT',
+    `status` tinyint NOT NULL DEFAULT '1',
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `idx_username` (`username`),
+    UNIQUE KEY `idx_email` (`email`),
+    KEY `idx_student_id` (`student_id`)
+);
+
+CREATE TABLE `books` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `isbn` varchar(20) DEFAULT NULL,
+    `title` varchar(200) NOT NULL,
+    `author` varchar(100) DEFAULT NULL,
+    `publisher` varchar(100) DEFAULT NULL,
+    `publish_date` date DEFAULT NULL,
+    `category` varchar(50) DEFAULT NULL,
+    `price` decimal(10,2) DEFAULT NULL,
+    `total_quantity` int NOT NULL DEFAULT '1',
+    `available_quantity` int NOT NULL DEFAULT '1',
+    `description` text,
+    `cover_url` varchar(500) DEFAULT NULL,
+    `location` varchar(100) DEFAULT NULL,
+    `status` enum('AVAILABLE','UNAVAILABLE','DELETED') NOT NULL DEFAULT 'AVAILABLE',
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `idx_isbn` (`isbn`),
+    KEY `idx_title` (`title`),
+    KEY `idx_author` (`author`),
+    KEY `idx_category` (`category`),
+    KEY `idx_update_time_id` (`update_time`, `id`)
+);
+
+CREATE TABLE `borrow_records` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `user_id` bigint NOT NULL,
+    `book_id` bigint NOT NULL,
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `due_date` timestamp NOT NULL,
+    `return_date` timestamp NULL DEFAULT NULL,
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'BORROWED',
+    `fine_amount` decimal(10,2) DEFAULT '0.00',
+    `remark` varchar(500) DEFAULT NULL,
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_book_id` (`book_id`),
+    KEY `idx_borrow_date` (`borrow_date`),
+    KEY `idx_user_book_status` (`user_id`, `book_id`, `status`),
+    KEY `idx_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_status_due_date` (`status`, `due_date`),
+    KEY `idx_status_borrow_date` (`status`, `borrow_date`),
+    KEY `idx_return_date` (`return_date`),
+    CONSTRAINT `fk_borrow_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`),
+    CONSTRAINT `fk_borrow_book` FOREIGN KEY (`book_id`) REFERENCES `books` (`id`)
+);
+
+CREATE TABLE `borrow_records_archive` (
+    `id` bigint NOT NULL,
+    `user_id` bigint NOT NULL,
+    `book_id` bigint NOT NULL,
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `due_date` timestamp NOT NULL,
+    `return_date` timestamp NULL DEFAULT NULL,
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'RETURNED',
+    `fine_amount` decimal(10,2) DEFAULT '0.00',
+    `remark` varchar(500) DEFAULT NULL,
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `archive_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_archive_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_archive_book_id` (`book_id`),
+    KEY `idx_archive_borrow_date` (`borrow_date`)
+);
+
+CREATE TABLE `id_sequences` (
+    `name` varchar(64) NOT NULL,
+    `next_value` bigint NOT NULL,
+    PRIMARY KEY (`name`)
+);
+
+INSERT INTO `id_sequences` (`name`, `next_value`) VALUES ('borrow_records', 1);
+
+CREATE TABLE `audit_logs` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `action` varchar(50) NOT NULL,
+    `target_type` varchar(30) NOT NULL,
+    `target_id` bigint DEFAULT NULL,
+    `user_id` bigint DEFAULT NULL,
+    `username` varchar(50) DEFAULT NULL,
+    `client_ip` varchar(64) DEFAULT NULL,
+    `success` tinyint NOT NULL,
+    `detail` varchar(500) DEFAULT NULL,
+    `event_time` timestamp(3) NOT NULL,
+    PRIMARY KEY (`id`),
+    KEY `idx_audit_target` (`target_type`, `target_id`, `event_time`),
+    KEY `idx_audit_user_time` (`user_id`, `event_time`),
+    KEY `idx_audit_event_time` (`event_time`)
+);
+
+CREATE TABLE `user_loan_stats` (
+    `user_id` bigint NOT NULL,
+    `active_loans` int NOT NULL DEFAULT 0,
+    `overdue_count` int NOT NULL DEFAULT 0,
+    `fine_amount` decimal(10,2) NOT NULL DEFAULT '0.00',
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`user_id`)
+);
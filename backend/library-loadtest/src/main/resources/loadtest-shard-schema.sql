@@ -0,0 +1,42 @@
+-- 压测用借阅记录分片结构（H2），等同于 db/shard 下的迁移脚本，与 loadtest-schema.sql 中的两张借阅表相同但不含外键。
+
+CREATE TABLE `borrow_records` (
+    `id` bigint NOT NULL AUTO_INCREMENT,
+    `user_id` bigint NOT NULL,
+    `book_id` bigint NOT NULL,
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `due_date` timestamp NOT NULL,
+    `return_date` timestamp NULL DEFAULT NULL,
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'BORROWED',
+    `fine_amount` decimal(10,2) DEFAULT '0.00',
+    `remark` varchar(500) DEFAULT NULL,
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_book_id` (`book_id`),
+    KEY `idx_borrow_date` (`borrow_date`),
+    KEY `idx_user_book_status` (`user_id`, `book_id`, `status`),
+    KEY `idx_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_status_due_date` (`status`, `due_date`),
+    KEY `idx_status_borrow_date` (`status`, `borrow_date`),
+    KEY `idx_return_date` (`return_date`)
+);
+
+CREATE TABLE `borrow_records_archive` (
+    `id` bigint NOT NULL,
+    `user_id` bigint NOT NULL,
+    `book_id` bigint NOT NULL,
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `due_date` timestamp NOT NULL,
+    `return_date` timestamp NULL DEFAULT NULL,
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'RETURNED',
+    `fine_amount` decimal(10,2) DEFAULT '0.00',
+    `remark` varchar(500) DEFAULT NULL,
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `archive_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_archive_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_archive_book_id` (`book_id`),
+    KEY `idx_archive_borrow_date` (`borrow_date`)
+);
@@ -3,9 +3,11 @@ package com.library;
 import org.apache.dubbo.config.spring.context.annotation.EnableDubbo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDubbo
+@EnableScheduling
 public class LibraryServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(LibraryServiceApplication.class, args);
@@ -0,0 +1,194 @@
+package com.library.audit;
+
+import com.library.entity.AuditLog;
+import com.library.mapper.AuditLogMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志异步写入。请求线程只把事件放进 {@link AuditRingBuffer}，不在业务事务内多写一行；
+ * 后台刷写线程每隔 flush-interval 或缓冲积累到 batch-size 条时取出，按批用一条多行 INSERT 写库。
+ * <p>
+ * 缓冲区长度固定（buffer-size），内存占用有上限。写满时按 overflow-policy 处理：
+ * DROP 直接丢弃新事件；BLOCK 让请求线程最多等待 max-block 毫秒，仍写不进去再丢弃。丢弃和写库失败的条数计入指标。
+ * 应用关闭时停止接收前先把缓冲区中剩余的事件写完，最多等待 shutdown-timeout。
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    // 丢弃事件时最多每隔这么久打印一次警告
+    private static final long DROP_WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    public enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
+    @Autowired
+    private AuditLogMapper auditLogMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.audit.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${library.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${library.audit.flush-interval:1000}")
+    private long flushInterval;
+
+    @Value("${library.audit.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${library.audit.max-block:50}")
+    private long maxBlock;
+
+    @Value("${library.audit.shutdown-timeout:10000}")
+    private long shutdownTimeout;
+
+    private AuditRingBuffer buffer;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    private Counter written;
+    private Counter dropped;
+    private Counter failed;
+
+    private final AtomicLong lastDropWarn = new AtomicLong(System.nanoTime() - DROP_WARN_INTERVAL_NANOS);
+
+    @PostConstruct
+    public void init() {
+        buffer = new AuditRingBuffer(bufferSize);
+        written = Counter.builder("library.audit.written").register(meterRegistry);
+        dropped = Counter.builder("library.audit.dropped").register(meterRegistry);
+        failed = Counter.builder("library.audit.failed").register(meterRegistry);
+        Gauge.builder("library.audit.buffered", buffer, AuditRingBuffer::size).register(meterRegistry);
+        if (!enabled) {
+            log.info("Audit log disabled");
+            return;
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "audit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Audit log writer started: buffer {}, batch {}, flush interval {} ms, overflow {}",
+                buffer.capacity(), batchSize, flushInterval, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.warn("Audit flusher did not finish within {} ms, {} events not written", shutdownTimeout, buffer.size());
+        } else {
+            // 刷写线程退出后才到达的事件
+            drain();
+        }
+    }
+
+    /**
+     * 记录一条审计事件，不等待写库。
+     */
+    public void record(AuditLog auditLog) {
+        if (!running) {
+            return;
+        }
+        if (buffer.offer(auditLog)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(flusher);
+            }
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlock);
+            do {
+                LockSupport.unpark(flusher);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                if (buffer.offer(auditLog)) {
+                    return;
+                }
+            } while (System.nanoTime() - deadline < 0);
+        }
+
+        dropped.increment();
+        long now = System.nanoTime();
+        long last = lastDropWarn.get();
+        if (now - last >= DROP_WARN_INTERVAL_NANOS && lastDropWarn.compareAndSet(last, now)) {
+            log.warn("Audit buffer full ({} events), dropping audit events; {} dropped so far",
+                    buffer.capacity(), (long) dropped.count());
+        }
+    }
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        while (running) {
+            if (drain() < batchSize) {
+                // 不足一批时等到下个周期，期间写满一批会被请求线程唤醒
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+        }
+        drain();
+    }
+
+    // 取空缓冲区，每 batch-size 条写一次；返回取出的条数
+    private int drain() {
+        int total = 0;
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        AuditLog auditLog;
+        while ((auditLog = buffer.poll()) != null) {
+            batch.add(auditLog);
+            if (batch.size() >= batchSize) {
+                total += write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            total += write(batch);
+        }
+        return total;
+    }
+
+    private int write(List<AuditLog> batch) {
+        try {
+            auditLogMapper.insertBatch(batch);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.error("Failed to write {} audit events", batch.size(), e);
+        }
+        return batch.size();
+    }
+}
@@ -0,0 +1,177 @@
+package com.library.audit;
+
+import com.library.dto.Result;
+import com.library.entity.AuditLog;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 拦截标注了 {@link Audited} 的方法，在调用结束后组装审计事件交给 {@link AuditLogWriter}。
+ * 这里只读取参数和返回值、复制几个字段，不访问数据库，对请求耗时的影响只有一次入队。
+ */
+@Component
+public class AuditPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_DETAIL_LENGTH = 500;
+
+    public AuditPostProcessor() {
+        setProxyTargetClass(true);
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        // 后置处理器先于普通 bean 创建，写入器在第一次调用时再取
+        ObjectProvider<AuditLogWriter> writer = beanFactory.getBeanProvider(AuditLogWriter.class);
+        this.advisor = new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(Audited.class),
+                new AuditInterceptor(writer));
+    }
+
+    private static class AuditInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<AuditLogWriter> writerProvider;
+
+        private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+
+        private final Map<MethodClassKey, AuditedMethod> methods = new ConcurrentHashMap<>();
+
+        AuditInterceptor(ObjectProvider<AuditLogWriter> writerProvider) {
+            this.writerProvider = writerProvider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            LocalDateTime eventTime = LocalDateTime.now();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                record(invocation, eventTime, null, e.getMessage());
+                throw e;
+            }
+            String error = null;
+            if (result instanceof Result && !Integer.valueOf(200).equals(((Result<?>) result).getCode())) {
+                error = ((Result<?>) result).getMessage();
+            }
+            record(invocation, eventTime, result, error);
+            return result;
+        }
+
+        private void record(MethodInvocation invocation, LocalDateTime eventTime, Object result, String error) {
+            AuditedMethod method = auditedMethod(invocation);
+            Object[] args = invocation.getArguments();
+
+            AuditLog auditLog = new AuditLog();
+            auditLog.setAction(method.audited.action());
+            auditLog.setTargetType(method.audited.targetType());
+            auditLog.setTargetId(method.targetIndex >= 0 ? toLong(args[method.targetIndex]) : resultId(result));
+            auditLog.setSuccess(error == null);
+            auditLog.setEventTime(eventTime);
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null) {
+                auditLog.setUsername(authentication.getName());
+                if (authentication.getDetails() instanceof Long) {
+                    auditLog.setUserId((Long) authentication.getDetails());
+                }
+            }
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes instanceof ServletRequestAttributes) {
+                auditLog.setClientIp(((ServletRequestAttributes) attributes).getRequest().getRemoteAddr());
+            }
+
+            StringBuilder detail = new StringBuilder();
+            for (int i = 0; i < method.detailIndexes.length; i++) {
+                if (detail.length() > 0) {
+                    detail.append(", ");
+                }
+                detail.append(method.audited.detail()[i]).append('=').append(args[method.detailIndexes[i]]);
+            }
+            if (error != null) {
+                detail.append(detail.length() > 0 ? "; " : "").append("失败：").append(error);
+            }
+            if (detail.length() > 0) {
+                auditLog.setDetail(detail.length() > MAX_DETAIL_LENGTH
+                        ? detail.substring(0, MAX_DETAIL_LENGTH) : detail.toString());
+            }
+
+            writerProvider.getObject().record(auditLog);
+        }
+
+        private AuditedMethod auditedMethod(MethodInvocation invocation) {
+            Method method = invocation.getMethod();
+            Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+            return methods.computeIfAbsent(new MethodClassKey(method, targetClass), key -> {
+                Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+                Audited audited = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Audited.class);
+                String[] names = parameterNames.getParameterNames(specificMethod);
+                int targetIndex = StringUtils.hasText(audited.targetId()) ? indexOf(names, audited.targetId(), specificMethod) : -1;
+                int[] detailIndexes = new int[audited.detail().length];
+                for (int i = 0; i < detailIndexes.length; i++) {
+                    detailIndexes[i] = indexOf(names, audited.detail()[i], specificMethod);
+                }
+                return new AuditedMethod(audited, targetIndex, detailIndexes);
+            });
+        }
+
+        private static int indexOf(String[] names, String name, Method method) {
+            int index = names == null ? -1 : Arrays.asList(names).indexOf(name);
+            if (index < 0) {
+                throw new IllegalStateException("@Audited parameter '" + name + "' not found on " + method);
+            }
+            return index;
+        }
+
+        private static Long resultId(Object result) {
+            Object data = result instanceof Result ? ((Result<?>) result).getData() : result;
+            if (data == null) {
+                return null;
+            }
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(data);
+            return wrapper.isReadableProperty("id") ? toLong(wrapper.getPropertyValue("id")) : null;
+        }
+
+        private static Long toLong(Object value) {
+            return value instanceof Number ? ((Number) value).longValue() : null;
+        }
+    }
+
+    private static class AuditedMethod {
+        final Audited audited;
+        final int targetIndex;
+        final int[] detailIndexes;
+
+        AuditedMethod(Audited audited, int targetIndex, int[] detailIndexes) {
+            this.audited = audited;
+            this.targetIndex = targetIndex;
+            this.detailIndexes = detailIndexes;
+        }
+    }
+}
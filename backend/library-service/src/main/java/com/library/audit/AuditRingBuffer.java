@@ -0,0 +1,79 @@
+package com.library.audit;
+
+import com.library.entity.AuditLog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 定长无锁环形缓冲区，多个请求线程写入、一个刷写线程读取。
+ * 每个槽位带一个序号：序号等于写位置表示可写，等于写位置 + 1 表示已写入可读，读取后加上容量留给下一圈，
+ * 写入方只在抢占写位置时做一次 CAS，缓冲区满时立即返回 false，由调用方决定丢弃还是等待。
+ */
+final class AuditRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<AuditLog> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // 只由刷写线程修改
+    private volatile long head;
+
+    AuditRingBuffer(int requestedCapacity) {
+        int size = 1;
+        while (size < requestedCapacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(AuditLog log) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, log);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 该槽位上一圈的数据还没被读走，缓冲区已满
+                return false;
+            }
+            // diff > 0：其他线程已经抢到这个位置，重读 tail
+        }
+    }
+
+    AuditLog poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            // 为空，或写入方已抢到位置但还没写完
+            return null;
+        }
+        AuditLog log = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return log;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.audit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注需要记录审计日志的控制器方法，调用结束后记一条审计事件，由 {@link AuditLogWriter} 异步批量写库。
+ * 返回 {@code Result} 的方法按 code 判断成功与否，失败时记录错误信息。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Audited {
+
+    /**
+     * 操作，如 BOOK_UPDATE
+     */
+    String action();
+
+    /**
+     * 操作对象类型，如 book、user、borrow_record
+     */
+    String targetType();
+
+    /**
+     * 作为操作对象 ID 的参数名；为空时取返回结果中 data 的 id
+     */
+    String targetId() default "";
+
+    /**
+     * 需要记录到 detail 中的参数名
+     */
+    String[] detail() default {};
+}
@@ -0,0 +1,109 @@
+package com.library.cache;
+
+import com.library.entity.Book;
+import com.library.event.BookDeltaEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图书接口的条件请求支持。
+ * 单本图书的 ETag 由 updateTime 和内容指纹生成，缓存在本地，变更广播到达时失效，命中时无需查库即可返回 304；
+ * 列表页使用 Redis 中全局递增的目录版本号，任何图书变更都会使所有列表页的 ETag 失效。
+ */
+@Component
+public class BookETagCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BookETagCache.class);
+
+    public static final String CATALOG_VERSION_KEY = "library:catalog:version";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    // 条目数以馆藏图书数为上限
+    private final Map<Long, String> bookETags = new ConcurrentHashMap<>();
+
+    // 尚未从 Redis 读到版本号时为 -1，此时列表页不做条件请求
+    private final AtomicLong catalogVersion = new AtomicLong(-1);
+
+    public String getBookETag(Long bookId) {
+        return bookETags.get(bookId);
+    }
+
+    /**
+     * 查库前取一次版本号，查库后用它写入缓存，期间若有变更到达则不缓存，避免把旧数据的 ETag 留在缓存里。
+     */
+    public long currentVersion() {
+        return catalogVersion.get();
+    }
+
+    public String cacheBookETag(Book book, long versionBeforeRead) {
+        String etag = bookETag(book);
+        if (versionBeforeRead >= 0) {
+            bookETags.put(book.getId(), etag);
+            if (catalogVersion.get() != versionBeforeRead) {
+                bookETags.remove(book.getId(), etag);
+            }
+        }
+        return etag;
+    }
+
+    public String listETag(Object... params) {
+        long version = catalogVersion.get();
+        if (version < 0) {
+            return null;
+        }
+        return "\"c" + Long.toHexString(version) + "-" + Integer.toHexString(Objects.hash(params)) + "\"";
+    }
+
+    @EventListener
+    public void onBookDelta(BookDeltaEvent event) {
+        // 先推进版本号再失效，与 cacheBookETag 中的检查配合
+        Long version = event.getDelta().getCatalogVersion();
+        if (version != null) {
+            catalogVersion.accumulateAndGet(version, Math::max);
+        }
+        bookETags.remove(event.getDelta().getBookId());
+    }
+
+    /**
+     * pub/sub 消息可能在断线期间丢失，定期与 Redis 对齐版本号；发现落后时同时清空单本图书的 ETag 缓存。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.etag.version-refresh-interval:5000}")
+    public void refreshCatalogVersion() {
+        try {
+            String value = redisTemplate.opsForValue().get(CATALOG_VERSION_KEY);
+            long version = value == null ? 0 : Long.parseLong(value);
+            long previous = catalogVersion.getAndAccumulate(version, Math::max);
+            if (previous >= 0 && previous < version) {
+                log.debug("Catalog version behind Redis ({} < {}), clearing book ETags", previous, version);
+                bookETags.clear();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh catalog version: {}", e.getMessage());
+        }
+    }
+
+    // 时间戳列只精确到秒，同一秒内的多次修改靠内容指纹区分；状态取枚举名，保证各副本生成相同的 ETag
+    private static String bookETag(Book book) {
+        long updated = book.getUpdateTime() == null ? 0 : book.getUpdateTime().toEpochSecond(ZoneOffset.UTC);
+        int content = Objects.hash(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublisher(),
+                book.getPublishDate(), book.getCategory(), book.getPrice(), book.getTotalQuantity(),
+                book.getAvailableQuantity(), book.getDescription(), book.getCoverUrl(), book.getLocation(),
+                book.getStatus() == null ? null : book.getStatus().name());
+        return "\"b" + book.getId() + "-" + Long.toHexString(updated) + "-" + Integer.toHexString(content) + "\"";
+    }
+}
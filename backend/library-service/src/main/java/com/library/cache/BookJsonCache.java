@@ -0,0 +1,163 @@
+package com.library.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.Result;
+import com.library.entity.Book;
+import com.library.utils.GzipUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单本图书接口的响应体缓存。按图书保存已经序列化好的 {@code Result<Book>} JSON 字节，
+ * 客户端接受 gzip 且响应体不小于 gzip-min-size 时另存一份压缩后的字节，命中时直接写入输出流，不再经过 Jackson。
+ * <p>
+ * 条目以 {@link BookETagCache} 生成的 ETag 标识版本（由 updateTime 和内容指纹组成）：
+ * 只在 ETag 缓存中的当前值与条目一致时才直接返回；图书变更使 ETag 失效后，重新查库得到的 ETag 不同则重新序列化，
+ * 相同（内容没有变化）则继续使用已有字节。
+ */
+@Component
+public class BookJsonCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookETagCache bookETagCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.book-json-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.book-json-cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${library.book-json-cache.gzip-min-size:1024}")
+    private int gzipMinSize;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("library.book-json-cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("library.book-json-cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("library.book-json-cache.entries", entries, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 压测对比缓存前后的分配量时切换
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 不查库直接写出缓存的响应体，条目不存在或已过期时返回 false。
+     */
+    public boolean writeCached(Long bookId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!enabled) {
+            return false;
+        }
+        Entry entry = entries.get(bookId);
+        String etag = bookETagCache.getBookETag(bookId);
+        if (entry == null || etag == null || !etag.equals(entry.etag)) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        write(entry, request, response);
+        return true;
+    }
+
+    /**
+     * 写出查库得到的图书。etag 与已缓存条目相同时复用已有字节，否则重新序列化并替换条目。
+     */
+    public void write(Book book, String etag, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!enabled) {
+            writeJson(objectMapper.writeValueAsBytes(Result.success(book)), response);
+            return;
+        }
+        write(cache(book, etag), request, response);
+    }
+
+    /**
+     * 预先序列化并缓存图书，供启动预热使用。
+     */
+    public void put(Book book, String etag) throws IOException {
+        if (enabled) {
+            cache(book, etag);
+        }
+    }
+
+    private Entry cache(Book book, String etag) throws IOException {
+        Entry entry = entries.get(book.getId());
+        if (entry != null && etag.equals(entry.etag)) {
+            return entry;
+        }
+        entry = new Entry(etag, objectMapper.writeValueAsBytes(Result.success(book)));
+        // 超出上限后只更新已有条目，不再新增
+        if (entries.size() < maxEntries || entries.containsKey(book.getId())) {
+            entries.put(book.getId(), entry);
+        }
+        return entry;
+    }
+
+    private void write(Entry entry, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (entry.json.length < gzipMinSize) {
+            writeJson(entry.json, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!GzipUtils.acceptsGzip(request)) {
+            writeJson(entry.json, response);
+            return;
+        }
+        byte[] gzip = entry.gzip;
+        if (gzip == null) {
+            // 并发时可能重复压缩，结果相同，以最后一次为准
+            gzip = GzipUtils.gzip(entry.json);
+            entry.gzip = gzip;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        writeJson(gzip, response);
+    }
+
+    private static void writeJson(byte[] body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static class Entry {
+        final String etag;
+        final byte[] json;
+        volatile byte[] gzip;
+
+        Entry(String etag, byte[] json) {
+            this.etag = etag;
+            this.json = json;
+        }
+    }
+}
@@ -33,7 +33,8 @@ public class MyBatisPlusConfig {
 
         @Override
         public void updateFill(MetaObject metaObject) {
-            this.strictUpdateFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
+            // 先查后改的实体已带有旧的 updateTime，strictUpdateFill 不会覆盖非空值，这里始终写入当前时间
+            this.setFieldValByName("updateTime", LocalDateTime.now(), metaObject);
         }
     }
 }
\ No newline at end of file
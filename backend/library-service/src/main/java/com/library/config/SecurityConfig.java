@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -12,6 +13,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -37,16 +39,22 @@ public class SecurityConfig {
         http.cors().and().csrf().disable()
             .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             .and()
+            .exceptionHandling().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            .and()
             .authorizeRequests(authz -> authz
                 .antMatchers("/api/auth/**").permitAll()
                 .antMatchers("/api/dubbo/**").permitAll()
-                .antMatchers("/actuator/health").permitAll()
+                .antMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                // 封面按内容哈希寻址，由 img 标签直接加载，不带令牌
+                .antMatchers(HttpMethod.GET, "/api/covers/**").permitAll()
+                .antMatchers(HttpMethod.HEAD, "/api/covers/**").permitAll()
                 .antMatchers(HttpMethod.GET, "/api/books/**").hasAnyRole("STUDENT", "TEACHER", "ADMIN")
                 .antMatchers(HttpMethod.POST, "/api/books/**").hasAnyRole("TEACHER", "ADMIN")
                 .antMatchers(HttpMethod.PUT, "/api/books/**").hasAnyRole("TEACHER", "ADMIN")
                 .antMatchers(HttpMethod.DELETE, "/api/books/**").hasAnyRole("ADMIN")
                 .antMatchers("/api/borrow/**").hasAnyRole("STUDENT", "TEACHER", "ADMIN")
                 .antMatchers("/api/users/**").hasAnyRole("ADMIN")
+                .antMatchers("/api/logging/**").hasAnyRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
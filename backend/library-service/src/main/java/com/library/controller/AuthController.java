@@ -2,6 +2,7 @@ package com.library.controller;
 
 import com.library.dto.LoginRequest;
 import com.library.dto.LoginResponse;
+import com.library.dto.RefreshTokenRequest;
 import com.library.dto.RegisterRequest;
 import com.library.dto.Result;
 import com.library.entity.User;
@@ -27,6 +28,29 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/refresh")
+    public Result<LoginResponse> refresh(@Validated @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        try {
+            LoginResponse response = userService.refresh(refreshTokenRequest.getRefreshToken());
+            return Result.success(response);
+        } catch (Exception e) {
+            return Result.error(401, e.getMessage());
+        }
+    }
+
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestBody RefreshTokenRequest refreshTokenRequest,
+                               @RequestHeader(value = "Authorization", required = false) String authorization) {
+        try {
+            String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring(7) : null;
+            userService.logout(refreshTokenRequest.getRefreshToken(), accessToken);
+            return Result.success();
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     @PostMapping("/register")
     public Result<User> register(@Validated @RequestBody RegisterRequest registerRequest) {
         try {
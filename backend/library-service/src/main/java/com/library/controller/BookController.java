@@ -1,13 +1,44 @@
 package com.library.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.library.audit.Audited;
+import com.library.cache.BookETagCache;
+import com.library.cache.BookJsonCache;
+import com.library.dto.BookChangePage;
+import com.library.dto.BookRecommendation;
+import com.library.dto.BookSuggestion;
 import com.library.dto.PageResult;
 import com.library.dto.Result;
 import com.library.entity.Book;
+import com.library.enums.BookStatus;
+import com.library.service.BookFeedService;
 import com.library.service.BookService;
+import com.library.service.BookSuggestService;
+import com.library.service.CoverService;
+import com.library.service.RecommendationService;
+import com.library.security.StreamTicketService;
+import com.library.stream.BookStreamRegistry;
+import com.library.utils.GzipUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/books")
@@ -16,13 +47,52 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private BookSuggestService bookSuggestService;
+
+    @Autowired
+    private BookStreamRegistry bookStreamRegistry;
+
+    @Autowired
+    private StreamTicketService streamTicketService;
+
+    @Autowired
+    private BookETagCache bookETagCache;
+
+    @Autowired
+    private BookJsonCache bookJsonCache;
+
+    @Autowired
+    private BookFeedService bookFeedService;
+
+    @Autowired
+    private CoverService coverService;
+
+    // 浏览器每次都带 If-None-Match 向服务端确认，响应因用户而异，不允许共享缓存保存
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    // 出错时可能已写出 ETag，禁止缓存错误响应
+    private static final String NO_STORE = "no-store";
+
+    private static final String NDJSON = "application/x-ndjson";
+
     @GetMapping("/page")
     public Result<PageResult<Book>> getBooksPage(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String keyword,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            WebRequest request,
+            HttpServletResponse response) {
         try {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            String etag = bookETagCache.listETag(page, size, keyword, category);
+            if (etag != null && request.checkNotModified(etag)) {
+                return null;
+            }
             IPage<Book> result = bookService.getBooksPage(page, size, keyword, category);
             PageResult<Book> pageResult = PageResult.of(
                 result.getRecords(), 
@@ -32,18 +102,136 @@ public class BookController {
             );
             return Result.success(pageResult);
         } catch (Exception e) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @GetMapping("/suggest")
+    public Result<List<BookSuggestion>> suggest(@RequestParam String q,
+                                                @RequestParam(defaultValue = "8") int limit) {
+        try {
+            return Result.success(bookSuggestService.suggest(q, limit));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    // 换取订阅用的一次性票据，只接受请求头中的访问令牌
+    @PostMapping("/stream/ticket")
+    public Result<String> streamTicket(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        return Result.success(streamTicketService.issue(authorization.substring("Bearer ".length())));
+    }
+
+    // 订阅图书库存/状态变更；bookIds 与 categories 都为空时接收全部变更，ticket 由 /stream/ticket 换取
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) List<Long> bookIds,
+                             @RequestParam(required = false) List<String> categories) {
+        try {
+            return bookStreamRegistry.subscribe(bookIds, categories);
+        } catch (Exception e) {
+            SseEmitter emitter = new SseEmitter(0L);
+            try {
+                emitter.send(SseEmitter.event().name("error").data(e.getMessage()));
+            } catch (Exception ignored) {
+                // 客户端已断开
+            }
+            emitter.complete();
+            return emitter;
+        }
+    }
+
+    // 增量同步：返回水位线之后变更的图书（NDJSON），下一次的水位线和是否还有下一页在响应头中
+    @GetMapping("/changes")
+    public Result<Void> getChanges(@RequestParam(required = false)
+                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                   @RequestParam(required = false) Long afterId,
+                                   @RequestParam(required = false) Integer limit,
+                                   HttpServletRequest httpRequest, HttpServletResponse response) {
+        try {
+            BookChangePage page = bookFeedService.getChanges(since, afterId, limit);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+            response.setHeader("X-Next-Since", page.getNextSince().toString());
+            response.setHeader("X-Next-After-Id", String.valueOf(page.getNextAfterId()));
+            response.setHeader("X-Has-More", String.valueOf(page.getHasMore()));
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            response.setContentType(NDJSON);
+            if (GzipUtils.acceptsGzip(httpRequest)) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                response.setContentLength(page.getData().length);
+                response.getOutputStream().write(page.getData());
+            } else {
+                StreamUtils.copy(new GZIPInputStream(new ByteArrayInputStream(page.getData())), response.getOutputStream());
+            }
+            return null;
+        } catch (Exception e) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
             return Result.error(e.getMessage());
         }
     }
 
+    // 成功响应由 BookJsonCache 直接写出已序列化的字节，返回 null；出错时仍返回 Result
     @GetMapping("/{id}")
-    public Result<Book> getBook(@PathVariable Long id) {
+    public Result<Book> getBook(@PathVariable Long id, WebRequest request,
+                                HttpServletRequest httpRequest, HttpServletResponse response) {
         try {
+            String cached = bookETagCache.getBookETag(id);
+            if (cached != null && request.checkNotModified(cached)) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+                return null;
+            }
+            if (cached != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+                if (bookJsonCache.writeCached(id, httpRequest, response)) {
+                    return null;
+                }
+            }
+            long version = bookETagCache.currentVersion();
             Book book = bookService.getById(id);
             if (book == null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
                 return Result.error("图书不存在");
             }
-            return Result.success(book);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            String etag = bookETagCache.cacheBookETag(book, version);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            bookJsonCache.write(book, etag, httpRequest, response);
+            return null;
+        } catch (Exception e) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/similar")
+    public Result<List<BookRecommendation>> getSimilarBooks(@PathVariable Long id,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<BookRecommendation> recommendations = recommendationService.getSimilarBooks(id, limit);
+            if (!recommendations.isEmpty()) {
+                Map<Long, Book> books = bookService.listByIds(recommendations.stream()
+                        .map(BookRecommendation::getBookId)
+                        .collect(Collectors.toList()))
+                        .stream()
+                        .filter(book -> book.getStatus() != BookStatus.DELETED)
+                        .collect(Collectors.toMap(Book::getId, Function.identity()));
+                recommendations.removeIf(recommendation -> !books.containsKey(recommendation.getBookId()));
+                recommendations.forEach(recommendation -> recommendation.setBook(books.get(recommendation.getBookId())));
+            }
+            return Result.success(recommendations);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @PostMapping("/recommendations/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Void> rebuildRecommendations() {
+        try {
+            recommendationService.rebuild();
+            return Result.success();
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
@@ -51,6 +239,7 @@ public class BookController {
 
     @PostMapping
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
+    @Audited(action = "BOOK_CREATE", targetType = "book")
     public Result<Book> addBook(@RequestBody Book book) {
         try {
             Book savedBook = bookService.addBook(book);
@@ -62,6 +251,7 @@ public class BookController {
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
+    @Audited(action = "BOOK_UPDATE", targetType = "book", targetId = "id")
     public Result<Book> updateBook(@PathVariable Long id, @RequestBody Book book) {
         try {
             book.setId(id);
@@ -74,6 +264,7 @@ public class BookController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @Audited(action = "BOOK_DELETE", targetType = "book", targetId = "id")
     public Result<Boolean> deleteBook(@PathVariable Long id) {
         try {
             Boolean result = bookService.deleteBook(id);
@@ -83,8 +274,21 @@ public class BookController {
         }
     }
 
+    @PostMapping("/{id}/cover")
+    @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
+    @Audited(action = "BOOK_COVER", targetType = "book", targetId = "id")
+    public Result<Book> uploadCover(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+        try {
+            Book book = coverService.uploadCover(id, file.getBytes());
+            return Result.success(book);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
+    @Audited(action = "BOOK_STATUS", targetType = "book", targetId = "id", detail = "status")
     public Result<Book> updateBookStatus(@PathVariable Long id, @RequestParam String status) {
         try {
             Book book = bookService.updateBookStatus(id, status);
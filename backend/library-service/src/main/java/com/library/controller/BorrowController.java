@@ -1,12 +1,18 @@
 package com.library.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.library.audit.Audited;
+import com.library.dto.BorrowRecordPage;
 import com.library.dto.PageResult;
 import com.library.dto.Result;
 import com.library.entity.BorrowRecord;
 import com.library.service.BorrowService;
+import com.library.service.IdempotencyKeyReusedException;
+import com.library.service.IdempotencyService;
+import com.library.service.LoanStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -16,12 +22,23 @@ public class BorrowController {
     @Autowired
     private BorrowService borrowService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private LoanStatsService loanStatsService;
+
     @PostMapping("/{bookId}")
     @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER') or hasRole('ADMIN')")
-    public Result<BorrowRecord> borrowBook(@PathVariable Long bookId) {
+    @Audited(action = "BORROW", targetType = "borrow_record", detail = "bookId")
+    public Result<BorrowRecord> borrowBook(@PathVariable Long bookId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            BorrowRecord borrowRecord = borrowService.borrowBook(bookId);
+            BorrowRecord borrowRecord = idempotencyService.execute("borrow", currentUsername(), idempotencyKey, "bookId=" + bookId,
+                    () -> borrowService.borrowBook(bookId), BorrowRecord::getId, borrowService::getBorrowRecordDetail);
             return Result.success(borrowRecord);
+        } catch (IdempotencyKeyReusedException e) {
+            return Result.error(422, e.getMessage());
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
@@ -29,10 +46,15 @@ public class BorrowController {
 
     @PutMapping("/return/{recordId}")
     @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER') or hasRole('ADMIN')")
-    public Result<BorrowRecord> returnBook(@PathVariable Long recordId) {
+    @Audited(action = "RETURN", targetType = "borrow_record", targetId = "recordId")
+    public Result<BorrowRecord> returnBook(@PathVariable Long recordId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            BorrowRecord borrowRecord = borrowService.returnBook(recordId);
+            BorrowRecord borrowRecord = idempotencyService.execute("return", currentUsername(), idempotencyKey, "recordId=" + recordId,
+                    () -> borrowService.returnBook(recordId), BorrowRecord::getId, borrowService::getBorrowRecordDetail);
             return Result.success(borrowRecord);
+        } catch (IdempotencyKeyReusedException e) {
+            return Result.error(422, e.getMessage());
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
@@ -61,20 +83,19 @@ public class BorrowController {
 
     @GetMapping("/my-records")
     @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER') or hasRole('ADMIN')")
-    public Result<PageResult<BorrowRecord>> getMyBorrowRecords(
+    public Result<BorrowRecordPage> getMyBorrowRecords(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status) {
         try {
-            IPage<BorrowRecord> result = borrowService.getMyBorrowRecords(page, size);
-            PageResult<BorrowRecord> pageResult = PageResult.of(
-                result.getRecords(),
-                result.getTotal(),
-                result.getSize(),
-                result.getCurrent()
-            );
-            return Result.success(pageResult);
+            IPage<BorrowRecord> result = borrowService.getMyBorrowRecords(page, size, status);
+            return Result.success(BorrowRecordPage.of(result, loanStatsService.getCurrentUserSummary()));
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private String currentUsername() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+}
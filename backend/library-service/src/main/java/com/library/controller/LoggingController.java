@@ -0,0 +1,46 @@
+package com.library.controller;
+
+import com.library.dto.LogSamplingSettings;
+import com.library.dto.Result;
+import com.library.logging.LogSamplingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/logging")
+@PreAuthorize("hasRole('ADMIN')")
+public class LoggingController {
+
+    @Autowired
+    private LogSamplingService logSamplingService;
+
+    @GetMapping("/sampling")
+    public Result<LogSamplingSettings> getSampling() {
+        try {
+            return Result.success(logSamplingService.getSettings());
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @PutMapping("/sampling")
+    public Result<LogSamplingSettings> updateSampling(@Validated @RequestBody LogSamplingSettings settings) {
+        try {
+            return Result.success(logSamplingService.update(settings));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/sampling")
+    public Result<Void> disableSampling() {
+        try {
+            logSamplingService.disable();
+            return Result.success();
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.controller;
+
+import com.library.dto.QueryField;
+import com.library.dto.Result;
+import com.library.query.QueryExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/query")
+public class QueryController {
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    @PostMapping
+    @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER') or hasRole('ADMIN')")
+    public Result<Map<String, Object>> query(@RequestBody Map<String, QueryField> query) {
+        try {
+            return Result.success(queryExecutor.execute(query));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+}
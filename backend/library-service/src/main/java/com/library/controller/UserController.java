@@ -1,13 +1,22 @@
 package com.library.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.library.audit.Audited;
+import com.library.dto.BatchUserStatusRequest;
 import com.library.dto.PageResult;
 import com.library.dto.Result;
+import com.library.dto.UserImportResult;
 import com.library.entity.User;
+import com.library.service.UserImportService;
 import com.library.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 @RestController
 @RequestMapping("/api/users")
@@ -17,6 +26,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
     @GetMapping("/page")
     public Result<PageResult<User>> getUsersPage(
             @RequestParam(defaultValue = "1") int page,
@@ -49,7 +61,41 @@ public class UserController {
         }
     }
 
+    @PostMapping("/{id}/revoke-tokens")
+    @Audited(action = "USER_REVOKE_TOKENS", targetType = "user", targetId = "id")
+    public Result<Void> revokeUserTokens(@PathVariable Long id) {
+        try {
+            userService.revokeUserTokens(id);
+            return Result.success();
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @PostMapping("/import")
+    @Audited(action = "USER_IMPORT", targetType = "user")
+    public Result<UserImportResult> importUsers(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(defaultValue = "UTF-8") String charset) {
+        try (InputStream input = file.getInputStream()) {
+            UserImportResult result = userImportService.importUsers(input, Charset.forName(charset));
+            return Result.success(result);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @PutMapping("/status")
+    @Audited(action = "USER_BATCH_STATUS", targetType = "user", detail = "request")
+    public Result<Integer> updateUsersStatus(@Validated @RequestBody BatchUserStatusRequest request) {
+        try {
+            return Result.success(userService.updateUsersStatus(request));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/status")
+    @Audited(action = "USER_STATUS", targetType = "user", targetId = "id", detail = "status")
     public Result<User> updateUserStatus(@PathVariable Long id, @RequestParam Integer status) {
         try {
             User user = userService.updateUserStatus(id, status);
@@ -0,0 +1,23 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class BatchUserStatusRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 与 studentIdPrefix 二选一
+    private List<Long> userIds;
+
+    // 按学号前缀选择学生，例如停用整届毕业生
+    private String studentIdPrefix;
+
+    @NotNull(message = "状态不能为空")
+    private Integer status;
+}
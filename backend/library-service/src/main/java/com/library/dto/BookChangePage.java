@@ -0,0 +1,26 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+public class BookChangePage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // gzip 压缩的 NDJSON，每行一本图书；已删除的图书只有 id、status、updateTime
+    private byte[] data;
+
+    // 本页变更条数
+    private Integer count;
+
+    // 下一次请求使用的水位线
+    private LocalDateTime nextSince;
+
+    private Long nextAfterId;
+
+    // 水位线之后是否还有变更，为 true 时应立即读取下一页
+    private Boolean hasMore;
+}
@@ -0,0 +1,16 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class BookDelta {
+    private Long bookId;
+    private String category;
+    private Integer availableQuantity;
+    private Integer totalQuantity;
+    private String status;
+    private LocalDateTime updateTime;
+    private Long catalogVersion;
+}
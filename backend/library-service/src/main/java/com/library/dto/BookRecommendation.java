@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import com.library.entity.Book;
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class BookRecommendation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long bookId;
+    private Double score;
+    private Integer coBorrowCount;
+    private Book book;
+}
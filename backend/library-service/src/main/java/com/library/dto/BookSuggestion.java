@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class BookSuggestion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long bookId;
+    private String title;
+    private String author;
+    private String isbn;
+    private Long borrowCount;
+}
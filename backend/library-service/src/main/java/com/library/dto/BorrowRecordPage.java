@@ -0,0 +1,27 @@
+package com.library.dto;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.library.entity.BorrowRecord;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 我的借阅记录分页，附带当前用户的借阅汇总
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BorrowRecordPage extends PageResult<BorrowRecord> {
+
+    private LoanSummary summary;
+
+    public static BorrowRecordPage of(IPage<BorrowRecord> page, LoanSummary summary) {
+        BorrowRecordPage result = new BorrowRecordPage();
+        result.setRecords(page.getRecords());
+        result.setTotal(page.getTotal());
+        result.setSize(page.getSize());
+        result.setCurrent(page.getCurrent());
+        result.setPages((page.getTotal() + page.getSize() - 1) / page.getSize());
+        result.setSummary(summary);
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+public class LoanSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 在借数量
+    private Integer activeLoans;
+
+    // 按角色允许同时在借的数量
+    private Integer maxLoans;
+
+    // 在借且已过应还日期的数量
+    private Integer overdueLoans;
+
+    // 历史上逾期归还的次数
+    private Integer lateReturns;
+
+    // 历史上逾期归还累计产生的罚金
+    private BigDecimal finesAccrued;
+}
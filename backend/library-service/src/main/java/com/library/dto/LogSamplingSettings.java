@@ -0,0 +1,36 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class LogSamplingSettings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 打开调试日志的请求比例，0~1
+    @DecimalMin(value = "0", message = "采样比例应在 0 到 1 之间")
+    @DecimalMax(value = "1", message = "采样比例应在 0 到 1 之间")
+    private Double rate;
+
+    // 这些用户的请求全部打开调试日志
+    private List<String> usernames;
+
+    // 请求头 X-Request-Id 为这些值的请求打开调试日志
+    private List<String> traceIds;
+
+    // 有效时长（秒），到期后自动关闭，不填时使用默认值
+    @Min(value = 1, message = "有效时长至少 1 秒")
+    @Max(value = 86400, message = "有效时长不能超过一天")
+    private Long ttlSeconds;
+
+    // 到期时间（毫秒时间戳），由服务端填写
+    private Long expiresAt;
+}
@@ -2,10 +2,17 @@ package com.library.dto;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class LoginResponse {
+public class LoginResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private String token;
+    private String refreshToken;
+    private Long expiresIn;
     private String username;
     private String role;
     private String realName;
-}
\ No newline at end of file
+}
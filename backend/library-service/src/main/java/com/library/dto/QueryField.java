@@ -0,0 +1,22 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class QueryField implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 查询入口，如 myBorrowRecords、borrowCounts
+    private String field;
+
+    private Map<String, Object> args = new HashMap<>();
+
+    // 字段名，或 {"book": ["title", "author"]} 形式的嵌套选择；为空时返回该类型的全部标量字段
+    private List<Object> select;
+}
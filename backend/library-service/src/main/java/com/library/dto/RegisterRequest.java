@@ -6,8 +6,13 @@ import lombok.Data;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 
+import java.io.Serializable;
+
 @Data
-public class RegisterRequest {
+public class RegisterRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     @NotBlank(message = "用户名不能为空")
     private String username;
 
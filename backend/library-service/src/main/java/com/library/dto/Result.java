@@ -2,8 +2,13 @@ package com.library.dto;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class Result<T> {
+public class Result<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private Integer code;
     private String message;
     private T data;
@@ -0,0 +1,16 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class UserImportError implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 文件中的行号，表头为第 1 行
+    private Integer line;
+    private String username;
+    private String message;
+}
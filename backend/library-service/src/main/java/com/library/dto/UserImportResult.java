@@ -0,0 +1,19 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Integer total = 0;
+    private Integer imported = 0;
+    private Integer failed = 0;
+    // 只保留前若干条错误明细，failed 为完整数量
+    private List<UserImportError> errors = new ArrayList<>();
+}
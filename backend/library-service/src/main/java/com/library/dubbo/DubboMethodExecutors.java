@@ -0,0 +1,117 @@
+package com.library.dubbo;
+
+import com.library.dto.Result;
+import com.library.trace.Tracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dubbo 异步接口的执行线程池。每个方法一个独立的有界线程池，慢查询只会占满自己的池子，
+ * 不会拖住借还等其他方法；读、写两类方法分别配置池大小和队列长度。
+ * 队列积压、活跃线程数等通过 Micrometer 暴露（executor.* 指标，name=dubbo.{方法名}）。
+ */
+@Component
+public class DubboMethodExecutors {
+
+    private static final Logger log = LoggerFactory.getLogger(DubboMethodExecutors.class);
+
+    public enum Kind {
+        READ, WRITE
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${library.dubbo-executor.read.core-size:8}")
+    private int readCoreSize;
+
+    @Value("${library.dubbo-executor.read.max-size:16}")
+    private int readMaxSize;
+
+    @Value("${library.dubbo-executor.read.queue-capacity:200}")
+    private int readQueueCapacity;
+
+    @Value("${library.dubbo-executor.write.core-size:4}")
+    private int writeCoreSize;
+
+    @Value("${library.dubbo-executor.write.max-size:8}")
+    private int writeMaxSize;
+
+    @Value("${library.dubbo-executor.write.queue-capacity:100}")
+    private int writeQueueCapacity;
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    /**
+     * 在方法对应的线程池中执行 task。队列已满时不排队，直接返回失败结果，由调用方重试或降级。
+     */
+    public <T> CompletableFuture<Result<T>> submit(String method, Kind kind, Supplier<Result<T>> task) {
+        try {
+            return CompletableFuture.supplyAsync(tracer.wrap(task), executor(method, kind));
+        } catch (RejectedExecutionException e) {
+            rejections.get(method).increment();
+            log.warn("Dubbo executor for {} is saturated, rejecting call", method);
+            return CompletableFuture.completedFuture(Result.error(503, "服务繁忙，请稍后重试"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    private ThreadPoolExecutor executor(String method, Kind kind) {
+        ThreadPoolExecutor executor = executors.get(method);
+        if (executor != null) {
+            return executor;
+        }
+        return executors.computeIfAbsent(method, name -> create(name, kind));
+    }
+
+    private ThreadPoolExecutor create(String method, Kind kind) {
+        boolean read = kind == Kind.READ;
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                read ? readCoreSize : writeCoreSize,
+                read ? readMaxSize : writeMaxSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(read ? readQueueCapacity : writeQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dubbo-" + method + "-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        Tags tags = Tags.of("kind", kind.name().toLowerCase());
+        new ExecutorServiceMetrics(executor, "dubbo." + method, tags).bindTo(meterRegistry);
+        rejections.put(method, Counter.builder("library.dubbo.executor.rejected")
+                .tag("method", method)
+                .tags(tags)
+                .register(meterRegistry));
+        return executor;
+    }
+}
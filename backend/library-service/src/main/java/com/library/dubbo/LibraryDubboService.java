@@ -1,5 +1,8 @@
 package com.library.dubbo;
 
+import com.library.dto.BookChangePage;
+import com.library.dto.BookRecommendation;
+import com.library.dto.BookSuggestion;
 import com.library.dto.LoginRequest;
 import com.library.dto.LoginResponse;
 import com.library.dto.RegisterRequest;
@@ -8,10 +11,14 @@ import com.library.entity.Book;
 import com.library.entity.BorrowRecord;
 import com.library.entity.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface LibraryDubboService {
     Result<LoginResponse> login(LoginRequest loginRequest);
+
+    Result<LoginResponse> refreshToken(String refreshToken);
     
     Result<User> register(RegisterRequest registerRequest);
     
@@ -19,9 +26,64 @@ public interface LibraryDubboService {
     
     Result<Book> getBookById(Long bookId);
     
-    Result<BorrowRecord> borrowBook(Long bookId, String username);
+    Result<List<BookRecommendation>> getSimilarBooks(Long bookId, Integer limit);
+    
+    Result<List<BookSuggestion>> suggestBooks(String query, Integer limit);
+
+    /**
+     * 增量同步图书目录：返回 (since, afterId) 之后变更的图书，data 为 gzip 压缩的 NDJSON，已删除的图书以墓碑行表示。
+     * 首次同步 since 传 null；hasMore 为 true 时用返回的 nextSince/nextAfterId 继续读取。
+     */
+    Result<BookChangePage> getBookChanges(LocalDateTime since, Long afterId, Integer limit);
     
+    /**
+     * @deprecated 借还接口超时会自动重试，没有幂等键无法安全重试，该重载总是返回错误，请改用带幂等键的重载
+     */
+    @Deprecated
+    Result<BorrowRecord> borrowBook(Long bookId, String username);
+
+    /**
+     * 以 username 的身份借阅，用户由调用方认证。idempotencyKey 必填，超时重试时沿用同一个键，只会产生一条借阅记录；
+     * 键按调用方应用隔离。
+     */
+    Result<BorrowRecord> borrowBook(Long bookId, String username, String idempotencyKey);
+
+    /**
+     * @deprecated 同 {@link #borrowBook(Long, String)}，请改用带幂等键的重载
+     */
+    @Deprecated
     Result<BorrowRecord> returnBook(Long recordId);
+
+    /**
+     * 归还借阅记录，idempotencyKey 必填，规则同借阅。
+     */
+    Result<BorrowRecord> returnBook(Long recordId, String idempotencyKey);
     
     Result<List<BorrowRecord>> getUserBorrowRecords(String username);
-}
\ No newline at end of file
+
+    // 异步版本：不占用 Dubbo 业务线程，在各方法独立的线程池中执行，线程池满时返回 code 503
+
+    CompletableFuture<Result<LoginResponse>> loginAsync(LoginRequest loginRequest);
+
+    CompletableFuture<Result<LoginResponse>> refreshTokenAsync(String refreshToken);
+
+    CompletableFuture<Result<User>> registerAsync(RegisterRequest registerRequest);
+
+    CompletableFuture<Result<List<Book>>> getBooksListAsync(String keyword, String category);
+
+    CompletableFuture<Result<Book>> getBookByIdAsync(Long bookId);
+
+    CompletableFuture<Result<List<BookRecommendation>>> getSimilarBooksAsync(Long bookId, Integer limit);
+
+    CompletableFuture<Result<List<BookSuggestion>>> suggestBooksAsync(String query, Integer limit);
+
+    CompletableFuture<Result<BookChangePage>> getBookChangesAsync(LocalDateTime since, Long afterId, Integer limit);
+
+    // 异步借还与同步版本一样会超时重试，idempotencyKey 必填，为空时直接返回错误
+
+    CompletableFuture<Result<BorrowRecord>> borrowBookAsync(Long bookId, String username, String idempotencyKey);
+
+    CompletableFuture<Result<BorrowRecord>> returnBookAsync(Long recordId, String idempotencyKey);
+
+    CompletableFuture<Result<List<BorrowRecord>>> getUserBorrowRecordsAsync(String username);
+}
@@ -2,27 +2,50 @@ package com.library.dubbo.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.library.dto.BookChangePage;
+import com.library.dto.BookRecommendation;
+import com.library.dto.BookSuggestion;
 import com.library.dto.LoginRequest;
 import com.library.dto.LoginResponse;
 import com.library.dto.RegisterRequest;
 import com.library.dto.Result;
+import com.library.dubbo.DubboMethodExecutors;
+import com.library.dubbo.DubboMethodExecutors.Kind;
 import com.library.dubbo.LibraryDubboService;
 import com.library.entity.Book;
 import com.library.entity.BorrowRecord;
 import com.library.entity.User;
 import com.library.enums.BookStatus;
+import com.library.service.BookFeedService;
 import com.library.service.BookService;
+import com.library.service.BookSuggestService;
 import com.library.service.BorrowService;
+import com.library.service.IdempotencyKeyReusedException;
+import com.library.service.IdempotencyService;
+import com.library.service.RecommendationService;
 import com.library.service.UserService;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.apache.dubbo.config.annotation.Method;
+import org.apache.dubbo.rpc.RpcContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-@DubboService
+// 借还已支持幂等键并在 SQL 中校验库存与记录状态，可以安全地超时重试；其余写接口不重试。
+// 重试按方法名配置，对同名的重载同样生效，因此借还的每个重载都必须带幂等键
+@DubboService(retries = 0, methods = {
+        @Method(name = "borrowBook", timeout = 5000, retries = 2),
+        @Method(name = "returnBook", timeout = 5000, retries = 2),
+        @Method(name = "borrowBookAsync", timeout = 5000, retries = 2),
+        @Method(name = "returnBookAsync", timeout = 5000, retries = 2)
+})
 public class LibraryDubboServiceImpl implements LibraryDubboService {
 
+    private static final String KEY_REQUIRED = "借还接口会超时重试，请使用带幂等键的重载并传入幂等键";
+
     @Autowired
     private UserService userService;
 
@@ -32,6 +55,21 @@ public class LibraryDubboServiceImpl implements LibraryDubboService {
     @Autowired
     private BorrowService borrowService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private BookSuggestService bookSuggestService;
+
+    @Autowired
+    private BookFeedService bookFeedService;
+
+    @Autowired
+    private DubboMethodExecutors executors;
+
     @Override
     public Result<LoginResponse> login(LoginRequest loginRequest) {
         try {
@@ -42,6 +80,16 @@ public class LibraryDubboServiceImpl implements LibraryDubboService {
         }
     }
 
+    @Override
+    public Result<LoginResponse> refreshToken(String refreshToken) {
+        try {
+            LoginResponse response = userService.refresh(refreshToken);
+            return Result.success(response);
+        } catch (Exception e) {
+            return Result.error(401, e.getMessage());
+        }
+    }
+
     @Override
     public Result<User> register(RegisterRequest registerRequest) {
         try {
@@ -95,25 +143,54 @@ public class LibraryDubboServiceImpl implements LibraryDubboService {
     }
 
     @Override
-    public Result<BorrowRecord> borrowBook(Long bookId, String username) {
+    public Result<List<BookRecommendation>> getSimilarBooks(Long bookId, Integer limit) {
         try {
-            BorrowRecord borrowRecord = borrowService.borrowBook(bookId);
-            return Result.success(borrowRecord);
+            return Result.success(recommendationService.getSimilarBooks(bookId, limit == null ? 10 : limit));
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
 
     @Override
-    public Result<BorrowRecord> returnBook(Long recordId) {
+    public Result<List<BookSuggestion>> suggestBooks(String query, Integer limit) {
         try {
-            BorrowRecord borrowRecord = borrowService.returnBook(recordId);
-            return Result.success(borrowRecord);
+            return Result.success(bookSuggestService.suggest(query, limit == null ? 8 : limit));
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
 
+    @Override
+    public Result<BookChangePage> getBookChanges(LocalDateTime since, Long afterId, Integer limit) {
+        try {
+            return Result.success(bookFeedService.getChanges(since, afterId, limit));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @Override
+    @Deprecated
+    public Result<BorrowRecord> borrowBook(Long bookId, String username) {
+        return Result.error(KEY_REQUIRED);
+    }
+
+    @Override
+    public Result<BorrowRecord> borrowBook(Long bookId, String username, String idempotencyKey) {
+        return borrow(bookId, username, idempotencyKey, caller());
+    }
+
+    @Override
+    @Deprecated
+    public Result<BorrowRecord> returnBook(Long recordId) {
+        return Result.error(KEY_REQUIRED);
+    }
+
+    @Override
+    public Result<BorrowRecord> returnBook(Long recordId, String idempotencyKey) {
+        return giveBack(recordId, idempotencyKey, caller());
+    }
+
     @Override
     public Result<List<BorrowRecord>> getUserBorrowRecords(String username) {
         try {
@@ -131,4 +208,112 @@ public class LibraryDubboServiceImpl implements LibraryDubboService {
             return Result.error(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Result<LoginResponse>> loginAsync(LoginRequest loginRequest) {
+        return executors.submit("login", Kind.WRITE, () -> login(loginRequest));
+    }
+
+    @Override
+    public CompletableFuture<Result<LoginResponse>> refreshTokenAsync(String refreshToken) {
+        return executors.submit("refreshToken", Kind.WRITE, () -> refreshToken(refreshToken));
+    }
+
+    @Override
+    public CompletableFuture<Result<User>> registerAsync(RegisterRequest registerRequest) {
+        return executors.submit("register", Kind.WRITE, () -> register(registerRequest));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<Book>>> getBooksListAsync(String keyword, String category) {
+        return executors.submit("getBooksList", Kind.READ, () -> getBooksList(keyword, category));
+    }
+
+    @Override
+    public CompletableFuture<Result<Book>> getBookByIdAsync(Long bookId) {
+        return executors.submit("getBookById", Kind.READ, () -> getBookById(bookId));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<BookRecommendation>>> getSimilarBooksAsync(Long bookId, Integer limit) {
+        return executors.submit("getSimilarBooks", Kind.READ, () -> getSimilarBooks(bookId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<BookSuggestion>>> suggestBooksAsync(String query, Integer limit) {
+        return executors.submit("suggestBooks", Kind.READ, () -> suggestBooks(query, limit));
+    }
+
+    @Override
+    public CompletableFuture<Result<BookChangePage>> getBookChangesAsync(LocalDateTime since, Long afterId, Integer limit) {
+        return executors.submit("getBookChanges", Kind.READ, () -> getBookChanges(since, afterId, limit));
+    }
+
+    // 异步借还同样会超时重试，没有幂等键时不进入线程池直接拒绝；RpcContext 是线程本地的，调用方在提交之前取出
+    @Override
+    public CompletableFuture<Result<BorrowRecord>> borrowBookAsync(Long bookId, String username, String idempotencyKey) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return CompletableFuture.completedFuture(Result.error(KEY_REQUIRED));
+        }
+        String caller = caller();
+        return executors.submit("borrowBook", Kind.WRITE, () -> borrow(bookId, username, idempotencyKey, caller));
+    }
+
+    @Override
+    public CompletableFuture<Result<BorrowRecord>> returnBookAsync(Long recordId, String idempotencyKey) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return CompletableFuture.completedFuture(Result.error(KEY_REQUIRED));
+        }
+        String caller = caller();
+        return executors.submit("returnBook", Kind.WRITE, () -> giveBack(recordId, idempotencyKey, caller));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<BorrowRecord>>> getUserBorrowRecordsAsync(String username) {
+        return executors.submit("getUserBorrowRecords", Kind.READ, () -> getUserBorrowRecords(username));
+    }
+
+    // Dubbo 调用没有登录上下文，由消费者负责认证用户，这里以 username 的身份借书
+    private Result<BorrowRecord> borrow(Long bookId, String username, String idempotencyKey, String caller) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return Result.error(KEY_REQUIRED);
+        }
+        if (!StringUtils.hasText(username)) {
+            return Result.error("用户名不能为空");
+        }
+        try {
+            BorrowRecord borrowRecord = idempotencyService.execute("borrow", caller + ":" + username, idempotencyKey,
+                    "bookId=" + bookId, () -> borrowService.borrowBookFor(bookId, username), BorrowRecord::getId,
+                    borrowService::getBorrowRecordDetail);
+            return Result.success(borrowRecord);
+        } catch (IdempotencyKeyReusedException e) {
+            return Result.error(422, e.getMessage());
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    private Result<BorrowRecord> giveBack(Long recordId, String idempotencyKey, String caller) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return Result.error(KEY_REQUIRED);
+        }
+        try {
+            BorrowRecord borrowRecord = idempotencyService.execute("return", caller, idempotencyKey, "recordId=" + recordId,
+                    () -> borrowService.returnBook(recordId), BorrowRecord::getId, borrowService::getBorrowRecordDetail);
+            return Result.success(borrowRecord);
+        } catch (IdempotencyKeyReusedException e) {
+            return Result.error(422, e.getMessage());
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    // 幂等键按调用方应用隔离，不同消费者碰巧使用相同的键不会拿到对方的结果
+    private static String caller() {
+        String application = RpcContext.getServiceContext().getRemoteApplicationName();
+        if (!StringUtils.hasText(application)) {
+            application = RpcContext.getServiceContext().getRemoteHost();
+        }
+        return "dubbo:" + (StringUtils.hasText(application) ? application : "unknown");
+    }
+}
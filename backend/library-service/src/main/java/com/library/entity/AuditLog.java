@@ -0,0 +1,40 @@
+package com.library.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@TableName("audit_logs")
+public class AuditLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String action;
+
+    @TableField("target_type")
+    private String targetType;
+
+    @TableField("target_id")
+    private Long targetId;
+
+    @TableField("user_id")
+    private Long userId;
+
+    private String username;
+
+    @TableField("client_ip")
+    private String clientIp;
+
+    private Boolean success;
+
+    private String detail;
+
+    @TableField("event_time")
+    private LocalDateTime eventTime;
+}
@@ -4,13 +4,17 @@ import com.baomidou.mybatisplus.annotation.*;
 import com.library.enums.BookStatus;
 import lombok.Data;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
 @TableName("books")
-public class Book {
+public class Book implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     @TableId(type = IdType.AUTO)
     private Long id;
 
@@ -4,12 +4,16 @@ import com.baomidou.mybatisplus.annotation.*;
 import com.library.enums.BorrowStatus;
 import lombok.Data;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @TableName("borrow_records")
-public class BorrowRecord {
+public class BorrowRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     @TableId(type = IdType.AUTO)
     private Long id;
 
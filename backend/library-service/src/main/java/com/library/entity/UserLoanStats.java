@@ -0,0 +1,36 @@
+package com.library.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@TableName("user_loan_stats")
+public class UserLoanStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "user_id", type = IdType.INPUT)
+    private Long userId;
+
+    // 在借数量
+    @TableField("active_loans")
+    private Integer activeLoans;
+
+    // 逾期归还次数
+    @TableField("overdue_count")
+    private Integer overdueCount;
+
+    // 累计罚金
+    @TableField("fine_amount")
+    private BigDecimal fineAmount;
+
+    @TableField("update_time")
+    private LocalDateTime updateTime;
+}
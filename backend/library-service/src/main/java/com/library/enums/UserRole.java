@@ -1,17 +1,25 @@
 package com.library.enums;
 
 public enum UserRole {
-    STUDENT("学生"),
-    TEACHER("老师"),
-    ADMIN("管理员");
+    STUDENT("学生", 5),
+    TEACHER("老师", 10),
+    ADMIN("管理员", 20);
 
     private final String description;
 
-    UserRole(String description) {
+    // 同时在借的最大数量
+    private final int maxLoans;
+
+    UserRole(String description, int maxLoans) {
         this.description = description;
+        this.maxLoans = maxLoans;
     }
 
     public String getDescription() {
         return description;
     }
+
+    public int getMaxLoans() {
+        return maxLoans;
+    }
 }
\ No newline at end of file
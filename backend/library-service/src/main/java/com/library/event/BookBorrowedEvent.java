@@ -0,0 +1,12 @@
+package com.library.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BookBorrowedEvent {
+    private final Long recordId;
+    private final Long userId;
+    private final Long bookId;
+}
@@ -0,0 +1,20 @@
+package com.library.event;
+
+import com.library.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 图书信息或库存变更（新增、修改、删除、状态变更、借还）。book 为变更后的完整数据，
+ * 为空时监听方按 bookId 重新读取。
+ */
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+    private final Long bookId;
+    private final Book book;
+
+    public BookChangedEvent(Long bookId) {
+        this(bookId, null);
+    }
+}
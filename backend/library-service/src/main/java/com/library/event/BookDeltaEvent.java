@@ -0,0 +1,14 @@
+package com.library.event;
+
+import com.library.dto.BookDelta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 从 Redis 频道收到的图书变更（可能来自任意副本），在本实例内分发。
+ */
+@Getter
+@AllArgsConstructor
+public class BookDeltaEvent {
+    private final BookDelta delta;
+}
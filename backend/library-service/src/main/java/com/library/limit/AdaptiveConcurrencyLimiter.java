@@ -0,0 +1,175 @@
+package com.library.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据库相关服务调用的自适应并发限制（AIMD）。每次调用结束时用耗时调整上限：
+ * 短期平均耗时超过长期基线的 tolerance 倍、单次耗时超过 max-latency 或者获取连接/执行超时，视为数据库开始排队，
+ * 上限乘以 backoff-ratio；否则在上限被用到一半以上时每轮（约 limit 次调用）加 1。
+ * 同一轮内只收缩一次，即只有在上次收缩之后才发起的调用才会再次触发收缩，避免一批慢请求把上限一次压到底。
+ * <p>
+ * 超出上限的调用直接拒绝而不是在 Druid 的 max-wait 上排队。不同优先级可用的份额不同：
+ * 搜索和管理端列表只能用到上限的 sheddable-share，普通查询用到 normal-share，借还可以用满。
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    // 短期/长期平均耗时的平滑系数，分别约等于最近 10 次和 500 次调用
+    private static final double SHORT_ALPHA = 0.1;
+    private static final double LONG_ALPHA = 0.002;
+
+    // 基线在前这么多次调用内不做梯度判断
+    private static final int BASELINE_SAMPLES = 100;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.limiter.initial-limit:${spring.datasource.druid.max-active:20}}")
+    private int initialLimit;
+
+    @Value("${library.limiter.min-limit:2}")
+    private int minLimit;
+
+    @Value("${library.limiter.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${library.limiter.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${library.limiter.max-latency:2000}")
+    private long maxLatencyMillis;
+
+    @Value("${library.limiter.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${library.limiter.normal-share:0.9}")
+    private double normalShare;
+
+    @Value("${library.limiter.sheddable-share:0.7}")
+    private double sheddableShare;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Map<Priority, Counter> rejections = new EnumMap<>(Priority.class);
+
+    private long maxLatencyNanos;
+
+    // 以下字段只在 synchronized 的 onSample 中修改
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+    private long lastDecreaseNanos;
+
+    @PostConstruct
+    public void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        lastDecreaseNanos = System.nanoTime();
+
+        Gauge.builder("library.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("library.limiter.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            rejections.put(priority, Counter.builder("library.limiter.rejected")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        log.info("Adaptive concurrency limiter {}, initial limit {} (min {}, max {})",
+                enabled ? "enabled" : "disabled", getLimit(), minLimit, maxLimit);
+    }
+
+    /**
+     * 占用一个并发名额，超出该优先级可用的份额时抛出 {@link ServiceOverloadedException}。
+     * 返回调用开始的时间，调用结束后必须传给 {@link #release(long, boolean)}。
+     */
+    public long acquire(Priority priority) {
+        if (enabled) {
+            int allowed = allowance(priority, getLimit());
+            while (true) {
+                int current = inFlight.get();
+                if (current >= allowed) {
+                    rejections.get(priority).increment();
+                    throw new ServiceOverloadedException();
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    break;
+                }
+            }
+        } else {
+            inFlight.incrementAndGet();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * 释放名额并记录本次耗时。dropped 表示调用因获取连接超时、查询超时等数据库过载的原因失败，按拥塞处理。
+     */
+    public void release(long startNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        if (enabled) {
+            onSample(startNanos, System.nanoTime(), current, dropped);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long startNanos, long endNanos, int inFlightAtEnd, boolean dropped) {
+        long rtt = endNanos - startNanos;
+        samples++;
+        if (!dropped) {
+            shortRtt = shortRtt == 0 ? rtt : shortRtt + SHORT_ALPHA * (rtt - shortRtt);
+            longRtt = longRtt == 0 ? rtt : longRtt + LONG_ALPHA * (rtt - longRtt);
+        }
+
+        boolean congested = dropped || rtt > maxLatencyNanos
+                || (samples > BASELINE_SAMPLES && shortRtt > tolerance * longRtt);
+        if (congested) {
+            if (startNanos - lastDecreaseNanos > 0) {
+                double previous = limit;
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = endNanos;
+                if ((int) previous != (int) limit) {
+                    log.debug("Concurrency limit decreased to {} (rtt {} ms, short {} ms, long {} ms, dropped {})",
+                            (int) limit, rtt / 1_000_000, (long) shortRtt / 1_000_000, (long) longRtt / 1_000_000, dropped);
+                }
+            }
+        } else if (inFlightAtEnd * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private int allowance(Priority priority, int currentLimit) {
+        switch (priority) {
+            case CRITICAL:
+                return currentLimit;
+            case NORMAL:
+                return Math.max(1, (int) (currentLimit * normalShare));
+            default:
+                return Math.max(1, (int) (currentLimit * sheddableShare));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.limit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 给标注了 {@link ConcurrencyLimited} 的服务加上并发限制。拦截器放在事务等已有切面的外层，
+ * 被拒绝的调用不会开启事务或占用连接；服务之间的嵌套调用只在最外层计一次。
+ * HTTP 请求被拒绝时响应状态设为 503 并带上 Retry-After，控制器照常返回错误信息。
+ */
+@Component
+public class ConcurrencyLimitPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrencyLimitPostProcessor() {
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        // 后置处理器先于普通 bean 创建，限流器在第一次调用时再取
+        ObjectProvider<AdaptiveConcurrencyLimiter> limiter = beanFactory.getBeanProvider(AdaptiveConcurrencyLimiter.class);
+        this.advisor = new DefaultPointcutAdvisor(new LimitedServicePointcut(), new LimitInterceptor(limiter));
+    }
+
+    private static class LimitedServicePointcut extends StaticMethodMatcherPointcut {
+
+        LimitedServicePointcut() {
+            setClassFilter(new AnnotationClassFilter(ConcurrencyLimited.class, true));
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            if (!Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+                return false;
+            }
+            Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+            ConcurrencyLimited annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, ConcurrencyLimited.class);
+            return annotation == null || annotation.enabled();
+        }
+    }
+
+    private static class LimitInterceptor implements MethodInterceptor {
+
+        private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+
+        private final ObjectProvider<AdaptiveConcurrencyLimiter> limiterProvider;
+
+        private final Map<MethodClassKey, Priority> priorities = new ConcurrentHashMap<>();
+
+        LimitInterceptor(ObjectProvider<AdaptiveConcurrencyLimiter> limiterProvider) {
+            this.limiterProvider = limiterProvider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (HOLDING.get() != null) {
+                return invocation.proceed();
+            }
+            AdaptiveConcurrencyLimiter limiter = limiterProvider.getObject();
+            long start;
+            try {
+                start = limiter.acquire(priorityOf(invocation));
+            } catch (ServiceOverloadedException e) {
+                markServiceUnavailable();
+                throw e;
+            }
+
+            boolean dropped = false;
+            HOLDING.set(Boolean.TRUE);
+            try {
+                return invocation.proceed();
+            } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                // 获取连接超时、查询超时、锁等待超时，说明数据库已经跟不上
+                dropped = true;
+                throw e;
+            } finally {
+                HOLDING.remove();
+                limiter.release(start, dropped);
+            }
+        }
+
+        private Priority priorityOf(MethodInvocation invocation) {
+            Method method = invocation.getMethod();
+            Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+            return priorities.computeIfAbsent(new MethodClassKey(method, targetClass), key -> {
+                Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+                ConcurrencyLimited annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, ConcurrencyLimited.class);
+                if (annotation == null) {
+                    annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, ConcurrencyLimited.class);
+                }
+                return annotation == null ? Priority.NORMAL : annotation.value();
+            });
+        }
+
+        private static void markServiceUnavailable() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes instanceof ServletRequestAttributes) {
+                HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+                if (response != null && !response.isCommitted()) {
+                    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                    response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记访问数据库的服务。标在类上时该类经代理调用的所有公共方法都受 {@link AdaptiveConcurrencyLimiter} 限制，
+ * 标在方法上可以覆盖类上的优先级。
+ * <p>
+ * 耗时主要不在数据库上的方法（BCrypt 校验密码）和批量操作标 {@code enabled = false}，既不占名额也不参与调整上限，
+ * 否则它们的耗时会被当成数据库排队，把借还可用的上限压低。
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrencyLimited {
+
+    Priority value() default Priority.NORMAL;
+
+    boolean enabled() default true;
+}
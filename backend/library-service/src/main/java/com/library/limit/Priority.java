@@ -0,0 +1,13 @@
+package com.library.limit;
+
+/**
+ * 并发限制下的请求优先级。并发接近上限时先拒绝低优先级的请求，把剩余的并发留给借还。
+ */
+public enum Priority {
+    // 借书、还书
+    CRITICAL,
+    // 详情、个人借阅记录、登录等
+    NORMAL,
+    // 图书搜索、管理端列表，可以让用户稍后重试
+    SHEDDABLE
+}
@@ -0,0 +1,13 @@
+package com.library.limit;
+
+/**
+ * 并发已达上限时立即抛出，不排队等待数据库连接。
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServiceOverloadedException() {
+        super("服务繁忙，请稍后重试");
+    }
+}
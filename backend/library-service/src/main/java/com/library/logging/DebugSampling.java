@@ -0,0 +1,77 @@
+package com.library.logging;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 当前线程正在处理的请求是否打开调试日志。logback 的 TurboFilter 不是 Spring bean，
+ * 采样设置和线程状态放在静态字段里，由 {@link LogSamplingService} 更新、{@link RequestLogFilter} 在请求开始时判定。
+ */
+public final class DebugSampling {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private static volatile Settings settings = Settings.OFF;
+
+    private DebugSampling() {
+    }
+
+    /**
+     * 请求开始时按采样比例和追踪 ID 判定
+     */
+    static void begin(String traceId) {
+        Settings current = settings;
+        if (current.isEnabled() && (current.traceIds.contains(traceId)
+                || (current.rate > 0 && ThreadLocalRandom.current().nextDouble() < current.rate))) {
+            ACTIVE.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 认证通过后按用户名判定，之前的安全过滤器日志不会补打
+     */
+    public static void onAuthenticated(String username) {
+        Settings current = settings;
+        if (current.isEnabled() && current.usernames.contains(username)) {
+            ACTIVE.set(Boolean.TRUE);
+        }
+    }
+
+    static void end() {
+        ACTIVE.remove();
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    static void apply(Settings newSettings) {
+        settings = newSettings;
+    }
+
+    static Settings current() {
+        return settings;
+    }
+
+    static final class Settings {
+
+        static final Settings OFF = new Settings(0, Collections.emptySet(), Collections.emptySet(), 0);
+
+        final double rate;
+        final Set<String> usernames;
+        final Set<String> traceIds;
+        final long expiresAt;
+
+        Settings(double rate, Set<String> usernames, Set<String> traceIds, long expiresAt) {
+            this.rate = rate;
+            this.usernames = usernames;
+            this.traceIds = traceIds;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isEnabled() {
+            return expiresAt > System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.library.logging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.LogSamplingSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 调试日志采样的运行时开关。设置保存在 Redis 并通过 pub/sub 广播，所有实例同时生效，新启动的实例从 Redis 读取；
+ * 设置带有效期，到期后自动关闭，避免忘记关闭后一直付出调试日志的开销。
+ */
+@Component
+public class LogSamplingService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSamplingService.class);
+
+    private static final String KEY = "logging:debug-sampling";
+    private static final String CHANNEL = "logging:debug-sampling";
+    private static final String OFF = "off";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${library.logging.sampling.default-ttl:900}")
+    private long defaultTtlSeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        try {
+            String json = redisTemplate.opsForValue().get(KEY);
+            if (json != null) {
+                apply(json);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load debug log sampling settings from Redis: {}", e.getMessage());
+        }
+    }
+
+    public LogSamplingSettings getSettings() {
+        DebugSampling.Settings current = DebugSampling.current();
+        LogSamplingSettings settings = new LogSamplingSettings();
+        if (current.isEnabled()) {
+            settings.setRate(current.rate);
+            settings.setUsernames(new ArrayList<>(current.usernames));
+            settings.setTraceIds(new ArrayList<>(current.traceIds));
+            settings.setExpiresAt(current.expiresAt);
+        } else {
+            settings.setRate(0.0);
+            settings.setUsernames(Collections.emptyList());
+            settings.setTraceIds(Collections.emptyList());
+        }
+        return settings;
+    }
+
+    public LogSamplingSettings update(LogSamplingSettings settings) {
+        long ttl = settings.getTtlSeconds() != null ? settings.getTtlSeconds() : defaultTtlSeconds;
+        settings.setExpiresAt(System.currentTimeMillis() + ttl * 1000);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(settings);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("采样设置无效");
+        }
+        redisTemplate.opsForValue().set(KEY, json, Duration.ofSeconds(ttl));
+        apply(json);
+        redisTemplate.convertAndSend(CHANNEL, json);
+        return getSettings();
+    }
+
+    public void disable() {
+        redisTemplate.delete(KEY);
+        apply(OFF);
+        redisTemplate.convertAndSend(CHANNEL, OFF);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        apply(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void apply(String json) {
+        if (OFF.equals(json)) {
+            DebugSampling.apply(DebugSampling.Settings.OFF);
+            log.info("Debug log sampling disabled");
+            return;
+        }
+        try {
+            LogSamplingSettings settings = objectMapper.readValue(json, LogSamplingSettings.class);
+            DebugSampling.apply(new DebugSampling.Settings(
+                    settings.getRate() != null ? settings.getRate() : 0,
+                    toSet(settings.getUsernames()),
+                    toSet(settings.getTraceIds()),
+                    settings.getExpiresAt() != null ? settings.getExpiresAt() : 0));
+            log.info("Debug log sampling enabled: rate {}, users {}, trace ids {}, expires at {}",
+                    settings.getRate(), settings.getUsernames(), settings.getTraceIds(), settings.getExpiresAt());
+        } catch (Exception e) {
+            log.warn("Ignoring invalid debug log sampling settings: {}", e.getMessage());
+        }
+    }
+
+    private static Set<String> toSet(Collection<String> values) {
+        return values == null || values.isEmpty()
+                ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(values));
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/**
+ * 被采样的请求放行指定包下的 DEBUG 日志，其余请求仍按配置的级别过滤。
+ * 每条日志和每次 isDebugEnabled 都会经过这里，未采样时只多一次级别比较和 ThreadLocal 读取。
+ * 在 logback-spring.xml 中配置，packages 为逗号分隔的 logger 名前缀。
+ */
+public class SampledDebugTurboFilter extends TurboFilter {
+
+    private String[] packages = new String[0];
+
+    public void setPackages(String packages) {
+        this.packages = packages.trim().split("\\s*,\\s*");
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.DEBUG || !DebugSampling.isActive()) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        for (String prefix : packages) {
+            if (name.startsWith(prefix)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
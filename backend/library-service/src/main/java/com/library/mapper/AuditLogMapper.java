@@ -0,0 +1,23 @@
+package com.library.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.library.entity.AuditLog;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface AuditLogMapper extends BaseMapper<AuditLog> {
+
+    // 一条多行 INSERT 写入一批审计日志
+    @Insert("<script>" +
+            "INSERT INTO audit_logs (action, target_type, target_id, user_id, username, client_ip, success, detail, event_time) VALUES " +
+            "<foreach collection='logs' item='log' separator=','>" +
+            "(#{log.action}, #{log.targetType}, #{log.targetId}, #{log.userId}, #{log.username}, #{log.clientIp}, " +
+            "#{log.success}, #{log.detail}, #{log.eventTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("logs") List<AuditLog> logs);
+}
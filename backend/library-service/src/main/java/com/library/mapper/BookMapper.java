@@ -3,7 +3,50 @@ package com.library.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.library.entity.Book;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface BookMapper extends BaseMapper<Book> {
-}
\ No newline at end of file
+
+    // 库存增减在 SQL 中带条件完成，并发或重试的借还请求不会把库存扣成负数或加超总量
+    @Update("UPDATE books SET available_quantity = available_quantity - 1, update_time = NOW() " +
+            "WHERE id = #{id} AND status = 'AVAILABLE' AND available_quantity > 0")
+    int decrementAvailable(@Param("id") Long id);
+
+    @Update("UPDATE books SET available_quantity = available_quantity + 1, update_time = NOW() " +
+            "WHERE id = #{id} AND available_quantity < total_quantity")
+    int incrementAvailable(@Param("id") Long id);
+
+    // 调整总数量时可借数量同步增减，已借出的数量不变；借出的比新总数量多时不更新。
+    // MySQL 按顺序赋值，available_quantity 必须写在 total_quantity 之前才能用到原来的总数量
+    @Update("UPDATE books SET available_quantity = available_quantity + #{total} - total_quantity, " +
+            "total_quantity = #{total}, update_time = NOW() " +
+            "WHERE id = #{id} AND status <> 'DELETED' AND available_quantity + #{total} - total_quantity >= 0")
+    int updateTotalQuantity(@Param("id") Long id, @Param("total") int total);
+
+    // 只有全部归还时才能删除，与借书扣库存在同一行上互斥
+    @Update("UPDATE books SET status = 'DELETED', update_time = NOW() " +
+            "WHERE id = #{id} AND status <> 'DELETED' AND available_quantity = total_quantity")
+    int markDeleted(@Param("id") Long id);
+
+    @Update("UPDATE books SET status = #{status}, update_time = NOW() WHERE id = #{id} AND status <> 'DELETED'")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    @Update("UPDATE books SET cover_url = #{coverUrl}, update_time = NOW() WHERE id = #{id} AND status <> 'DELETED'")
+    int updateCoverUrl(@Param("id") Long id, @Param("coverUrl") String coverUrl);
+
+    @Select("SELECT category FROM books WHERE status <> 'DELETED' AND category IS NOT NULL " +
+            "GROUP BY category ORDER BY COUNT(*) DESC LIMIT #{limit}")
+    List<String> selectTopCategories(@Param("limit") int limit);
+
+    // 按 (update_time, id) 水位线之后的变更，包括已删除的图书；until 之后的变更留到下一次读取
+    @Select("SELECT * FROM books WHERE update_time >= #{since} AND (update_time > #{since} OR id > #{afterId}) " +
+            "AND update_time < #{until} ORDER BY update_time, id LIMIT #{limit}")
+    List<Book> selectChangedSince(@Param("since") LocalDateTime since, @Param("afterId") long afterId,
+                                  @Param("until") LocalDateTime until, @Param("limit") int limit);
+}
@@ -1,20 +1,129 @@
 package com.library.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.library.entity.BorrowRecord;
+import com.library.entity.UserLoanStats;
+import com.library.enums.BorrowStatus;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface BorrowRecordMapper extends BaseMapper<BorrowRecord> {
 
-    @Select("SELECT br.*, u.username, u.real_name as userRealName, b.title as bookTitle, b.author as bookAuthor " +
-            "FROM borrow_records br " +
-            "LEFT JOIN users u ON br.user_id = u.id " +
-            "LEFT JOIN books b ON br.book_id = b.id " +
-            "${ew.customSqlSegment}")
-    IPage<BorrowRecord> selectBorrowRecordsWithDetails(Page<BorrowRecord> page, @Param("ew") Object wrapper);
-}
\ No newline at end of file
+    String COLUMNS = "id, user_id, book_id, borrow_date, due_date, return_date, status, fine_amount, remark, create_time, update_time";
+
+    String PAGE_FILTER = "<where><if test='userId != null'>user_id = #{userId}</if>" +
+            "<if test='status != null'> AND status = #{status}</if></where>";
+
+    String NEWEST_FIRST = " ORDER BY borrow_date DESC, id DESC";
+
+    // 借阅记录分页，按借阅时间倒序。分库后借阅记录与用户、图书不在同一个库，这里不做关联查询，
+    // 用户名和书名由 BorrowServiceImpl 从主库批量补齐。
+    // archive 为 true 时合并归档表：条件、排序和 LIMIT 写在每个分支里，两张表各自按
+    // idx_user_borrow_date / idx_status_borrow_date / idx_borrow_date 只读前 offset + size 行，外层只对这些行排序
+    @Select("<script>" +
+            "<choose><when test='archive'>" +
+            "SELECT " + COLUMNS + " FROM (" +
+            "(SELECT " + COLUMNS + " FROM borrow_records " + PAGE_FILTER + NEWEST_FIRST + " LIMIT #{end}) " +
+            "UNION ALL (SELECT " + COLUMNS + " FROM borrow_records_archive " + PAGE_FILTER + NEWEST_FIRST +
+            " LIMIT #{end})) br" + NEWEST_FIRST + " LIMIT #{size} OFFSET #{offset}" +
+            "</when><otherwise>" +
+            "SELECT " + COLUMNS + " FROM borrow_records " + PAGE_FILTER + NEWEST_FIRST +
+            " LIMIT #{size} OFFSET #{offset}" +
+            "</otherwise></choose>" +
+            "</script>")
+    List<BorrowRecord> selectPage(@Param("userId") Long userId, @Param("status") BorrowStatus status,
+                                  @Param("archive") boolean archive, @Param("offset") long offset,
+                                  @Param("size") long size, @Param("end") long end);
+
+    // 两张表分别计数后相加，不对合并结果计数
+    @Select("<script>" +
+            "SELECT (SELECT COUNT(*) FROM borrow_records " + PAGE_FILTER + ")" +
+            "<if test='archive'> + (SELECT COUNT(*) FROM borrow_records_archive " + PAGE_FILTER + ")</if>" +
+            "</script>")
+    long countPage(@Param("userId") Long userId, @Param("status") BorrowStatus status,
+                   @Param("archive") boolean archive);
+
+    // 该读者是否正在借这本书。调用方须先锁定 user_loan_stats 行，同一读者的借书由该行锁串行执行。
+    // 借书事务使用读已提交，未分库时普通 SELECT 也读取最新提交，不需要加锁读取；分库时在分片上以自动提交执行
+    @Select("SELECT id FROM borrow_records WHERE user_id = #{userId} AND book_id = #{bookId} " +
+            "AND status = 'BORROWED' LIMIT 1")
+    Long selectActiveLoanId(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    @Select("SELECT id FROM borrow_records " +
+            "WHERE return_date IS NOT NULL AND return_date < #{cutoff} AND status <> 'BORROWED' " +
+            "ORDER BY return_date LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<Long> selectArchivableIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Insert("<script>" +
+            "INSERT INTO borrow_records_archive (" + COLUMNS + ") " +
+            "SELECT " + COLUMNS + " FROM borrow_records WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int copyToArchive(@Param("ids") List<Long> ids);
+
+    @Delete("<script>" +
+            "DELETE FROM borrow_records WHERE status != 'BORROWED' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteArchived(@Param("ids") List<Long> ids);
+
+    // 该读者在指定记录之前借过的图书。先后按 (borrow_date, id) 排序而不是按 ID，分库后 ID 按号段分配，不随时间递增；
+    // 借书时借阅日期在用户汇总行锁内取得，同一读者的借阅日期与提交顺序一致
+    @Select("SELECT br.book_id FROM borrow_records br JOIN borrow_records cur ON cur.id = #{recordId} " +
+            "WHERE br.user_id = #{userId} AND (br.borrow_date < cur.borrow_date " +
+            "OR (br.borrow_date = cur.borrow_date AND br.id < cur.id)) " +
+            "UNION SELECT book_id FROM borrow_records_archive WHERE user_id = #{userId}")
+    List<Long> selectBorrowedBookIdsBefore(@Param("userId") Long userId, @Param("recordId") Long recordId);
+
+    // 各状态的记录数，userId 为空时统计全部用户。热表与归档表分开计数，归档表的结果由 BorrowServiceImpl 缓存
+    @Select("<script>" +
+            "SELECT status, COUNT(*) AS cnt FROM borrow_records " +
+            "<where><if test='userId != null'>user_id = #{userId}</if></where> GROUP BY status" +
+            "</script>")
+    List<Map<String, Object>> countByStatus(@Param("userId") Long userId);
+
+    @Select("<script>" +
+            "SELECT status, COUNT(*) AS cnt FROM borrow_records_archive " +
+            "<where><if test='userId != null'>user_id = #{userId}</if></where> GROUP BY status" +
+            "</script>")
+    List<Map<String, Object>> countArchivedByStatus(@Param("userId") Long userId);
+
+    // 按用户汇总在借数、逾期归还次数和罚金，包含归档表；用于初始化和校准 user_loan_stats，没有记录的用户不返回
+    @Select("<script>" +
+            "SELECT user_id, SUM(CASE WHEN status = 'BORROWED' THEN 1 ELSE 0 END) AS active_loans, " +
+            "SUM(CASE WHEN status = 'OVERDUE' THEN 1 ELSE 0 END) AS overdue_count, " +
+            "COALESCE(SUM(fine_amount), 0) AS fine_amount FROM (" +
+            "SELECT user_id, status, fine_amount FROM borrow_records WHERE user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "UNION ALL SELECT user_id, status, fine_amount FROM borrow_records_archive WHERE user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            ") br GROUP BY user_id" +
+            "</script>")
+    List<UserLoanStats> summarizeByUser(@Param("userIds") Collection<Long> userIds);
+
+    // 该读者在借且已过应还日期的记录数
+    @Select("SELECT COUNT(*) FROM borrow_records WHERE user_id = #{userId} AND status = 'BORROWED' AND due_date < #{now}")
+    int countOverdueLoans(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // 当前在借最多的图书，走 idx_status_borrow_date，不扫描历史记录
+    @Select("SELECT book_id FROM borrow_records WHERE status = 'BORROWED' " +
+            "GROUP BY book_id ORDER BY COUNT(*) DESC LIMIT #{limit}")
+    List<Long> selectHotBookIds(@Param("limit") int limit);
+
+    // 只有仍处于在借状态的记录才会被更新，重复的归还请求影响行数为 0
+    @Update("UPDATE borrow_records SET status = #{status}, return_date = #{returnDate}, fine_amount = #{fineAmount}, " +
+            "update_time = NOW() WHERE id = #{id} AND status = 'BORROWED'")
+    int markReturned(@Param("id") Long id, @Param("status") BorrowStatus status,
+                     @Param("returnDate") LocalDateTime returnDate, @Param("fineAmount") BigDecimal fineAmount);
+}
@@ -0,0 +1,42 @@
+package com.library.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.library.entity.UserLoanStats;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Mapper
+public interface UserLoanStatsMapper extends BaseMapper<UserLoanStats> {
+
+    // 未达到上限时在借数加一；已达上限或还没有汇总行时影响行数为 0。行锁使同一用户的并发借书依次判断
+    @Update("UPDATE user_loan_stats SET active_loans = active_loans + 1 " +
+            "WHERE user_id = #{userId} AND active_loans < #{limit}")
+    int incrementActive(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // 已存在时不修改。与先插入、遇到重复键再处理相比，重复时对已有行加的是排他锁而不是共享锁，
+    // 随后在同一事务中更新这一行不需要锁升级，不会和等待同一行的借还互相死锁
+    @Insert("INSERT INTO user_loan_stats (user_id, active_loans, overdue_count, fine_amount) " +
+            "VALUES (#{userId}, #{activeLoans}, #{overdueCount}, #{fineAmount}) " +
+            "ON DUPLICATE KEY UPDATE user_id = user_id")
+    int insertIfAbsent(UserLoanStats stats);
+
+    @Update("UPDATE user_loan_stats SET active_loans = GREATEST(active_loans - 1, 0), " +
+            "overdue_count = overdue_count + #{overdue}, fine_amount = fine_amount + #{fine} " +
+            "WHERE user_id = #{userId}")
+    int recordReturn(@Param("userId") Long userId, @Param("overdue") int overdue, @Param("fine") BigDecimal fine);
+
+    // 校准时按 user_id 顺序分批锁定，期间这些用户的借还等待校准事务提交
+    @Select("SELECT user_id, active_loans, overdue_count, fine_amount, update_time FROM user_loan_stats " +
+            "WHERE user_id > #{afterUserId} ORDER BY user_id LIMIT #{limit} FOR UPDATE")
+    List<UserLoanStats> lockBatch(@Param("afterUserId") long afterUserId, @Param("limit") int limit);
+
+    @Update("UPDATE user_loan_stats SET active_loans = #{activeLoans}, overdue_count = #{overdueCount}, " +
+            "fine_amount = #{fineAmount} WHERE user_id = #{userId}")
+    int overwrite(UserLoanStats stats);
+}
@@ -0,0 +1,49 @@
+package com.library.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 单次请求内的批量加载器。解析过程中先登记需要的 ID，需要用到时把登记的 ID 用一条 IN 查询一起取回，
+ * 结果缓存到请求结束，同一实体在多处出现只查一次。不存在的 ID 也会缓存为 null，不会重复查询。
+ */
+final class BatchLoader<V> {
+
+    private final Function<Collection<Long>, Collection<V>> fetch;
+    private final Function<V, Long> idOf;
+    private final Map<Long, V> loaded = new HashMap<>();
+    private final Set<Long> pending = new LinkedHashSet<>();
+
+    BatchLoader(Function<Collection<Long>, Collection<V>> fetch, Function<V, Long> idOf) {
+        this.fetch = fetch;
+        this.idOf = idOf;
+    }
+
+    void want(Long id) {
+        if (id != null && !loaded.containsKey(id)) {
+            pending.add(id);
+        }
+    }
+
+    void load() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (V value : fetch.apply(new ArrayList<>(pending))) {
+            loaded.put(idOf.apply(value), value);
+        }
+        for (Long id : pending) {
+            loaded.putIfAbsent(id, null);
+        }
+        pending.clear();
+    }
+
+    V get(Long id) {
+        return id == null ? null : loaded.get(id);
+    }
+}
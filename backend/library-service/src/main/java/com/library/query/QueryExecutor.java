@@ -0,0 +1,415 @@
+package com.library.query;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.library.dto.LoanSummary;
+import com.library.dto.QueryField;
+import com.library.entity.Book;
+import com.library.entity.BorrowRecord;
+import com.library.entity.User;
+import com.library.enums.BorrowStatus;
+import com.library.service.BookService;
+import com.library.service.BorrowService;
+import com.library.service.LoanStatsService;
+import com.library.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * POST /api/query 的执行器。一次请求可以包含多个查询入口，每个入口按字段选择返回嵌套结果，
+ * 一个页面需要的借阅记录、图书、用户和统计数可以在一次往返中取回。
+ * <p>
+ * 执行时先调用各查询入口，再展开选择树：列表字段直接展开，引用字段只登记图书、用户 ID，
+ * 无法继续展开时各种实体各用一条 IN 查询一次加载，不会对每条记录单独查询；最后按选择树组装结果。
+ */
+@Component
+public class QueryExecutor {
+
+    private static final String BOOK_LOADER = "book";
+    private static final String USER_LOADER = "user";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private LoanStatsService loanStatsService;
+
+    @Value("${library.query.max-fields:10}")
+    private int maxFields;
+
+    @Value("${library.query.max-page-size:100}")
+    private int maxPageSize;
+
+    private final Map<String, RootField> rootFields = new LinkedHashMap<>();
+
+    public QueryExecutor() {
+        TypeDef<Book> bookType = new TypeDef<Book>("Book")
+                .scalar("id", Book::getId)
+                .scalar("isbn", Book::getIsbn)
+                .scalar("title", Book::getTitle)
+                .scalar("author", Book::getAuthor)
+                .scalar("publisher", Book::getPublisher)
+                .scalar("publishDate", Book::getPublishDate)
+                .scalar("category", Book::getCategory)
+                .scalar("price", Book::getPrice)
+                .scalar("totalQuantity", Book::getTotalQuantity)
+                .scalar("availableQuantity", Book::getAvailableQuantity)
+                .scalar("description", Book::getDescription)
+                .scalar("coverUrl", Book::getCoverUrl)
+                .scalar("location", Book::getLocation)
+                .scalar("status", Book::getStatus);
+
+        // 不包含密码
+        TypeDef<User> userType = new TypeDef<User>("User")
+                .scalar("id", User::getId)
+                .scalar("username", User::getUsername)
+                .scalar("realName", User::getRealName)
+                .scalar("email", User::getEmail)
+                .scalar("phone", User::getPhone)
+                .scalar("studentId", User::getStudentId)
+                .scalar("role", User::getRole)
+                .scalar("status", User::getStatus)
+                .scalar("createTime", User::getCreateTime);
+
+        // 借阅记录上的读者只给出与 /api/borrow/records 相同的字段，联系方式和学号仍只有管理员和本人可见
+        TypeDef<User> borrowerType = new TypeDef<User>("Borrower")
+                .scalar("id", User::getId)
+                .scalar("username", User::getUsername)
+                .scalar("realName", User::getRealName);
+
+        TypeDef<BorrowRecord> recordType = new TypeDef<BorrowRecord>("BorrowRecord")
+                .scalar("id", BorrowRecord::getId)
+                .scalar("userId", BorrowRecord::getUserId)
+                .scalar("bookId", BorrowRecord::getBookId)
+                .scalar("borrowDate", BorrowRecord::getBorrowDate)
+                .scalar("dueDate", BorrowRecord::getDueDate)
+                .scalar("returnDate", BorrowRecord::getReturnDate)
+                .scalar("status", BorrowRecord::getStatus)
+                .scalar("fineAmount", BorrowRecord::getFineAmount)
+                .scalar("remark", BorrowRecord::getRemark)
+                .reference("book", BorrowRecord::getBookId, BOOK_LOADER, bookType)
+                .reference("user", BorrowRecord::getUserId, USER_LOADER, borrowerType);
+
+        TypeDef<Map<BorrowStatus, Long>> countsType = new TypeDef<Map<BorrowStatus, Long>>("BorrowCounts")
+                .scalar("borrowed", counts -> counts.get(BorrowStatus.BORROWED))
+                .scalar("returned", counts -> counts.get(BorrowStatus.RETURNED))
+                .scalar("overdue", counts -> counts.get(BorrowStatus.OVERDUE))
+                .scalar("lost", counts -> counts.get(BorrowStatus.LOST))
+                .scalar("total", counts -> counts.values().stream().mapToLong(Long::longValue).sum());
+
+        TypeDef<LoanSummary> loanSummaryType = new TypeDef<LoanSummary>("LoanSummary")
+                .scalar("activeLoans", LoanSummary::getActiveLoans)
+                .scalar("maxLoans", LoanSummary::getMaxLoans)
+                .scalar("overdueLoans", LoanSummary::getOverdueLoans)
+                .scalar("lateReturns", LoanSummary::getLateReturns)
+                .scalar("finesAccrued", LoanSummary::getFinesAccrued);
+
+        TypeDef<IPage<Book>> bookPageType = pageType("BookPage", bookType);
+        TypeDef<IPage<BorrowRecord>> recordPageType = pageType("BorrowRecordPage", recordType);
+
+        root("me", userType, false, args -> new EntityRef(USER_LOADER, currentUserId()));
+        root("book", bookType, false, args -> new EntityRef(BOOK_LOADER, longArg(args, "id")));
+        root("user", userType, false, args -> {
+            Long id = longArg(args, "id");
+            // 与 /api/users/** 一致，只有管理员可以查看他人资料
+            if (!hasRole("ROLE_ADMIN") && !id.equals(currentUserId())) {
+                throw new RuntimeException("权限不足");
+            }
+            return new EntityRef(USER_LOADER, id);
+        });
+        root("books", bookPageType, false, args -> bookService.getBooksPage(page(args), size(args),
+                stringArg(args, "keyword"), stringArg(args, "category")));
+        root("myBorrowRecords", recordPageType, false, args -> borrowService.findUserBorrowRecords(currentUserId(),
+                page(args), size(args), stringArg(args, "status")));
+        root("myBorrowCounts", countsType, false, args -> borrowService.countUserBorrowRecords(currentUserId()));
+        root("myLoanSummary", loanSummaryType, false, args -> loanStatsService.getCurrentUserSummary());
+        root("borrowRecords", recordPageType, true, args -> borrowService.findAllBorrowRecords(
+                page(args), size(args), stringArg(args, "status")));
+        root("borrowCounts", countsType, true, args -> borrowService.countAllBorrowRecords());
+    }
+
+    public Map<String, Object> execute(Map<String, QueryField> query) {
+        if (query == null || query.isEmpty()) {
+            throw new RuntimeException("查询不能为空");
+        }
+        if (query.size() > maxFields) {
+            throw new RuntimeException("单次最多 " + maxFields + " 个查询");
+        }
+
+        Map<String, BatchLoader<?>> loaders = new HashMap<>();
+        loaders.put(BOOK_LOADER, new BatchLoader<>(bookService::listByIds, Book::getId));
+        loaders.put(USER_LOADER, new BatchLoader<>(userService::listByIds, User::getId));
+
+        // 1. 执行查询入口；按 ID 取单个实体的入口只登记 ID，和记录引用的实体一起批量加载
+        Map<String, Resolved> roots = new LinkedHashMap<>();
+        Deque<Node> expand = new ArrayDeque<>();
+        List<Reference> waiting = new ArrayList<>();
+        for (Map.Entry<String, QueryField> entry : query.entrySet()) {
+            QueryField field = entry.getValue();
+            RootField root = field == null || field.getField() == null ? null : rootFields.get(field.getField());
+            if (root == null) {
+                throw new RuntimeException("未知的查询：" + (field == null ? null : field.getField()));
+            }
+            if (root.staffOnly && !hasRole("ROLE_TEACHER", "ROLE_ADMIN")) {
+                throw new RuntimeException("权限不足");
+            }
+            Selection selection = Selection.parse(field.getSelect(), root.type);
+            Map<String, Object> args = field.getArgs() != null ? field.getArgs() : Collections.emptyMap();
+            Object value = root.resolver.resolve(args);
+            if (value instanceof EntityRef) {
+                EntityRef ref = (EntityRef) value;
+                loaders.get(ref.loader).want(ref.id);
+                waiting.add(new Reference(ref.loader, Collections.singletonList(ref.id), root.type, selection));
+            } else if (value != null) {
+                expand.add(new Node(Collections.singletonList(value), root.type, selection));
+            }
+            roots.put(entry.getKey(), new Resolved(value, root.type, selection));
+        }
+
+        // 2. 先展开所有不需要查库的层级，登记引用的 ID；无法继续时才加载，每种实体每轮一条 IN 查询
+        while (true) {
+            while (!expand.isEmpty()) {
+                collect(expand.poll(), expand, waiting, loaders);
+            }
+            if (waiting.isEmpty()) {
+                break;
+            }
+            loadAll(loaders);
+            for (Reference reference : waiting) {
+                List<Object> entities = new ArrayList<>();
+                for (Long id : reference.ids) {
+                    Object entity = loaders.get(reference.loader).get(id);
+                    if (entity != null) {
+                        entities.add(entity);
+                    }
+                }
+                if (!entities.isEmpty()) {
+                    expand.add(new Node(entities, reference.type, reference.selection));
+                }
+            }
+            waiting.clear();
+        }
+        for (Resolved resolved : roots.values()) {
+            if (resolved.value instanceof EntityRef) {
+                EntityRef ref = (EntityRef) resolved.value;
+                resolved.value = loaders.get(ref.loader).get(ref.id);
+            }
+        }
+
+        // 3. 组装结果
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (Map.Entry<String, Resolved> entry : roots.entrySet()) {
+            Resolved resolved = entry.getValue();
+            data.put(entry.getKey(), render(resolved.value, resolved.type, resolved.selection, loaders));
+        }
+        return data;
+    }
+
+    private static void collect(Node node, Deque<Node> expand, List<Reference> waiting,
+                                Map<String, BatchLoader<?>> loaders) {
+        for (Map.Entry<String, Selection> entry : node.selection.fields().entrySet()) {
+            TypeDef.FieldDef def = node.type.field(entry.getKey());
+            if (def.kind == TypeDef.Kind.LIST) {
+                List<Object> children = new ArrayList<>();
+                for (Object value : node.values) {
+                    Collection<?> list = (Collection<?>) def.getter.apply(value);
+                    if (list != null) {
+                        children.addAll(list);
+                    }
+                }
+                if (!children.isEmpty()) {
+                    expand.add(new Node(children, def.type, entry.getValue()));
+                }
+            } else if (def.kind == TypeDef.Kind.REFERENCE) {
+                List<Long> ids = new ArrayList<>();
+                for (Object value : node.values) {
+                    Long id = (Long) def.getter.apply(value);
+                    loaders.get(def.loader).want(id);
+                    ids.add(id);
+                }
+                waiting.add(new Reference(def.loader, ids, def.type, entry.getValue()));
+            }
+        }
+    }
+
+    private Object render(Object value, TypeDef<?> type, Selection selection, Map<String, BatchLoader<?>> loaders) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Selection> entry : selection.fields().entrySet()) {
+            TypeDef.FieldDef def = type.field(entry.getKey());
+            Object fieldValue = def.getter.apply(value);
+            if (def.kind == TypeDef.Kind.SCALAR) {
+                out.put(entry.getKey(), fieldValue);
+            } else if (def.kind == TypeDef.Kind.LIST) {
+                List<Object> items = new ArrayList<>();
+                if (fieldValue != null) {
+                    for (Object item : (Collection<?>) fieldValue) {
+                        items.add(render(item, def.type, entry.getValue(), loaders));
+                    }
+                }
+                out.put(entry.getKey(), items);
+            } else {
+                Object entity = loaders.get(def.loader).get((Long) fieldValue);
+                out.put(entry.getKey(), render(entity, def.type, entry.getValue(), loaders));
+            }
+        }
+        return out;
+    }
+
+    private static void loadAll(Map<String, BatchLoader<?>> loaders) {
+        for (BatchLoader<?> loader : loaders.values()) {
+            loader.load();
+        }
+    }
+
+    private <T> TypeDef<IPage<T>> pageType(String name, TypeDef<T> recordType) {
+        return new TypeDef<IPage<T>>(name)
+                .scalar("total", IPage::getTotal)
+                .scalar("page", IPage::getCurrent)
+                .scalar("size", IPage::getSize)
+                .scalar("pages", IPage::getPages)
+                .list("records", IPage::getRecords, recordType);
+    }
+
+    private void root(String name, TypeDef<?> type, boolean staffOnly, Resolver resolver) {
+        rootFields.put(name, new RootField(type, staffOnly, resolver));
+    }
+
+    private int page(Map<String, Object> args) {
+        Object value = args.get("page");
+        return value == null ? 1 : Math.max(1, Integer.parseInt(value.toString()));
+    }
+
+    private int size(Map<String, Object> args) {
+        Object value = args.get("size");
+        int size = value == null ? 10 : Integer.parseInt(value.toString());
+        if (size < 1 || size > maxPageSize) {
+            throw new RuntimeException("每页条数应在 1 到 " + maxPageSize + " 之间");
+        }
+        return size;
+    }
+
+    private static Long longArg(Map<String, Object> args, String name) {
+        Object value = args.get(name);
+        if (value == null) {
+            throw new RuntimeException("缺少参数 " + name);
+        }
+        return Long.valueOf(value.toString());
+    }
+
+    private static String stringArg(Map<String, Object> args, String name) {
+        Object value = args.get(name);
+        return value != null && StringUtils.hasText(value.toString()) ? value.toString() : null;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getDetails() instanceof Long)) {
+            throw new RuntimeException("用户未登录");
+        }
+        return (Long) authentication.getDetails();
+    }
+
+    private static boolean hasRole(String... roles) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return false;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            for (String role : roles) {
+                if (role.equals(authority.getAuthority())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Resolver {
+        Object resolve(Map<String, Object> args);
+    }
+
+    private static final class RootField {
+        final TypeDef<?> type;
+        final boolean staffOnly;
+        final Resolver resolver;
+
+        RootField(TypeDef<?> type, boolean staffOnly, Resolver resolver) {
+            this.type = type;
+            this.staffOnly = staffOnly;
+            this.resolver = resolver;
+        }
+    }
+
+    // 按 ID 取单个实体的查询入口，交给加载器与其他引用一起批量查询
+    private static final class EntityRef {
+        final String loader;
+        final Long id;
+
+        EntityRef(String loader, Long id) {
+            this.loader = loader;
+            this.id = id;
+        }
+    }
+
+    private static final class Resolved {
+        Object value;
+        final TypeDef<?> type;
+        final Selection selection;
+
+        Resolved(Object value, TypeDef<?> type, Selection selection) {
+            this.value = value;
+            this.type = type;
+            this.selection = selection;
+        }
+    }
+
+    private static final class Reference {
+        final String loader;
+        final List<Long> ids;
+        final TypeDef<?> type;
+        final Selection selection;
+
+        Reference(String loader, List<Long> ids, TypeDef<?> type, Selection selection) {
+            this.loader = loader;
+            this.ids = ids;
+            this.type = type;
+            this.selection = selection;
+        }
+    }
+
+    private static final class Node {
+        final List<Object> values;
+        final TypeDef<?> type;
+        final Selection selection;
+
+        Node(List<Object> values, TypeDef<?> type, Selection selection) {
+            this.values = values;
+            this.type = type;
+            this.selection = selection;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析并校验后的字段选择。标量字段的子选择为 null；列表和引用字段未写子选择时取子类型的全部标量字段。
+ */
+final class Selection {
+
+    private final Map<String, Selection> fields = new LinkedHashMap<>();
+
+    Map<String, Selection> fields() {
+        return fields;
+    }
+
+    static Selection parse(List<Object> select, TypeDef<?> type) {
+        if (select == null || select.isEmpty()) {
+            return scalarsOf(type);
+        }
+        Selection selection = new Selection();
+        for (Object item : select) {
+            if (item instanceof String) {
+                selection.add((String) item, null, type);
+            } else if (item instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) item).entrySet()) {
+                    selection.add(String.valueOf(entry.getKey()), entry.getValue(), type);
+                }
+            } else {
+                throw new RuntimeException("无法识别的字段选择：" + item);
+            }
+        }
+        return selection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(String name, Object nested, TypeDef<?> type) {
+        TypeDef.FieldDef def = type.field(name);
+        if (def.kind == TypeDef.Kind.SCALAR) {
+            if (nested != null) {
+                throw new RuntimeException("标量字段 " + name + " 不能有子选择");
+            }
+            fields.put(name, null);
+        } else if (nested == null || nested instanceof List) {
+            fields.put(name, parse((List<Object>) nested, def.type));
+        } else {
+            throw new RuntimeException("字段 " + name + " 的子选择应为数组");
+        }
+    }
+
+    private static Selection scalarsOf(TypeDef<?> type) {
+        Selection selection = new Selection();
+        for (Map.Entry<String, TypeDef.FieldDef> entry : type.fields().entrySet()) {
+            if (entry.getValue().kind == TypeDef.Kind.SCALAR) {
+                selection.fields.put(entry.getKey(), null);
+            }
+        }
+        return selection;
+    }
+}
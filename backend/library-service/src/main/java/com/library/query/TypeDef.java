@@ -0,0 +1,72 @@
+package com.library.query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 查询中可选择的类型及其字段。字段分三类：标量直接取值；列表字段展开为子类型的列表；
+ * 引用字段只从当前对象取出关联 ID，实体由对应的 {@link BatchLoader} 批量加载。
+ */
+final class TypeDef<T> {
+
+    enum Kind {
+        SCALAR, LIST, REFERENCE
+    }
+
+    static final class FieldDef {
+        final Kind kind;
+        final Function<Object, Object> getter;
+        final TypeDef<?> type;
+        final String loader;
+
+        FieldDef(Kind kind, Function<Object, Object> getter, TypeDef<?> type, String loader) {
+            this.kind = kind;
+            this.getter = getter;
+            this.type = type;
+            this.loader = loader;
+        }
+    }
+
+    private final String name;
+    private final Map<String, FieldDef> fields = new LinkedHashMap<>();
+
+    TypeDef(String name) {
+        this.name = name;
+    }
+
+    TypeDef<T> scalar(String field, Function<T, ?> getter) {
+        return add(field, new FieldDef(Kind.SCALAR, cast(getter), null, null));
+    }
+
+    <R> TypeDef<T> list(String field, Function<T, ? extends List<R>> getter, TypeDef<R> type) {
+        return add(field, new FieldDef(Kind.LIST, cast(getter), type, null));
+    }
+
+    <R> TypeDef<T> reference(String field, Function<T, Long> key, String loader, TypeDef<R> type) {
+        return add(field, new FieldDef(Kind.REFERENCE, cast(key), type, loader));
+    }
+
+    FieldDef field(String field) {
+        FieldDef def = fields.get(field);
+        if (def == null) {
+            throw new RuntimeException(name + " 没有字段 " + field);
+        }
+        return def;
+    }
+
+    Map<String, FieldDef> fields() {
+        return fields;
+    }
+
+    private TypeDef<T> add(String field, FieldDef def) {
+        fields.put(field, def);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Function<Object, Object> cast(Function<T, ?> getter) {
+        return value -> getter.apply((T) value);
+    }
+}
@@ -1,12 +1,18 @@
 package com.library.security;
 
+import com.library.logging.DebugSampling;
+import com.library.logging.RequestLogFilter;
+import com.library.trace.Span;
+import com.library.trace.Tracer;
 import com.library.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -15,54 +21,81 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.Collections;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // EventSource 无法设置请求头，SSE 订阅通过查询参数携带一次性票据，见 StreamTicketService
+    private static final String STREAM_PATH = "/api/books/stream";
+
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private StreamTicketService streamTicketService;
+
+    @Autowired
+    private Tracer tracer;
+
     @Override
-    protected void doFilterInternal(HttpServletRequest request, 
-                                  HttpServletResponse response, 
+    protected void doFilterInternal(HttpServletRequest request,
+                                  HttpServletResponse response,
                                   FilterChain filterChain) throws ServletException, IOException {
-        
+
+        Span span = tracer.startChild("JwtAuthenticationFilter", null);
+        try {
+            authenticate(request);
+        } finally {
+            tracer.finish(span);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request) {
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
+        Claims claims = null;
         String jwtToken = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
+        } else if (STREAM_PATH.equals(request.getRequestURI())) {
+            jwtToken = streamTicketService.redeem(request.getParameter("ticket"));
+        }
+
+        if (jwtToken != null) {
             try {
-                username = jwtUtils.getUsernameFromToken(jwtToken);
-            } catch (IllegalArgumentException e) {
-                logger.error("Unable to get JWT Token");
+                claims = jwtUtils.parseToken(jwtToken);
             } catch (ExpiredJwtException e) {
-                logger.error("JWT Token has expired");
+                logger.debug("JWT Token has expired");
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.warn("Unable to parse JWT Token: " + e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtils.validateToken(jwtToken, username)) {
-                String role = jwtUtils.getRoleFromToken(jwtToken);
-                Long userId = jwtUtils.getUserIdFromToken(jwtToken);
-                
-                UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(
-                        username, 
-                        null, 
-                        Arrays.asList(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                authToken.setDetails(userId);
-                
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !tokenRevocationService.isRevoked(claims)) {
+            String role = claims.get("role", String.class);
+            Long userId = claims.get("userId", Long.class);
+
+            UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(
+                    claims.getSubject(),
+                    null,
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                );
+
+            authToken.setDetails(userId);
+
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            MDC.put(RequestLogFilter.USER_ID, String.valueOf(userId));
+            DebugSampling.onAuthenticated(claims.getSubject());
         }
-        
-        filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.library.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * SSE 订阅票据。EventSource 不能设置请求头，访问令牌放进 URL 会出现在访问日志和代理日志里，
+ * 因此客户端先用访问令牌换一张短时有效的随机票据，再用票据建立订阅；票据首次使用后即删除。
+ */
+@Component
+public class StreamTicketService {
+
+    private static final String KEY = "auth:stream-ticket:";
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${library.stream.ticket-ttl:30000}")
+    private long ticketTtl;
+
+    // 票据对应签发时使用的访问令牌，兑换时仍按令牌校验过期和吊销
+    public String issue(String accessToken) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        redisTemplate.opsForValue().set(KEY + ticket, accessToken, Duration.ofMillis(ticketTtl));
+        return ticket;
+    }
+
+    public String redeem(String ticket) {
+        if (ticket == null || ticket.isEmpty()) {
+            return null;
+        }
+        return redisTemplate.opsForValue().getAndDelete(KEY + ticket);
+    }
+}
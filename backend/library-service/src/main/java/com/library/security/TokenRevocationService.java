@@ -0,0 +1,264 @@
+package com.library.security;
+
+import com.library.utils.BloomFilter;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT 吊销列表：按令牌 ID（jti）吊销单个令牌，按用户写入 not-before 时间吊销其之前签发的全部令牌。
+ * Redis 是权威数据源；每个实例在内存中维护一份布隆过滤器，绝大多数未吊销的请求只需一次过滤器查询，
+ * 只有命中过滤器时才会查本地确认表或 Redis。过滤器通过 pub/sub 实时增量更新，并定期全量重建以淘汰过期条目。
+ */
+@Component
+public class TokenRevocationService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String TOKEN_KEY = "auth:revoked:jti:";
+    private static final String USER_KEY = "auth:revoked:user:";
+    private static final String CHANNEL = "auth:revocation";
+    private static final int NEGATIVE_CACHE_LIMIT = 10000;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${jwt.expiration:900000}")
+    private Long accessTokenExpiration;
+
+    @Value("${library.revocation.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${library.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    private volatile BloomFilter rebuilding;
+
+    // 已确认的吊销项：jti -> 令牌过期时间，userId -> not-before 时间
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userNotBefore = new ConcurrentHashMap<>();
+
+    // 布隆过滤器误判后确认未吊销的键，避免同一令牌每次请求都查 Redis
+    private final Map<String, Boolean> falsePositives = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        rebuild();
+    }
+
+    public boolean isRevoked(Claims claims) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return false;
+        }
+
+        String jti = claims.getId();
+        if (jti != null && current.mightContain(tokenMember(jti)) && isTokenRevoked(jti)) {
+            return true;
+        }
+
+        Long userId = claims.get("userId", Long.class);
+        if (userId != null && current.mightContain(userMember(userId))) {
+            Long notBefore = getUserNotBefore(userId);
+            Date issuedAt = claims.getIssuedAt();
+            // JWT 的 iat 只有秒精度，无法区分吊销所在那一秒内的先后，这一秒签发的令牌都视为已吊销；
+            // 吊销后同一秒内重新登录得到的令牌也会失效，需要再登录一次
+            return notBefore != null && (issuedAt == null || issuedAt.getTime() / 1000 <= notBefore / 1000);
+        }
+        return false;
+    }
+
+    public void revokeToken(String jti, Date expiration) {
+        long expiresAt = expiration != null ? expiration.getTime() : System.currentTimeMillis() + accessTokenExpiration;
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        redisTemplate.opsForValue().set(TOKEN_KEY + jti, String.valueOf(expiresAt), Duration.ofMillis(ttl));
+        onTokenRevoked(jti, expiresAt);
+        redisTemplate.convertAndSend(CHANNEL, "j:" + jti + ":" + expiresAt);
+    }
+
+    public void revokeUser(Long userId) {
+        long notBefore = System.currentTimeMillis();
+        redisTemplate.opsForValue().set(USER_KEY + userId, String.valueOf(notBefore),
+                Duration.ofMillis(accessTokenExpiration));
+        onUserRevoked(userId, notBefore);
+        redisTemplate.convertAndSend(CHANNEL, "u:" + userId + ":" + notBefore);
+    }
+
+    /**
+     * 批量吊销，写入和广播在一次 Redis 管道中完成，用于停用整届学生等场景。
+     */
+    public void revokeUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long notBefore = System.currentTimeMillis();
+        byte[] value = String.valueOf(notBefore).getBytes(StandardCharsets.UTF_8);
+        byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                connection.stringCommands().set((USER_KEY + userId).getBytes(StandardCharsets.UTF_8), value,
+                        Expiration.milliseconds(accessTokenExpiration), RedisStringCommands.SetOption.upsert());
+                connection.publish(channel, ("u:" + userId + ":" + notBefore).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        for (Long userId : userIds) {
+            onUserRevoked(userId, notBefore);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf(':');
+        int last = body.lastIndexOf(':');
+        if (first < 0 || last <= first) {
+            return;
+        }
+        String id = body.substring(first + 1, last);
+        long value = Long.parseLong(body.substring(last + 1));
+        if (body.startsWith("j:")) {
+            onTokenRevoked(id, value);
+        } else if (body.startsWith("u:")) {
+            onUserRevoked(Long.valueOf(id), value);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.revocation.rebuild-interval:60000}",
+            initialDelayString = "${library.revocation.rebuild-interval:60000}")
+    public void rebuild() {
+        BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = fresh;
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                ScanOptions options = ScanOptions.scanOptions().match("auth:revoked:*").count(1000).build();
+                try (Cursor<byte[]> cursor = connection.scan(options)) {
+                    while (cursor.hasNext()) {
+                        String key = new String(cursor.next(), StandardCharsets.UTF_8);
+                        if (key.startsWith(TOKEN_KEY)) {
+                            fresh.put(tokenMember(key.substring(TOKEN_KEY.length())));
+                        } else if (key.startsWith(USER_KEY)) {
+                            fresh.put(userMember(Long.valueOf(key.substring(USER_KEY.length()))));
+                        }
+                    }
+                }
+                return null;
+            });
+            filter = fresh;
+            long now = System.currentTimeMillis();
+            revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+            userNotBefore.values().removeIf(notBefore -> notBefore + accessTokenExpiration < now);
+            falsePositives.clear();
+        } catch (Exception e) {
+            log.warn("Failed to rebuild token revocation filter from Redis: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private boolean isTokenRevoked(String jti) {
+        if (revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        String member = tokenMember(jti);
+        if (falsePositives.containsKey(member)) {
+            return false;
+        }
+        String expiresAt = redisTemplate.opsForValue().get(TOKEN_KEY + jti);
+        if (expiresAt != null) {
+            revokedTokens.put(jti, Long.valueOf(expiresAt));
+            return true;
+        }
+        rememberFalsePositive(member);
+        return false;
+    }
+
+    private Long getUserNotBefore(Long userId) {
+        Long notBefore = userNotBefore.get(userId);
+        if (notBefore != null) {
+            return notBefore;
+        }
+        String member = userMember(userId);
+        if (falsePositives.containsKey(member)) {
+            return null;
+        }
+        String value = redisTemplate.opsForValue().get(USER_KEY + userId);
+        if (value != null) {
+            notBefore = Long.valueOf(value);
+            userNotBefore.put(userId, notBefore);
+            return notBefore;
+        }
+        rememberFalsePositive(member);
+        return null;
+    }
+
+    private void onTokenRevoked(String jti, long expiresAt) {
+        revokedTokens.put(jti, expiresAt);
+        addMember(tokenMember(jti));
+    }
+
+    private void onUserRevoked(Long userId, long notBefore) {
+        userNotBefore.merge(userId, notBefore, Math::max);
+        addMember(userMember(userId));
+    }
+
+    private void addMember(String member) {
+        falsePositives.remove(member);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(member);
+        }
+        BloomFilter pending = rebuilding;
+        if (pending != null) {
+            pending.put(member);
+        }
+    }
+
+    private void rememberFalsePositive(String member) {
+        if (falsePositives.size() >= NEGATIVE_CACHE_LIMIT) {
+            falsePositives.clear();
+        }
+        falsePositives.put(member, Boolean.TRUE);
+    }
+
+    private static String tokenMember(String jti) {
+        return "j:" + jti;
+    }
+
+    private static String userMember(Long userId) {
+        return "u:" + userId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.service;
+
+import com.library.dto.BookChangePage;
+
+import java.time.LocalDateTime;
+
+public interface BookFeedService {
+
+    /**
+     * 读取 (since, afterId) 之后变更的图书。since 为空时从头读取全部图书，用于首次同步。
+     */
+    BookChangePage getChanges(LocalDateTime since, Long afterId, Integer limit);
+}
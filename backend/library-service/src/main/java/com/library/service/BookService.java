@@ -14,4 +14,6 @@ public interface BookService extends IService<Book> {
     Boolean deleteBook(Long bookId);
     
     Book updateBookStatus(Long bookId, String status);
+
+    Book updateCover(Long bookId, String coverUrl);
 }
\ No newline at end of file
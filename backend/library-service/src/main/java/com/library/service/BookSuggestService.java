@@ -0,0 +1,11 @@
+package com.library.service;
+
+import com.library.dto.BookSuggestion;
+
+import java.util.List;
+
+public interface BookSuggestService {
+    List<BookSuggestion> suggest(String query, int limit);
+
+    void rebuild();
+}
@@ -0,0 +1,15 @@
+package com.library.service;
+
+import java.time.LocalDateTime;
+
+public interface BorrowArchiveService {
+
+    /**
+     * Redis 中的归档批次号，每提交一批归档递增；归档表的统计结果按批次号缓存，批次号变化后自然失效。
+     */
+    String GENERATION_KEY = "borrow-archive:generation";
+
+    int archiveBatch(int shard, LocalDateTime cutoff, int batchSize);
+
+    int archiveBefore(LocalDateTime cutoff);
+}
@@ -3,13 +3,32 @@ package com.library.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.library.entity.BorrowRecord;
+import com.library.enums.BorrowStatus;
+
+import java.util.Map;
 
 public interface BorrowService extends IService<BorrowRecord> {
     BorrowRecord borrowBook(Long bookId);
+
+    // 为指定用户借书，供已自行认证用户的内部调用方使用（如 Dubbo 消费者），不读取当前登录用户
+    BorrowRecord borrowBookFor(Long bookId, String username);
     
     BorrowRecord returnBook(Long recordId);
+
+    BorrowRecord getBorrowRecordDetail(Long recordId);
     
     IPage<BorrowRecord> getBorrowRecordsPage(int page, int size, String keyword, String status);
     
     IPage<BorrowRecord> getMyBorrowRecords(int page, int size);
+
+    IPage<BorrowRecord> getMyBorrowRecords(int page, int size, String status);
+
+    // 以下方法只返回借阅记录本身，不补齐用户和图书信息，由调用方按需批量加载
+    IPage<BorrowRecord> findAllBorrowRecords(int page, int size, String status);
+
+    IPage<BorrowRecord> findUserBorrowRecords(Long userId, int page, int size, String status);
+
+    Map<BorrowStatus, Long> countUserBorrowRecords(Long userId);
+
+    Map<BorrowStatus, Long> countAllBorrowRecords();
 }
\ No newline at end of file
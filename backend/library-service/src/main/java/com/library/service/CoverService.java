@@ -0,0 +1,18 @@
+package com.library.service;
+
+import com.library.entity.Book;
+
+import java.nio.file.Path;
+
+public interface CoverService {
+
+    /**
+     * 保存上传的封面并生成缩略图，图书的 coverUrl 改为按内容哈希命名的地址。
+     */
+    Book uploadCover(Long bookId, byte[] image);
+
+    /**
+     * 按文件名定位封面或缩略图，文件名不合法或文件不存在时返回 null。
+     */
+    Path resolve(String fileName);
+}
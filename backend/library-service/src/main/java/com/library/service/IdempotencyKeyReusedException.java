@@ -0,0 +1,13 @@
+package com.library.service;
+
+/**
+ * 幂等键已用于参数不同的请求。
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException() {
+        super("幂等键已用于其他请求，请为新的请求使用新的幂等键");
+    }
+}
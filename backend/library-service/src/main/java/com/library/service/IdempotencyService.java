@@ -0,0 +1,15 @@
+package com.library.service;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * 以 (operation, scope, key) 去重执行 action：首次请求正常执行并记录结果 ID；
+     * 重复请求不再执行，通过 replay 按记录的 ID 返回首次的结果。key 为空时直接执行。
+     * request 描述本次请求的参数，与首次请求不同时抛出 {@link IdempotencyKeyReusedException}。
+     */
+    <T> T execute(String operation, String scope, String key, String request, Supplier<T> action,
+                  Function<T, Long> resultId, Function<Long, T> replay);
+}
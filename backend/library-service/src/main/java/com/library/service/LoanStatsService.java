@@ -0,0 +1,31 @@
+package com.library.service;
+
+import com.library.dto.LoanSummary;
+import com.library.enums.UserRole;
+
+import java.math.BigDecimal;
+
+public interface LoanStatsService {
+
+    /**
+     * 借书时占用一个在借名额，已达到角色上限时抛出异常。在借书事务内调用，事务回滚时名额一并退回。
+     */
+    void acquireLoan(Long userId, UserRole role);
+
+    /**
+     * 还书时退回名额，逾期归还时累计逾期次数和罚金。在还书事务内调用。
+     */
+    void releaseLoan(Long userId, boolean overdue, BigDecimal fine);
+
+    LoanSummary getSummary(Long userId, UserRole role);
+
+    /**
+     * 当前登录用户的借阅汇总，用户 ID 和角色取自令牌，不查询用户表
+     */
+    LoanSummary getCurrentUserSummary();
+
+    /**
+     * 按借阅记录（含归档）重新计算所有用户的汇总并修正偏差，返回修正的用户数
+     */
+    int reconcileAll();
+}
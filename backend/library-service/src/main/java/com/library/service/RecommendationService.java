@@ -0,0 +1,11 @@
+package com.library.service;
+
+import com.library.dto.BookRecommendation;
+
+import java.util.List;
+
+public interface RecommendationService {
+    List<BookRecommendation> getSimilarBooks(Long bookId, int limit);
+
+    void rebuild();
+}
@@ -0,0 +1,19 @@
+package com.library.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+public interface RefreshTokenService {
+    String issue(Long userId);
+
+    Rotation rotate(String refreshToken);
+
+    void revoke(String refreshToken);
+
+    @Data
+    @AllArgsConstructor
+    class Rotation {
+        private Long userId;
+        private String refreshToken;
+    }
+}
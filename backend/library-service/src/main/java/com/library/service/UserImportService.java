@@ -0,0 +1,16 @@
+package com.library.service;
+
+import com.library.dto.UserImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+public interface UserImportService {
+
+    /**
+     * 从 CSV 花名册批量创建用户。首行为表头，至少包含 username 和 realName 列，可选 password、email、phone、
+     * studentId、role；未提供密码时以学号作为初始密码。按块处理，有问题的行跳过并记入结果，不影响其他行。
+     */
+    UserImportResult importUsers(InputStream input, Charset charset) throws IOException;
+}
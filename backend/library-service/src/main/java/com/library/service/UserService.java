@@ -2,6 +2,7 @@ package com.library.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.library.dto.BatchUserStatusRequest;
 import com.library.dto.LoginRequest;
 import com.library.dto.LoginResponse;
 import com.library.dto.RegisterRequest;
@@ -9,6 +10,12 @@ import com.library.entity.User;
 
 public interface UserService extends IService<User> {
     LoginResponse login(LoginRequest loginRequest);
+
+    LoginResponse refresh(String refreshToken);
+
+    void logout(String refreshToken, String accessToken);
+
+    void revokeUserTokens(Long userId);
     
     User register(RegisterRequest registerRequest);
     
@@ -17,4 +24,6 @@ public interface UserService extends IService<User> {
     IPage<User> getUsersPage(int page, int size, String keyword);
     
     User updateUserStatus(Long userId, Integer status);
+
+    int updateUsersStatus(BatchUserStatusRequest request);
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.library.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BookChangePage;
+import com.library.entity.Book;
+import com.library.enums.BookStatus;
+import com.library.limit.ConcurrencyLimited;
+import com.library.limit.Priority;
+import com.library.mapper.BookMapper;
+import com.library.service.BookFeedService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 图书变更订阅：按 (update_time, id) 水位线分页返回变更过的图书，编码为 gzip 压缩的 NDJSON。
+ * <p>
+ * 只返回 settle-time 之前的变更：update_time 在事务内写入、提交时才可见，事务较慢或各实例时钟不一致时，
+ * 晚提交的行可能带着比客户端当前水位线更早的时间，留出这段时间后不会被跳过。
+ * 同一行在此期间多次修改只会以最新内容出现一次。
+ */
+@Service
+@ConcurrencyLimited(Priority.SHEDDABLE)
+public class BookFeedServiceImpl implements BookFeedService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final byte NEWLINE = '\n';
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.book-feed.default-limit:500}")
+    private int defaultLimit;
+
+    @Value("${library.book-feed.max-limit:2000}")
+    private int maxLimit;
+
+    @Value("${library.book-feed.settle-time:5000}")
+    private long settleTime;
+
+    private Counter upserts;
+    private Counter tombstones;
+
+    @PostConstruct
+    public void init() {
+        upserts = Counter.builder("library.book-feed.changes").tag("type", "upsert").register(meterRegistry);
+        tombstones = Counter.builder("library.book-feed.changes").tag("type", "delete").register(meterRegistry);
+    }
+
+    @Override
+    public BookChangePage getChanges(LocalDateTime since, Long afterId, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultLimit : Math.min(limit, maxLimit);
+        LocalDateTime from = since == null ? BEGINNING : since;
+        long fromId = since == null || afterId == null ? 0L : afterId;
+        LocalDateTime until = LocalDateTime.now().minusNanos(settleTime * 1_000_000L);
+
+        List<Book> books = bookMapper.selectChangedSince(from, fromId, until, pageSize + 1);
+        boolean hasMore = books.size() > pageSize;
+        if (hasMore) {
+            books = books.subList(0, pageSize);
+        }
+
+        BookChangePage page = new BookChangePage();
+        page.setData(encode(books));
+        page.setCount(books.size());
+        page.setHasMore(hasMore);
+        if (books.isEmpty()) {
+            page.setNextSince(from);
+            page.setNextAfterId(fromId);
+        } else {
+            Book last = books.get(books.size() - 1);
+            page.setNextSince(last.getUpdateTime());
+            page.setNextAfterId(last.getId());
+        }
+        return page;
+    }
+
+    private byte[] encode(List<Book> books) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(books.size() * 128, 64));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                for (Book book : books) {
+                    if (book.getStatus() == BookStatus.DELETED) {
+                        gzip.write(objectMapper.writeValueAsBytes(tombstone(book)));
+                        tombstones.increment();
+                    } else {
+                        gzip.write(objectMapper.writeValueAsBytes(book));
+                        upserts.increment();
+                    }
+                    gzip.write(NEWLINE);
+                }
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 删除的图书只需要 id 和水位线字段，镜像端据此删除本地副本
+    private static Map<String, Object> tombstone(Book book) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", book.getId());
+        json.put("status", BookStatus.DELETED);
+        json.put("updateTime", book.getUpdateTime());
+        return json;
+    }
+}
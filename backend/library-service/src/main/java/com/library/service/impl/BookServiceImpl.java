@@ -6,15 +6,26 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.library.entity.Book;
 import com.library.enums.BookStatus;
+import com.library.event.BookChangedEvent;
+import com.library.limit.ConcurrencyLimited;
+import com.library.limit.Priority;
 import com.library.mapper.BookMapper;
 import com.library.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Service
+@ConcurrencyLimited
 public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements BookService {
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
+    @ConcurrencyLimited(Priority.SHEDDABLE)
     public IPage<Book> getBooksPage(int page, int size, String keyword, String category) {
         Page<Book> pageObj = new Page<>(page, size);
         LambdaQueryWrapper<Book> queryWrapper = new LambdaQueryWrapper<>();
@@ -61,10 +72,12 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
         }
         
         this.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(book.getId(), book));
         return book;
     }
 
     @Override
+    @Transactional
     public Book updateBook(Book book) {
         Book existingBook = this.getById(book.getId());
         if (existingBook == null || existingBook.getStatus() == BookStatus.DELETED) {
@@ -82,12 +95,24 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             }
         }
         
-        if (book.getTotalQuantity() != null && book.getTotalQuantity() < existingBook.getAvailableQuantity()) {
-            throw new RuntimeException("总数量不能小于当前可借数量");
+        // 库存和状态只通过带条件的 SQL 修改，整行写回会覆盖并发借还已经改过的可借数量
+        Integer totalQuantity = book.getTotalQuantity();
+        BookStatus status = book.getStatus();
+        book.setTotalQuantity(null);
+        book.setAvailableQuantity(null);
+        book.setStatus(null);
+        if (totalQuantity != null && !totalQuantity.equals(existingBook.getTotalQuantity())
+                && (totalQuantity < 0 || baseMapper.updateTotalQuantity(book.getId(), totalQuantity) == 0)) {
+            throw new RuntimeException("总数量不能小于已借出的数量");
         }
         
         this.updateById(book);
-        return this.getById(book.getId());
+        if (status != null && status != existingBook.getStatus()) {
+            changeStatus(book.getId(), status);
+        }
+        Book updatedBook = this.getById(book.getId());
+        eventPublisher.publishEvent(new BookChangedEvent(book.getId(), updatedBook));
+        return updatedBook;
     }
 
     @Override
@@ -97,12 +122,13 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             throw new RuntimeException("图书不存在");
         }
         
-        if (!book.getAvailableQuantity().equals(book.getTotalQuantity())) {
+        if (baseMapper.markDeleted(bookId) == 0) {
             throw new RuntimeException("该图书还有未归还的记录，无法删除");
         }
         
         book.setStatus(BookStatus.DELETED);
-        return this.updateById(book);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId, book));
+        return true;
     }
 
     @Override
@@ -112,8 +138,35 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             throw new RuntimeException("图书不存在");
         }
         
-        book.setStatus(BookStatus.valueOf(status));
-        this.updateById(book);
+        changeStatus(bookId, BookStatus.valueOf(status));
+        book = this.getById(bookId);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId, book));
+        return book;
+    }
+
+    private void changeStatus(Long bookId, BookStatus status) {
+        if (status == BookStatus.DELETED) {
+            if (baseMapper.markDeleted(bookId) == 0) {
+                throw new RuntimeException("该图书还有未归还的记录，无法删除");
+            }
+        } else if (baseMapper.updateStatus(bookId, status.name()) == 0) {
+            throw new RuntimeException("图书不存在");
+        }
+    }
+
+    @Override
+    public Book updateCover(Long bookId, String coverUrl) {
+        Book book = this.getById(bookId);
+        if (book == null || book.getStatus() == BookStatus.DELETED) {
+            throw new RuntimeException("图书不存在");
+        }
+
+        // 只写封面字段，整行写回会覆盖上传期间并发借还改过的库存
+        if (baseMapper.updateCoverUrl(bookId, coverUrl) == 0) {
+            throw new RuntimeException("图书不存在");
+        }
+        book = this.getById(bookId);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId, book));
         return book;
     }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+package com.library.service.impl;
+
+import com.library.dto.BookSuggestion;
+import com.library.entity.Book;
+import com.library.enums.BookStatus;
+import com.library.event.BookBorrowedEvent;
+import com.library.event.BookChangedEvent;
+import com.library.mapper.BookMapper;
+import com.library.service.BookSuggestService;
+import com.library.shard.BorrowRecordShards;
+import com.library.utils.LongIntHashMap;
+import com.library.utils.PinyinUtils;
+import com.library.utils.SuggestTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 搜索框输入联想。书名、作者、ISBN 以及书名/作者的拼音首字母都作为前缀树的 key，按借阅次数排序。
+ * 图书增删改与借阅事件在单线程执行器上增量打补丁，查询只持有读锁，不访问数据库。
+ * 启动时作为 ApplicationRunner 在 WarmupRunner 之前同步建好索引，实例就绪时联想已可用。
+ */
+@Service
+@Order(0)
+public class BookSuggestServiceImpl implements BookSuggestService, ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSuggestServiceImpl.class);
+
+    // 借阅日期在重建开始前这段时间内的记录，借阅事件可能在重建完成后才处理，按记录 ID 与快照去重
+    private static final long SNAPSHOT_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Value("${library.suggest.max-limit:10}")
+    private int maxLimit;
+
+    @Value("${library.suggest.max-word-keys:8}")
+    private int maxWordKeys;
+
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 首次重建完成前为空，此时联想返回空列表
+    private volatile SuggestTrie trie;
+
+    // 最近一次重建统计到的近期借阅记录 ID，这些记录的借阅事件已计入
+    private volatile Set<Long> snapshotRecordIds = Collections.emptySet();
+
+    @Override
+    public List<BookSuggestion> suggest(String query, int limit) {
+        List<BookSuggestion> result = new ArrayList<>();
+        String prefix = query == null ? "" : normalize(query);
+        SuggestTrie current = trie;
+        if (prefix.isEmpty() || current == null) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            for (SuggestTrie.Entry entry : current.search(prefix, Math.max(1, Math.min(limit, maxLimit)))) {
+                Book book = entry.getPayload();
+                BookSuggestion suggestion = new BookSuggestion();
+                suggestion.setBookId(book.getId());
+                suggestion.setTitle(book.getTitle());
+                suggestion.setAuthor(book.getAuthor());
+                suggestion.setIsbn(book.getIsbn());
+                suggestion.setBorrowCount(entry.getWeight());
+                result.add(suggestion);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        updateExecutor.execute(() -> {
+            try {
+                applyChange(event.getBookId(), event.getBook());
+            } catch (Exception e) {
+                log.warn("Failed to update suggestions for book {}", event.getBookId(), e);
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        updateExecutor.execute(() -> {
+            SuggestTrie current = trie;
+            if (current == null || snapshotRecordIds.contains(event.getRecordId())) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                current.addWeight(event.getBookId(), 1);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        updateExecutor.submit(this::doRebuild).get();
+    }
+
+    @Override
+    public void rebuild() {
+        updateExecutor.execute(this::doRebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updateExecutor.shutdownNow();
+    }
+
+    private void applyChange(Long bookId, Book changed) {
+        SuggestTrie current = trie;
+        if (current == null) {
+            // 尚未完成首次重建，重建时会读到这次变更
+            return;
+        }
+        Book book = changed != null ? changed : bookMapper.selectById(bookId);
+        lock.writeLock().lock();
+        try {
+            SuggestTrie.Entry existing = current.get(bookId);
+            if (book == null || book.getStatus() == BookStatus.DELETED) {
+                current.remove(bookId);
+            } else if (existing == null || !sameKeys(existing.getPayload(), book)) {
+                // 借还只改库存，联想字段不变时无需重建该条目
+                current.put(bookId, slim(book), keysOf(book), existing == null ? 0 : existing.getWeight());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doRebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            Timestamp recentSince = new Timestamp(start - SNAPSHOT_OVERLAP_MILLIS);
+
+            // 借阅次数与近期记录 ID 由同一条语句读出，属于同一个一致性读视图；分库后记录 ID 不随时间递增，不能用作水位线
+            LongIntHashMap borrowCounts = new LongIntHashMap();
+            Set<Long> recordIds = new HashSet<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                new JdbcTemplate(shards.dataSource(shard)).query(
+                        "SELECT book_id, COUNT(*), NULL FROM (" +
+                        "SELECT book_id FROM borrow_records " +
+                        "UNION ALL SELECT book_id FROM borrow_records_archive) t GROUP BY book_id " +
+                        "UNION ALL SELECT NULL, 0, id FROM borrow_records WHERE borrow_date >= ?",
+                        rs -> {
+                            long recordId = rs.getLong(3);
+                            if (rs.wasNull()) {
+                                borrowCounts.addTo(rs.getLong(1), rs.getInt(2));
+                            } else {
+                                recordIds.add(recordId);
+                            }
+                        }, recentSince);
+            }
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+            SuggestTrie rebuilt = new SuggestTrie(maxLimit);
+            jdbcTemplate.query("SELECT id, title, author, isbn FROM books WHERE status <> 'DELETED'", rs -> {
+                Book book = new Book();
+                book.setId(rs.getLong(1));
+                book.setTitle(rs.getString(2));
+                book.setAuthor(rs.getString(3));
+                book.setIsbn(rs.getString(4));
+                rebuilt.add(book.getId(), book, keysOf(book), borrowCounts.get(book.getId()));
+            });
+            rebuilt.refresh();
+
+            lock.writeLock().lock();
+            try {
+                trie = rebuilt;
+                snapshotRecordIds = recordIds;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Rebuilt suggestion index for {} books in {} ms",
+                    rebuilt.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild suggestion index", e);
+        }
+    }
+
+    // 只保留联想需要的字段，常驻内存
+    private Book slim(Book book) {
+        Book slim = new Book();
+        slim.setId(book.getId());
+        slim.setTitle(book.getTitle());
+        slim.setAuthor(book.getAuthor());
+        slim.setIsbn(book.getIsbn());
+        return slim;
+    }
+
+    private boolean sameKeys(Book indexed, Book book) {
+        return Objects.equals(indexed.getTitle(), book.getTitle())
+                && Objects.equals(indexed.getAuthor(), book.getAuthor())
+                && Objects.equals(indexed.getIsbn(), book.getIsbn());
+    }
+
+    private String[] keysOf(Book book) {
+        Set<String> keys = new LinkedHashSet<>();
+        addTextKeys(keys, book.getTitle());
+        addTextKeys(keys, book.getAuthor());
+        if (book.getIsbn() != null) {
+            keys.add(normalize(book.getIsbn()));
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    // 全文、从每个词开始的后缀（中英文切换或分隔符处视为词边界），以及拼音首字母
+    private void addTextKeys(Set<String> keys, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        keys.add(normalize(text));
+        int words = 0;
+        for (int i = 1; i < text.length() && words < maxWordKeys; i++) {
+            char previous = text.charAt(i - 1);
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            if (!Character.isLetterOrDigit(previous) || PinyinUtils.isChinese(previous) != PinyinUtils.isChinese(c)) {
+                keys.add(normalize(text.substring(i)));
+                words++;
+            }
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (PinyinUtils.isChinese(text.charAt(i))) {
+                keys.add(PinyinUtils.initials(text));
+                break;
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c) && c != '-') {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+}
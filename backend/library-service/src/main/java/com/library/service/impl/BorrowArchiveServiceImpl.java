@@ -0,0 +1,72 @@
+package com.library.service.impl;
+
+import com.library.service.BorrowArchiveService;
+import com.library.shard.BorrowRecordShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class BorrowArchiveServiceImpl implements BorrowArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowArchiveServiceImpl.class);
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${library.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${library.archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    // 每一批都在所在分片的独立短事务中提交
+    @Override
+    public int archiveBatch(int shard, LocalDateTime cutoff, int batchSize) {
+        int archived = shards.inTransaction(shard, mapper -> {
+            List<Long> ids = mapper.selectArchivableIds(cutoff, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            mapper.copyToArchive(ids);
+            int deleted = mapper.deleteArchived(ids);
+            if (deleted != ids.size()) {
+                throw new IllegalStateException("归档记录数不一致，期望 " + ids.size() + " 实际 " + deleted);
+            }
+            return deleted;
+        });
+        if (archived > 0) {
+            try {
+                redisTemplate.opsForValue().increment(GENERATION_KEY);
+            } catch (Exception e) {
+                log.warn("Failed to bump borrow archive generation: {}", e.getMessage());
+            }
+        }
+        return archived;
+    }
+
+    @Override
+    public int archiveBefore(LocalDateTime cutoff) {
+        int total = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int archived = archiveBatch(shard, cutoff, batchSize);
+                total += archived;
+                if (archived < batchSize) {
+                    break;
+                }
+            }
+        }
+        log.info("Archived {} borrow records returned before {}", total, cutoff);
+        return total;
+    }
+}
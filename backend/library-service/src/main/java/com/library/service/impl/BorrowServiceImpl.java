@@ -9,35 +9,107 @@ import com.library.entity.BorrowRecord;
 import com.library.entity.User;
 import com.library.enums.BookStatus;
 import com.library.enums.BorrowStatus;
+import com.library.event.BookBorrowedEvent;
+import com.library.event.BookChangedEvent;
+import com.library.limit.ConcurrencyLimited;
+import com.library.limit.Priority;
+import com.library.mapper.BookMapper;
 import com.library.mapper.BorrowRecordMapper;
 import com.library.service.BookService;
+import com.library.service.BorrowArchiveService;
 import com.library.service.BorrowService;
+import com.library.service.LoanStatsService;
 import com.library.service.UserService;
+import com.library.shard.BorrowRecordShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@ConcurrencyLimited
 public class BorrowServiceImpl extends ServiceImpl<BorrowRecordMapper, BorrowRecord> implements BorrowService {
 
+    private static final Logger log = LoggerFactory.getLogger(BorrowServiceImpl.class);
+
+    private static final String ARCHIVE_COUNTS_KEY = "borrow-counts:archive:";
+
+    // 管理端列表的合并顺序，与各分片 SQL 的 ORDER BY 一致
+    private static final Comparator<BorrowRecord> NEWEST_FIRST = Comparator
+            .comparing(BorrowRecord::getBorrowDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(BorrowRecord::getId, Comparator.reverseOrder());
+
     @Autowired
     private BookService bookService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private LoanStatsService loanStatsService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${library.archive.count-cache-ttl:86400000}")
+    private long archiveCountsTtl;
+
+    // 借还使用读已提交：按主键或唯一条件更新不到行时不加间隙锁，首次借书的读者并发创建借阅汇总行不会互相死锁
     @Override
-    @Transactional
+    @ConcurrencyLimited(Priority.CRITICAL)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public BorrowRecord borrowBook(Long bookId) {
         User currentUser = userService.getCurrentUser();
         if (currentUser == null) {
             throw new RuntimeException("用户未登录");
         }
+        return borrow(currentUser, bookId);
+    }
 
+    @Override
+    @ConcurrencyLimited(Priority.CRITICAL)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BorrowRecord borrowBookFor(Long bookId, String username) {
+        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(User::getUsername, username)
+                   .eq(User::getStatus, 1);
+        User user = userService.getOne(queryWrapper);
+        if (user == null) {
+            throw new RuntimeException("用户不存在或已被禁用");
+        }
+        user.setPassword(null);
+        return borrow(user, bookId);
+    }
+
+    private BorrowRecord borrow(User currentUser, Long bookId) {
         Book book = bookService.getById(bookId);
         if (book == null || book.getStatus() != BookStatus.AVAILABLE) {
             throw new RuntimeException("图书不存在或不可借阅");
@@ -47,15 +119,20 @@ public class BorrowServiceImpl extends ServiceImpl<BorrowRecordMapper, BorrowRec
             throw new RuntimeException("图书库存不足");
         }
 
-        LambdaQueryWrapper<BorrowRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(BorrowRecord::getUserId, currentUser.getId())
-                   .eq(BorrowRecord::getBookId, bookId)
-                   .eq(BorrowRecord::getStatus, BorrowStatus.BORROWED);
-        
-        if (this.getOne(queryWrapper) != null) {
+        // 先锁用户汇总行再锁图书行，与还书的加锁顺序一致
+        loanStatsService.acquireLoan(currentUser.getId(), currentUser.getRole());
+
+        // 重复借阅检查放在汇总行锁之后：同一读者的并发借书在这里依次执行，后到的一定能看到先到的记录
+        int shard = shards.shardOfUser(currentUser.getId());
+        if (shards.on(shard, mapper -> mapper.selectActiveLoanId(currentUser.getId(), bookId)) != null) {
             throw new RuntimeException("您已借阅了这本书，请先归还后再借阅");
         }
 
+        if (bookMapper.decrementAvailable(bookId) == 0) {
+            throw new RuntimeException("图书库存不足");
+        }
+        book = bookService.getById(bookId);
+
         BorrowRecord borrowRecord = new BorrowRecord();
         borrowRecord.setUserId(currentUser.getId());
         borrowRecord.setBookId(bookId);
@@ -64,10 +141,9 @@ public class BorrowServiceImpl extends ServiceImpl<BorrowRecordMapper, BorrowRec
         borrowRecord.setStatus(BorrowStatus.BORROWED);
         borrowRecord.setFineAmount(BigDecimal.ZERO);
 
-        book.setAvailableQuantity(book.getAvailableQuantity() - 1);
-        bookService.updateById(book);
-
-        this.save(borrowRecord);
+        shards.insert(borrowRecord);
+        eventPublisher.publishEvent(new BookBorrowedEvent(borrowRecord.getId(), currentUser.getId(), bookId));
+        eventPublisher.publishEvent(new BookChangedEvent(bookId, book));
 
         borrowRecord.setUser(currentUser);
         borrowRecord.setBook(book);
@@ -76,9 +152,10 @@ public class BorrowServiceImpl extends ServiceImpl<BorrowRecordMapper, BorrowRec
     }
 
     @Override
-    @Transactional
+    @ConcurrencyLimited(Priority.CRITICAL)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public BorrowRecord returnBook(Long recordId) {
-        BorrowRecord borrowRecord = this.getById(recordId);
+        BorrowRecord borrowRecord = findRecord(recordId);
         if (borrowRecord == null) {
             throw new RuntimeException("借阅记录不存在");
         }
@@ -87,8 +164,7 @@ public class BorrowServiceImpl extends ServiceImpl<BorrowRecordMapper, BorrowRec
             throw new RuntimeException("图书已归还或状态异常");
         }
 
-        Book book = bookService.getById(borrowRecord.getBookId());
-        if (book == null) {
+        if (bookService.getById(borrowRecord.getBookId()) == null) {
             throw new RuntimeException("图书信息不存在");
         }
 
@@ -101,90 +177,240 @@ public class BorrowServiceImpl extends ServiceImpl<BorrowRecordMapper, BorrowRec
             borrowRecord.setFineAmount(BigDecimal.valueOf(overdueDays * 0.5));
         }
 
-        book.setAvailableQuantity(book.getAvailableQuantity() + 1);
-        bookService.updateById(book);
+        // 汇总行的锁在改记录状态之前取得，校准时读到的记录与汇总一致；重复归还在下面抛出异常，汇总随事务回滚
+        loanStatsService.releaseLoan(borrowRecord.getUserId(), borrowRecord.getStatus() == BorrowStatus.OVERDUE,
+                borrowRecord.getFineAmount());
 
-        this.updateById(borrowRecord);
+        // 并发的重复归还只有一个能把记录从在借状态改掉，其余的不会再加库存。
+        // 分库时这一步在分片上单独提交，之后主库加库存失败只会让库存偏少，不会超借
+        int shard = shards.shardOfUser(borrowRecord.getUserId());
+        if (shards.on(shard, mapper -> mapper.markReturned(recordId, borrowRecord.getStatus(),
+                borrowRecord.getReturnDate(), borrowRecord.getFineAmount())) == 0) {
+            throw new RuntimeException("图书已归还或状态异常");
+        }
+        bookMapper.incrementAvailable(borrowRecord.getBookId());
+        Book book = bookService.getById(borrowRecord.getBookId());
+        eventPublisher.publishEvent(new BookChangedEvent(book.getId(), book));
 
-        User user = userService.getById(borrowRecord.getUserId());
-        borrowRecord.setUser(user);
+        borrowRecord.setUser(borrower(borrowRecord.getUserId()));
         borrowRecord.setBook(book);
 
         return borrowRecord;
     }
 
     @Override
+    public BorrowRecord getBorrowRecordDetail(Long recordId) {
+        BorrowRecord borrowRecord = findRecord(recordId);
+        if (borrowRecord == null) {
+            throw new RuntimeException("借阅记录不存在");
+        }
+        borrowRecord.setUser(borrower(borrowRecord.getUserId()));
+        borrowRecord.setBook(bookService.getById(borrowRecord.getBookId()));
+        return borrowRecord;
+    }
+
+    // 借还结果只带借阅人的 ID、用户名和姓名，不返回密码摘要和联系方式
+    private User borrower(Long userId) {
+        User found = userService.getById(userId);
+        if (found == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(found.getUsername());
+        user.setRealName(found.getRealName());
+        return user;
+    }
+
+    @Override
+    @ConcurrencyLimited(Priority.SHEDDABLE)
     public IPage<BorrowRecord> getBorrowRecordsPage(int page, int size, String keyword, String status) {
-        Page<BorrowRecord> pageObj = new Page<>(page, size);
-        LambdaQueryWrapper<BorrowRecord> queryWrapper = new LambdaQueryWrapper<>();
+        return fillDetails(findAllBorrowRecords(page, size, status));
+    }
 
-        if (StringUtils.hasText(status)) {
-            queryWrapper.eq(BorrowRecord::getStatus, BorrowStatus.valueOf(status));
+    @Override
+    public IPage<BorrowRecord> getMyBorrowRecords(int page, int size) {
+        return getMyBorrowRecords(page, size, null);
+    }
+
+    @Override
+    public IPage<BorrowRecord> getMyBorrowRecords(int page, int size, String status) {
+        User currentUser = userService.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("用户未登录");
         }
+        return fillDetails(findUserBorrowRecords(currentUser.getId(), page, size, status));
+    }
 
-        queryWrapper.orderByDesc(BorrowRecord::getBorrowDate);
+    @Override
+    @ConcurrencyLimited(Priority.SHEDDABLE)
+    public IPage<BorrowRecord> findAllBorrowRecords(int page, int size, String status) {
+        BorrowStatus borrowStatus = StringUtils.hasText(status) ? BorrowStatus.valueOf(status) : null;
+        return scatterPage(page, size, borrowStatus);
+    }
 
-        IPage<BorrowRecord> result = baseMapper.selectBorrowRecordsWithDetails(pageObj, queryWrapper);
+    @Override
+    public IPage<BorrowRecord> findUserBorrowRecords(Long userId, int page, int size, String status) {
+        BorrowStatus borrowStatus = StringUtils.hasText(status) ? BorrowStatus.valueOf(status) : null;
+        long offset = (long) Math.max(page - 1, 0) * size;
+        List<BorrowRecord> records = shards.on(shards.shardOfUser(userId),
+                mapper -> select(mapper, userId, borrowStatus, offset, size));
+        long total = shards.on(shards.shardOfUser(userId), mapper -> count(mapper, userId, borrowStatus));
+        return toPage(page, size, total, records);
+    }
 
-        // 填充用户和图书信息
-        for (BorrowRecord record : result.getRecords()) {
-            // 构建用户信息（使用查询中的数据）
-            if (record.getUsername() != null) {
-                User user = new User();
-                user.setId(record.getUserId());
-                user.setUsername(record.getUsername());
-                user.setRealName(record.getUserRealName());
-                record.setUser(user);
+    @Override
+    public Map<BorrowStatus, Long> countUserBorrowRecords(Long userId) {
+        int shard = shards.shardOfUser(userId);
+        Map<BorrowStatus, Long> counts = archivedCounts(shard, userId);
+        addCounts(counts, shards.on(shard, mapper -> mapper.countByStatus(userId)));
+        return counts;
+    }
+
+    @Override
+    @ConcurrencyLimited(Priority.SHEDDABLE)
+    public Map<BorrowStatus, Long> countAllBorrowRecords() {
+        Map<BorrowStatus, Long> counts = new EnumMap<>(BorrowStatus.class);
+        for (BorrowStatus status : BorrowStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            archivedCounts(shard, null).forEach((status, count) -> counts.merge(status, count, Long::sum));
+        }
+        for (List<Map<String, Object>> rows : shards.scatter(mapper -> mapper.countByStatus(null))) {
+            addCounts(counts, rows);
+        }
+        return counts;
+    }
+
+    // 归档表只在归档任务提交时增加记录，统计结果按 (归档批次号, 分片, 用户) 缓存在 Redis 中；Redis 不可用时直接查询
+    private Map<BorrowStatus, Long> archivedCounts(int shard, Long userId) {
+        Map<BorrowStatus, Long> counts = new EnumMap<>(BorrowStatus.class);
+        for (BorrowStatus status : BorrowStatus.values()) {
+            counts.put(status, 0L);
+        }
+        String key = null;
+        try {
+            String generation = redisTemplate.opsForValue().get(BorrowArchiveService.GENERATION_KEY);
+            key = ARCHIVE_COUNTS_KEY + (generation != null ? generation : "0") + ":" + shard + ":"
+                    + (userId != null ? userId : "all");
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                for (String entry : cached.split(",")) {
+                    String[] parts = entry.split("=");
+                    counts.put(BorrowStatus.valueOf(parts[0]), Long.valueOf(parts[1]));
+                }
+                return counts;
             }
-            
-            // 构建书籍信息（使用查询中的数据）
-            if (record.getBookTitle() != null) {
-                Book book = new Book();
-                book.setId(record.getBookId());
-                book.setTitle(record.getBookTitle());
-                book.setAuthor(record.getBookAuthor());
-                record.setBook(book);
+        } catch (Exception e) {
+            log.warn("Failed to read archived borrow counts from cache: {}", e.getMessage());
+        }
+
+        addCounts(counts, shards.on(shard, mapper -> mapper.countArchivedByStatus(userId)));
+        if (key != null) {
+            String value = counts.entrySet().stream()
+                    .map(entry -> entry.getKey().name() + "=" + entry.getValue())
+                    .collect(Collectors.joining(","));
+            try {
+                redisTemplate.opsForValue().set(key, value, Duration.ofMillis(archiveCountsTtl));
+            } catch (Exception e) {
+                log.warn("Failed to cache archived borrow counts: {}", e.getMessage());
             }
         }
+        return counts;
+    }
 
-        return result;
+    // 分库前的记录 ID 不含分片基因，按基因定位的分片里找不到时再查其余分片
+    private BorrowRecord findRecord(Long recordId) {
+        BorrowRecord record = shards.on(shards.shardOfRecord(recordId), mapper -> mapper.selectById(recordId));
+        if (record == null && shards.size() > 1) {
+            record = shards.scatter(mapper -> mapper.selectById(recordId)).stream()
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+        }
+        return record;
     }
 
-    @Override
-    public IPage<BorrowRecord> getMyBorrowRecords(int page, int size) {
-        User currentUser = userService.getCurrentUser();
-        if (currentUser == null) {
-            throw new RuntimeException("用户未登录");
+    // 每个分片取前 page * size 条，合并排序后截取目标页，总数为各分片之和
+    private IPage<BorrowRecord> scatterPage(int page, int size, BorrowStatus status) {
+        long offset = (long) Math.max(page - 1, 0) * size;
+        if (shards.size() == 1) {
+            return toPage(page, size, shards.on(0, mapper -> count(mapper, null, status)),
+                    shards.on(0, mapper -> select(mapper, null, status, offset, size)));
         }
+        List<List<BorrowRecord>> parts = shards.scatter(mapper -> select(mapper, null, status, 0, offset + size));
+        long total = shards.scatter(mapper -> count(mapper, null, status)).stream().mapToLong(Long::longValue).sum();
+
+        List<BorrowRecord> merged = new ArrayList<>();
+        parts.forEach(merged::addAll);
+        merged.sort(NEWEST_FIRST);
+        int from = (int) Math.min(offset, merged.size());
+        int to = (int) Math.min(offset + size, merged.size());
+        return toPage(page, size, total, new ArrayList<>(merged.subList(from, to)));
+    }
+
+    // 在借记录只存在于在用表；其余状态的历史查询需要合并归档表
+    private static List<BorrowRecord> select(BorrowRecordMapper mapper, Long userId, BorrowStatus status,
+                                             long offset, long size) {
+        return mapper.selectPage(userId, status, status != BorrowStatus.BORROWED, offset, size, offset + size);
+    }
 
-        Page<BorrowRecord> pageObj = new Page<>(page, size);
-        LambdaQueryWrapper<BorrowRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(BorrowRecord::getUserId, currentUser.getId())
-                   .orderByDesc(BorrowRecord::getBorrowDate);
+    private static long count(BorrowRecordMapper mapper, Long userId, BorrowStatus status) {
+        return mapper.countPage(userId, status, status != BorrowStatus.BORROWED);
+    }
 
-        IPage<BorrowRecord> result = baseMapper.selectBorrowRecordsWithDetails(pageObj, queryWrapper);
+    private static IPage<BorrowRecord> toPage(int page, int size, long total, List<BorrowRecord> records) {
+        Page<BorrowRecord> result = new Page<>(page, size, total);
+        result.setRecords(records);
+        return result;
+    }
 
-        // 填充用户和图书信息
-        for (BorrowRecord record : result.getRecords()) {
-            // 构建用户信息（使用查询中的数据）
-            if (record.getUsername() != null) {
+    private static void addCounts(Map<BorrowStatus, Long> counts, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            counts.merge(BorrowStatus.valueOf(String.valueOf(row.get("status"))),
+                    ((Number) row.get("cnt")).longValue(), Long::sum);
+        }
+    }
+
+    // 用户和图书在主库，按本页出现的 ID 批量查询后填充
+    private IPage<BorrowRecord> fillDetails(IPage<BorrowRecord> result) {
+        List<BorrowRecord> records = result.getRecords();
+        if (records.isEmpty()) {
+            return result;
+        }
+        Set<Long> userIds = records.stream().map(BorrowRecord::getUserId).collect(Collectors.toSet());
+        Set<Long> bookIds = records.stream().map(BorrowRecord::getBookId).collect(Collectors.toSet());
+        Map<Long, User> users = userService.listByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Book> books = bookService.listByIds(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        for (BorrowRecord record : records) {
+            // 只返回列表需要的字段
+            User found = users.get(record.getUserId());
+            if (found != null) {
+                record.setUsername(found.getUsername());
+                record.setUserRealName(found.getRealName());
                 User user = new User();
                 user.setId(record.getUserId());
-                user.setUsername(record.getUsername());
-                user.setRealName(record.getUserRealName());
+                user.setUsername(found.getUsername());
+                user.setRealName(found.getRealName());
                 record.setUser(user);
             }
-            
-            // 构建书籍信息（使用查询中的数据）
-            if (record.getBookTitle() != null) {
+
+            Book foundBook = books.get(record.getBookId());
+            if (foundBook != null) {
+                record.setBookTitle(foundBook.getTitle());
+                record.setBookAuthor(foundBook.getAuthor());
                 Book book = new Book();
                 book.setId(record.getBookId());
-                book.setTitle(record.getBookTitle());
-                book.setAuthor(record.getBookAuthor());
+                book.setTitle(foundBook.getTitle());
+                book.setAuthor(foundBook.getAuthor());
                 record.setBook(book);
             }
         }
 
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,248 @@
+package com.library.service.impl;
+
+import com.library.entity.Book;
+import com.library.service.BookService;
+import com.library.service.CoverService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+
+/**
+ * 封面保存在本地目录（多副本部署时为共享卷），文件名为内容的 SHA-256 前 32 位十六进制，
+ * 按前两位分子目录：{dir}/ab/ab12...ef.jpg，缩略图为同名的 .thumb.jpg。
+ * 内容相同的图片只存一份，缩略图只在上传时生成一次；地址随内容变化，可以让浏览器长期缓存。
+ * 旧封面不会删除，可能仍被其他图书引用。
+ */
+@Service
+public class CoverServiceImpl implements CoverService {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverServiceImpl.class);
+
+    private static final String URL_PREFIX = "/api/covers/";
+
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{32}(\\.thumb)?\\.(jpg|png|gif)");
+
+    private static final int HASH_LENGTH = 32;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.cover.dir:data/covers}")
+    private String dir;
+
+    @Value("${library.cover.max-size:5242880}")
+    private int maxSize;
+
+    // 解码前按图片头中的宽高拒绝过大的图片，避免解压后占满内存
+    @Value("${library.cover.max-pixels:25000000}")
+    private long maxPixels;
+
+    @Value("${library.cover.thumb-width:160}")
+    private int thumbWidth;
+
+    @Value("${library.cover.thumb-height:224}")
+    private int thumbHeight;
+
+    @Value("${library.cover.thumb-quality:0.85}")
+    private float thumbQuality;
+
+    private Path root;
+
+    private Counter uploads;
+    private Timer thumbnails;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(dir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        uploads = Counter.builder("library.cover.uploads").register(meterRegistry);
+        thumbnails = Timer.builder("library.cover.thumbnail").register(meterRegistry);
+        log.info("Storing book covers in {}", root);
+    }
+
+    @Override
+    public Book uploadCover(Long bookId, byte[] image) {
+        if (image == null || image.length == 0) {
+            throw new RuntimeException("请选择封面图片");
+        }
+        if (image.length > maxSize) {
+            throw new RuntimeException("封面图片不能超过 " + maxSize / 1024 / 1024 + "MB");
+        }
+        String hash = sha256(image).substring(0, HASH_LENGTH);
+        String extension;
+        try {
+            BufferedImage decoded;
+            try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (!readers.hasNext()) {
+                    throw new RuntimeException("不支持的图片格式，请上传 JPG、PNG 或 GIF");
+                }
+                ImageReader reader = readers.next();
+                try {
+                    extension = extensionOf(reader.getFormatName());
+                    reader.setInput(input, true, true);
+                    if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                        throw new RuntimeException("封面图片尺寸过大");
+                    }
+                    decoded = reader.read(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+
+            Path originalFile = pathOf(hash + extension);
+            Path thumbnailFile = pathOf(hash + ".thumb.jpg");
+            Files.createDirectories(originalFile.getParent());
+            if (!Files.exists(originalFile)) {
+                store(originalFile, image);
+            }
+            if (!Files.exists(thumbnailFile)) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                store(thumbnailFile, encodeJpeg(thumbnail(decoded)));
+                sample.stop(thumbnails);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Book book = bookService.updateCover(bookId, URL_PREFIX + hash + extension);
+        uploads.increment();
+        return book;
+    }
+
+    @Override
+    public Path resolve(String fileName) {
+        if (fileName == null || !FILE_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+        Path path = pathOf(fileName);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    private Path pathOf(String fileName) {
+        return root.resolve(fileName.substring(0, 2)).resolve(fileName);
+    }
+
+    // 先写临时文件再改名，并发上传同一张图片时读取方不会看到写了一半的文件
+    private static void store(Path target, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            Files.write(temp, data);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // 其他请求已经写入相同内容
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 按封面比例居中裁剪后缩放；缩小倍数较大时先逐次减半，单次双三次插值缩小太多会有锯齿
+    private BufferedImage thumbnail(BufferedImage source) {
+        double scale = Math.max((double) thumbWidth / source.getWidth(), (double) thumbHeight / source.getHeight());
+        int cropWidth = Math.min(source.getWidth(), (int) Math.round(thumbWidth / scale));
+        int cropHeight = Math.min(source.getHeight(), (int) Math.round(thumbHeight / scale));
+        BufferedImage current = source.getSubimage((source.getWidth() - cropWidth) / 2,
+                (source.getHeight() - cropHeight) / 2, cropWidth, cropHeight);
+        while (current.getWidth() / 2 >= thumbWidth && current.getHeight() / 2 >= thumbHeight) {
+            current = scale(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return scale(current, thumbWidth, thumbHeight);
+    }
+
+    // 统一画到白底的 RGB 图上，透明和索引色的 PNG/GIF 也能按 JPEG 输出
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(thumbQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static String extensionOf(String formatName) {
+        switch (formatName.toLowerCase()) {
+            case "jpeg":
+            case "jpg":
+                return ".jpg";
+            case "png":
+                return ".png";
+            case "gif":
+                return ".gif";
+            default:
+                throw new RuntimeException("不支持的图片格式，请上传 JPG、PNG 或 GIF");
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
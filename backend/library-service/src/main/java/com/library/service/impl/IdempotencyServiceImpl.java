@@ -0,0 +1,123 @@
+package com.library.service.impl;
+
+import com.library.service.IdempotencyKeyReusedException;
+import com.library.service.IdempotencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键存放在 Redis 中：执行期间值为 请求摘要:PENDING，成功后替换为 请求摘要:结果记录 ID 并保留 ttl。
+ * 客户端给出的键和请求参数都只保存 128 位摘要，每个键占用的空间固定。
+ * 执行失败（事务已回滚）时删除占位，允许客户端用同一个键重试。
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final String KEY_PREFIX = "idem:";
+    private static final String PENDING = "PENDING";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${library.idempotency.ttl:86400000}")
+    private long ttl;
+
+    @Value("${library.idempotency.pending-ttl:60000}")
+    private long pendingTtl;
+
+    @Value("${library.idempotency.pending-wait:3000}")
+    private long pendingWait;
+
+    @Override
+    public <T> T execute(String operation, String scope, String key, String request, Supplier<T> action,
+                         Function<T, Long> resultId, Function<Long, T> replay) {
+        if (!StringUtils.hasText(key)) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("幂等键长度不能超过" + MAX_KEY_LENGTH);
+        }
+
+        String redisKey = KEY_PREFIX + operation + ":" + scope + ":" + digest(key);
+        String fingerprint = digest(request);
+        while (!Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(redisKey, fingerprint + ":" + PENDING, Duration.ofMillis(pendingTtl)))) {
+            Long previous = awaitResult(redisKey, fingerprint);
+            if (previous != null) {
+                return replay.apply(previous);
+            }
+            // 首次请求失败并释放了占位，由本次请求重新执行
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            redisTemplate.delete(redisKey);
+            throw e;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey, fingerprint + ":" + resultId.apply(result), Duration.ofMillis(ttl));
+        } catch (Exception e) {
+            // 业务已提交，占位过期前的重试仍会被拦下；过期后的重试由借还的状态校验兜底
+            log.warn("Failed to record idempotency result for {}: {}", redisKey, e.getMessage());
+        }
+        return result;
+    }
+
+    // 重试往往在首次请求仍在执行时到达（调用方超时），短暂等待首次请求完成后直接返回其结果；占位被释放时返回 null。
+    // 同一个键用于参数不同的请求时直接拒绝，不返回之前请求的结果，也不执行本次请求
+    private Long awaitResult(String redisKey, String fingerprint) {
+        long deadline = System.currentTimeMillis() + pendingWait;
+        while (true) {
+            String value = redisTemplate.opsForValue().get(redisKey);
+            if (value == null) {
+                return null;
+            }
+            // 升级前写入的值不带请求摘要，按相同请求处理
+            int separator = value.indexOf(':');
+            if (separator >= 0 && !value.substring(0, separator).equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException();
+            }
+            String state = value.substring(separator + 1);
+            if (!PENDING.equals(state)) {
+                return Long.valueOf(state);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new RuntimeException("相同请求正在处理中，请稍后重试");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("相同请求正在处理中，请稍后重试");
+            }
+        }
+    }
+
+    private static String digest(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
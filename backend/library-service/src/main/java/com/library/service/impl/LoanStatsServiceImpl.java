@@ -0,0 +1,269 @@
+package com.library.service.impl;
+
+import com.library.dto.LoanSummary;
+import com.library.entity.UserLoanStats;
+import com.library.enums.UserRole;
+import com.library.mapper.UserLoanStatsMapper;
+import com.library.service.LoanStatsService;
+import com.library.shard.BorrowRecordShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 用户借阅汇总（在借数、逾期归还次数、累计罚金）存放在主库 user_loan_stats，借还时在同一事务内增量更新，
+ * 借书用一条带上限条件的 UPDATE 判断并占用名额，不再统计借阅记录。汇总行与库存一样在主库，
+ * 分库时与分片上的借阅记录不在同一事务，偏差由定期校准修正；用户第一次借还时按其借阅记录生成汇总行。
+ * <p>
+ * 读取的汇总缓存在 Redis 中，借还事务提交后删除。并发的读取可能把提交前的旧值写回缓存，最多保留 cache-ttl。
+ */
+@Service
+public class LoanStatsServiceImpl implements LoanStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanStatsServiceImpl.class);
+
+    // 缓存值为 在借数:逾期未还数:逾期归还次数:累计罚金
+    private static final String CACHE_KEY = "loan-stats:v2:";
+
+    @Autowired
+    private UserLoanStatsMapper userLoanStatsMapper;
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.loan-stats.cache-ttl:300000}")
+    private long cacheTtl;
+
+    @Value("${library.loan-stats.reconcile-batch-size:200}")
+    private int reconcileBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter corrected;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        corrected = Counter.builder("library.loan-stats.corrected").register(meterRegistry);
+    }
+
+    @Override
+    public void acquireLoan(Long userId, UserRole role) {
+        int limit = role.getMaxLoans();
+        if (userLoanStatsMapper.incrementActive(userId, limit) == 0) {
+            createIfAbsent(userId);
+            if (userLoanStatsMapper.incrementActive(userId, limit) == 0) {
+                throw new RuntimeException("已达到借阅上限（" + limit + " 本），请先归还后再借阅");
+            }
+        }
+        evictAfterCommit(userId);
+    }
+
+    @Override
+    public void releaseLoan(Long userId, boolean overdue, BigDecimal fine) {
+        BigDecimal amount = fine != null ? fine : BigDecimal.ZERO;
+        if (userLoanStatsMapper.recordReturn(userId, overdue ? 1 : 0, amount) == 0) {
+            createIfAbsent(userId);
+            userLoanStatsMapper.recordReturn(userId, overdue ? 1 : 0, amount);
+        }
+        evictAfterCommit(userId);
+    }
+
+    @Override
+    public LoanSummary getSummary(Long userId, UserRole role) {
+        String key = CACHE_KEY + userId;
+        String cached = null;
+        try {
+            cached = redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("Failed to read loan stats cache for user {}: {}", userId, e.getMessage());
+        }
+        if (cached != null) {
+            String[] parts = cached.split(":");
+            return summary(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    new BigDecimal(parts[3]), role);
+        }
+
+        UserLoanStats stats = userLoanStatsMapper.selectById(userId);
+        if (stats == null) {
+            stats = createIfAbsent(userId);
+        }
+        // 逾期未还随时间变化，不在汇总行中维护，读取时按在借记录的应还日期统计，随汇总一起缓存
+        int overdueLoans = stats.getActiveLoans() == 0 ? 0 : shards.on(shards.shardOfUser(userId),
+                mapper -> mapper.countOverdueLoans(userId, LocalDateTime.now()));
+        try {
+            redisTemplate.opsForValue().set(key, stats.getActiveLoans() + ":" + overdueLoans + ":"
+                    + stats.getOverdueCount() + ":" + stats.getFineAmount().toPlainString(), Duration.ofMillis(cacheTtl));
+        } catch (Exception e) {
+            log.warn("Failed to cache loan stats for user {}: {}", userId, e.getMessage());
+        }
+        return summary(stats.getActiveLoans(), overdueLoans, stats.getOverdueCount(), stats.getFineAmount(), role);
+    }
+
+    @Override
+    public LoanSummary getCurrentUserSummary() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getDetails() instanceof Long)) {
+            throw new RuntimeException("用户未登录");
+        }
+        UserRole role = UserRole.STUDENT;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authority.getAuthority().startsWith("ROLE_")) {
+                role = UserRole.valueOf(authority.getAuthority().substring("ROLE_".length()));
+            }
+        }
+        return getSummary((Long) authentication.getDetails(), role);
+    }
+
+    @Override
+    public int reconcileAll() {
+        long afterUserId = 0;
+        int checked = 0;
+        int fixed = 0;
+        while (true) {
+            long after = afterUserId;
+            Batch batch = transactionTemplate.execute(status -> reconcileBatch(after));
+            checked += batch.size;
+            fixed += batch.corrected;
+            if (batch.size < reconcileBatchSize) {
+                break;
+            }
+            afterUserId = batch.lastUserId;
+        }
+        log.info("Reconciled loan stats of {} users, {} corrected", checked, fixed);
+        return fixed;
+    }
+
+    // 锁定一批汇总行后按借阅记录重新计算；锁住期间这些用户的借还在主库事务中等待，读到的借阅记录不会缺少已提交的借还
+    private Batch reconcileBatch(long afterUserId) {
+        List<UserLoanStats> rows = userLoanStatsMapper.lockBatch(afterUserId, reconcileBatchSize);
+        if (rows.isEmpty()) {
+            return new Batch(afterUserId, 0, 0);
+        }
+
+        Map<Integer, List<Long>> userIdsByShard = new HashMap<>();
+        for (UserLoanStats row : rows) {
+            userIdsByShard.computeIfAbsent(shards.shardOfUser(row.getUserId()), shard -> new ArrayList<>())
+                    .add(row.getUserId());
+        }
+        // 每个分片在各自的事务中读取：主库事务内直接用 on() 会复用第一个分片绑定到线程上的连接
+        Map<Long, UserLoanStats> actual = new HashMap<>();
+        userIdsByShard.forEach((shard, userIds) -> {
+            for (UserLoanStats stats : shards.inTransaction(shard, mapper -> mapper.summarizeByUser(userIds))) {
+                actual.put(stats.getUserId(), stats);
+            }
+        });
+
+        int fixed = 0;
+        for (UserLoanStats row : rows) {
+            UserLoanStats expected = actual.getOrDefault(row.getUserId(), empty(row.getUserId()));
+            if (!Objects.equals(row.getActiveLoans(), expected.getActiveLoans())
+                    || !Objects.equals(row.getOverdueCount(), expected.getOverdueCount())
+                    || row.getFineAmount().compareTo(expected.getFineAmount()) != 0) {
+                log.warn("Loan stats of user {} drifted: active {} -> {}, overdue {} -> {}, fines {} -> {}",
+                        row.getUserId(), row.getActiveLoans(), expected.getActiveLoans(), row.getOverdueCount(),
+                        expected.getOverdueCount(), row.getFineAmount(), expected.getFineAmount());
+                userLoanStatsMapper.overwrite(expected);
+                evictAfterCommit(row.getUserId());
+                fixed++;
+            }
+        }
+        corrected.increment(fixed);
+        return new Batch(rows.get(rows.size() - 1).getUserId(), rows.size(), fixed);
+    }
+
+    // 按借阅记录生成汇总行；并发生成时以先插入的为准
+    private UserLoanStats createIfAbsent(Long userId) {
+        List<UserLoanStats> summarized = shards.on(shards.shardOfUser(userId),
+                mapper -> mapper.summarizeByUser(Collections.singletonList(userId)));
+        UserLoanStats stats = summarized.isEmpty() ? empty(userId) : summarized.get(0);
+        userLoanStatsMapper.insertIfAbsent(stats);
+        return userLoanStatsMapper.selectById(userId);
+    }
+
+    private void evictAfterCommit(Long userId) {
+        String key = CACHE_KEY + userId;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(key);
+            }
+        });
+    }
+
+    private void evict(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            log.warn("Failed to evict loan stats cache {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static UserLoanStats empty(Long userId) {
+        UserLoanStats stats = new UserLoanStats();
+        stats.setUserId(userId);
+        stats.setActiveLoans(0);
+        stats.setOverdueCount(0);
+        stats.setFineAmount(BigDecimal.ZERO);
+        return stats;
+    }
+
+    private static LoanSummary summary(int activeLoans, int overdueLoans, int lateReturns, BigDecimal finesAccrued,
+                                       UserRole role) {
+        LoanSummary summary = new LoanSummary();
+        summary.setActiveLoans(activeLoans);
+        summary.setMaxLoans(role.getMaxLoans());
+        summary.setOverdueLoans(overdueLoans);
+        summary.setLateReturns(lateReturns);
+        summary.setFinesAccrued(finesAccrued);
+        return summary;
+    }
+
+    private static class Batch {
+        final long lastUserId;
+        final int size;
+        final int corrected;
+
+        Batch(long lastUserId, int size, int corrected) {
+            this.lastUserId = lastUserId;
+            this.size = size;
+            this.corrected = corrected;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.library.service.impl;
+
+import com.library.dto.BookRecommendation;
+import com.library.event.BookBorrowedEvent;
+import com.library.service.RecommendationService;
+import com.library.shard.BorrowRecordShards;
+import com.library.utils.LongIntHashMap;
+import com.library.utils.SparseCooccurrenceMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * “借过这本书的读者还借过”：基于借阅历史的物品共现模型。
+ * 同一读者借过的每两本不同的书计一次共现，相似度为 cooccur(a, b) / sqrt(readers(a) * readers(b))。
+ * 模型的所有写入（增量更新与全量重建）都在单线程执行器上串行进行，读取只需持有读锁。
+ */
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationServiceImpl.class);
+
+    // 借阅日期在重建开始前这段时间内的记录，增量事件可能在重建完成后才处理，按记录 ID 与快照去重
+    private static final long SNAPSHOT_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Value("${library.recommendation.max-books-per-user:200}")
+    private int maxBooksPerUser;
+
+    @Value("${library.recommendation.max-limit:50}")
+    private int maxLimit;
+
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recommendation-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile SparseCooccurrenceMatrix matrix = new SparseCooccurrenceMatrix();
+
+    // 最近一次重建快照中包含的近期借阅记录 ID，这些记录的增量事件已计入快照。
+    // 分库后记录 ID 按号段分配，不能用最大 ID 作为水位线
+    private volatile Set<Long> snapshotRecordIds = Collections.emptySet();
+
+    @Override
+    public List<BookRecommendation> getSimilarBooks(Long bookId, int limit) {
+        int k = Math.max(1, Math.min(limit, maxLimit));
+        long[] ids = new long[k];
+        double[] scores = new double[k];
+        int[] counts = new int[k];
+        int size;
+
+        lock.readLock().lock();
+        try {
+            SparseCooccurrenceMatrix current = matrix;
+            LongIntHashMap row = current.getRow(bookId);
+            if (row == null) {
+                return new ArrayList<>();
+            }
+            double base = current.itemCount(bookId);
+            TopK topK = new TopK(ids, scores, counts);
+            row.forEach((other, count) -> {
+                double score = count / Math.sqrt(base * Math.max(1, current.itemCount(other)));
+                topK.offer(other, score, count);
+            });
+            size = topK.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        List<BookRecommendation> result = new ArrayList<>(size);
+        for (int i : order) {
+            BookRecommendation recommendation = new BookRecommendation();
+            recommendation.setBookId(ids[i]);
+            recommendation.setScore(scores[i]);
+            recommendation.setCoBorrowCount(counts[i]);
+            result.add(recommendation);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        updateExecutor.execute(() -> {
+            try {
+                applyBorrow(event);
+            } catch (Exception e) {
+                log.warn("Failed to update recommendation model for record {}", event.getRecordId(), e);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        updateExecutor.execute(this::doRebuild);
+    }
+
+    @Override
+    @Scheduled(cron = "${library.recommendation.rebuild-cron:0 0 4 * * ?}")
+    public void rebuild() {
+        updateExecutor.execute(this::doRebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updateExecutor.shutdownNow();
+    }
+
+    private void applyBorrow(BookBorrowedEvent event) {
+        if (snapshotRecordIds.contains(event.getRecordId())) {
+            return;
+        }
+        // 只与该读者在这条记录之前借过的书计共现，之后借的书由它们自己的事件计入，同一对书不会重复计数
+        List<Long> previous = shards.on(shards.shardOfUser(event.getUserId()),
+                mapper -> mapper.selectBorrowedBookIdsBefore(event.getUserId(), event.getRecordId()));
+        long bookId = event.getBookId();
+        if (previous.contains(bookId)) {
+            return;
+        }
+
+        int limit = Math.min(previous.size(), maxBooksPerUser);
+        lock.writeLock().lock();
+        try {
+            SparseCooccurrenceMatrix current = matrix;
+            current.addItem(bookId);
+            for (int i = 0; i < limit; i++) {
+                current.addPair(bookId, previous.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doRebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            Timestamp recentSince = new Timestamp(start - SNAPSHOT_OVERLAP_MILLIS);
+
+            // 同一读者的记录都在同一个分片，逐个分片按 user_id 顺序追加后仍按读者连续排列
+            UserBookPairs pairs = new UserBookPairs();
+            Set<Long> recordIds = new HashSet<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                loadPairs(new JdbcTemplate(shards.dataSource(shard)), recentSince, pairs, recordIds);
+            }
+            SparseCooccurrenceMatrix rebuilt = buildParallel(pairs);
+
+            lock.writeLock().lock();
+            try {
+                matrix = rebuilt;
+                snapshotRecordIds = recordIds;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Rebuilt recommendation model from {} user-book pairs ({} books) in {} ms",
+                    pairs.size, rebuilt.itemSize(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild recommendation model", e);
+        }
+    }
+
+    private void loadPairs(JdbcTemplate jdbcTemplate, Timestamp recentSince, UserBookPairs pairs, Set<Long> recordIds) {
+        boolean mysql = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")));
+        // MySQL 驱动需要 Integer.MIN_VALUE 才会逐行流式读取，避免一次性载入全部结果
+        jdbcTemplate.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+
+        // 借阅对与近期记录 ID 由同一条语句读出，属于同一个一致性读视图
+        long[] last = {-1, -1};
+        jdbcTemplate.query(
+                "SELECT user_id, book_id, CASE WHEN borrow_date >= ? THEN id END AS recent_id FROM borrow_records " +
+                "UNION ALL SELECT user_id, book_id, NULL FROM borrow_records_archive ORDER BY user_id, book_id",
+                rs -> {
+                    long userId = rs.getLong(1);
+                    long bookId = rs.getLong(2);
+                    long recordId = rs.getLong(3);
+                    if (!rs.wasNull()) {
+                        recordIds.add(recordId);
+                    }
+                    // 同一读者多次借同一本书只计一次
+                    if (userId != last[0] || bookId != last[1]) {
+                        pairs.add(userId, bookId);
+                        last[0] = userId;
+                        last[1] = bookId;
+                    }
+                }, recentSince);
+    }
+
+    private SparseCooccurrenceMatrix buildParallel(UserBookPairs pairs) {
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), pairs.size / 10000 + 1));
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = pairs.size;
+        for (int i = 1; i < chunks; i++) {
+            // 分片边界对齐到读者切换处，保证同一读者的记录落在同一分片
+            int boundary = Math.max(bounds[i - 1], (int) ((long) pairs.size * i / chunks));
+            while (boundary > 0 && boundary < pairs.size && pairs.users[boundary] == pairs.users[boundary - 1]) {
+                boundary++;
+            }
+            bounds[i] = boundary;
+        }
+
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> buildRange(pairs, bounds[chunk], bounds[chunk + 1]))
+                .reduce((left, right) -> {
+                    left.mergeFrom(right);
+                    return left;
+                })
+                .orElseGet(SparseCooccurrenceMatrix::new);
+    }
+
+    private SparseCooccurrenceMatrix buildRange(UserBookPairs pairs, int from, int to) {
+        SparseCooccurrenceMatrix local = new SparseCooccurrenceMatrix();
+        int start = from;
+        while (start < to) {
+            int end = start;
+            while (end < to && pairs.users[end] == pairs.users[start]) {
+                end++;
+            }
+            int limit = Math.min(end, start + maxBooksPerUser);
+            for (int i = start; i < limit; i++) {
+                local.addItem(pairs.books[i]);
+                for (int j = i + 1; j < limit; j++) {
+                    local.addPair(pairs.books[i], pairs.books[j]);
+                }
+            }
+            start = end;
+        }
+        return local;
+    }
+
+    private static class UserBookPairs {
+        private long[] users = new long[1024];
+        private long[] books = new long[1024];
+        private int size;
+
+        private void add(long userId, long bookId) {
+            if (size == users.length) {
+                users = Arrays.copyOf(users, size << 1);
+                books = Arrays.copyOf(books, size << 1);
+            }
+            users[size] = userId;
+            books[size] = bookId;
+            size++;
+        }
+    }
+
+    // 固定容量的最小堆，堆顶为当前第 K 名
+    private static class TopK {
+        private final long[] ids;
+        private final double[] scores;
+        private final int[] counts;
+        private int size;
+
+        private TopK(long[] ids, double[] scores, int[] counts) {
+            this.ids = ids;
+            this.scores = scores;
+            this.counts = counts;
+        }
+
+        private void offer(long id, double score, int count) {
+            if (size < ids.length) {
+                set(size, id, score, count);
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                set(0, id, score, count);
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[parent] <= scores[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int left = 2 * index + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[index] <= scores[smallest]) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void set(int index, long id, double score, int count) {
+            ids[index] = id;
+            scores[index] = score;
+            counts[index] = count;
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            double score = scores[a];
+            int count = counts[a];
+            set(a, ids[b], scores[b], counts[b]);
+            set(b, id, score, count);
+        }
+    }
+}
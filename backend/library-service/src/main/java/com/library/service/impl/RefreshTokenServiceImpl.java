@@ -0,0 +1,113 @@
+package com.library.service.impl;
+
+import com.library.service.RefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 刷新令牌为随机串，Redis 中只保存其 SHA-256 摘要。每次刷新都会轮换令牌，
+ * 同一令牌族（一次登录派生的所有令牌）中已使用过的令牌再次出现时视为泄露，整个令牌族作废。
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+
+    private static final String TOKEN_KEY = "auth:refresh:token:";
+    private static final String FAMILY_KEY = "auth:refresh:family:";
+    private static final String USED_KEY = "auth:refresh:used:";
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private Long refreshExpiration;
+
+    @Override
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public Rotation rotate(String refreshToken) {
+        String hash = hash(refreshToken);
+        String value = redisTemplate.opsForValue().getAndDelete(TOKEN_KEY + hash);
+        if (value == null) {
+            String reusedFamily = redisTemplate.opsForValue().get(USED_KEY + hash);
+            if (reusedFamily != null) {
+                log.warn("Refresh token reuse detected, revoking token family {}", reusedFamily);
+                revokeFamily(reusedFamily);
+            }
+            throw new RuntimeException("刷新令牌无效或已过期");
+        }
+
+        int separator = value.indexOf(':');
+        Long userId = Long.valueOf(value.substring(0, separator));
+        String familyId = value.substring(separator + 1);
+
+        if (!hash.equals(redisTemplate.opsForValue().get(FAMILY_KEY + familyId))) {
+            revokeFamily(familyId);
+            throw new RuntimeException("刷新令牌无效或已过期");
+        }
+
+        redisTemplate.opsForValue().set(USED_KEY + hash, familyId, ttl());
+        return new Rotation(userId, issue(userId, familyId));
+    }
+
+    @Override
+    public void revoke(String refreshToken) {
+        if (!StringUtils.hasText(refreshToken)) {
+            return;
+        }
+        String value = redisTemplate.opsForValue().getAndDelete(TOKEN_KEY + hash(refreshToken));
+        if (value != null) {
+            revokeFamily(value.substring(value.indexOf(':') + 1));
+        }
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String hash = hash(token);
+
+        redisTemplate.opsForValue().set(TOKEN_KEY + hash, userId + ":" + familyId, ttl());
+        redisTemplate.opsForValue().set(FAMILY_KEY + familyId, hash, ttl());
+        return token;
+    }
+
+    private void revokeFamily(String familyId) {
+        String current = redisTemplate.opsForValue().getAndDelete(FAMILY_KEY + familyId);
+        if (current != null) {
+            redisTemplate.delete(TOKEN_KEY + current);
+        }
+    }
+
+    private Duration ttl() {
+        return Duration.ofMillis(refreshExpiration);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.library.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.library.dto.UserImportError;
+import com.library.dto.UserImportResult;
+import com.library.entity.User;
+import com.library.enums.UserRole;
+import com.library.service.UserImportService;
+import com.library.service.UserService;
+import com.library.utils.CsvUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 花名册批量导入。逐行读取文件，每 chunk-size 行为一块：一条 IN 查询检查整块的用户名、邮箱、学号是否已存在，
+ * 在独立的 ForkJoinPool 上并行计算 BCrypt，再用 saveBatch 走 JDBC 批量插入（MySQL 连接串需带 rewriteBatchedStatements）。
+ * 每块单独提交，中途失败时已导入的块保留，重新导入同一文件时这些行会按“已存在”跳过。
+ */
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportServiceImpl.class);
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${library.user-import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${library.user-import.max-rows:20000}")
+    private int maxRows;
+
+    @Value("${library.user-import.max-errors:200}")
+    private int maxErrors;
+
+    // 0 表示与 CPU 核数相同
+    @Value("${library.user-import.hash-parallelism:0}")
+    private int hashParallelism;
+
+    private ForkJoinPool hashPool;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors();
+        hashPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-hash-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    @Override
+    public UserImportResult importUsers(InputStream input, Charset charset) throws IOException {
+        long start = System.currentTimeMillis();
+        UserImportResult result = new UserImportResult();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, charset))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new RuntimeException("文件为空");
+            }
+            Map<String, Integer> columns = columns(header);
+            // 学号、用户名都是公开的，不能作为初始密码，每行必须给出密码
+            if (!columns.containsKey("username") || !columns.containsKey("realname") || !columns.containsKey("password")) {
+                throw new RuntimeException("表头缺少 username、realName 或 password 列");
+            }
+
+            // 文件内去重，用户名和邮箱与数据库排序规则一致按不区分大小写比较
+            Set<String> usernames = new HashSet<>();
+            Set<String> emails = new HashSet<>();
+            Set<String> studentIds = new HashSet<>();
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            int lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                if (result.getTotal() >= maxRows) {
+                    addError(result, lineNumber, null, "超过单次导入上限 " + maxRows + " 行，其余行未处理");
+                    break;
+                }
+                result.setTotal(result.getTotal() + 1);
+
+                Row row = parse(CsvUtils.parseLine(line), columns, lineNumber, result);
+                if (row == null) {
+                    continue;
+                }
+                User user = row.user;
+                String duplicate = !usernames.add(user.getUsername().toLowerCase(Locale.ROOT)) ? "文件中用户名重复"
+                        : user.getEmail() != null && !emails.add(user.getEmail().toLowerCase(Locale.ROOT)) ? "文件中邮箱重复"
+                        : user.getStudentId() != null && !studentIds.add(user.getStudentId()) ? "文件中学号重复" : null;
+                if (duplicate != null) {
+                    addError(result, lineNumber, user.getUsername(), duplicate);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, result);
+            }
+        }
+        log.info("User import finished in {} ms: {} rows, {} imported, {} failed",
+                System.currentTimeMillis() - start, result.getTotal(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private void importChunk(List<Row> chunk, UserImportResult result) {
+        List<Row> rows = withoutExisting(chunk, result);
+        if (rows.isEmpty()) {
+            return;
+        }
+        hashPasswords(rows);
+
+        List<User> users = rows.stream().map(row -> row.user).collect(Collectors.toList());
+        try {
+            userService.saveBatch(users, users.size());
+            result.setImported(result.getImported() + users.size());
+        } catch (DuplicateKeyException e) {
+            // 检查之后有人并发注册了同名用户，整块回滚后逐行插入，只跳过冲突的行
+            log.warn("Batch insert of {} users hit a duplicate key, retrying row by row", users.size());
+            for (Row row : rows) {
+                try {
+                    row.user.setId(null);
+                    userService.save(row.user);
+                    result.setImported(result.getImported() + 1);
+                } catch (DuplicateKeyException duplicate) {
+                    addError(result, row.line, row.user.getUsername(), "用户名或邮箱已存在");
+                }
+            }
+        }
+    }
+
+    // 整块一次查询，已存在的行记为错误
+    private List<Row> withoutExisting(List<Row> chunk, UserImportResult result) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> studentIds = new HashSet<>();
+        for (Row row : chunk) {
+            usernames.add(row.user.getUsername());
+            if (row.user.getEmail() != null) {
+                emails.add(row.user.getEmail());
+            }
+            if (row.user.getStudentId() != null) {
+                studentIds.add(row.user.getStudentId());
+            }
+        }
+
+        LambdaQueryWrapper<User> queryWrapper = new QueryWrapper<User>().select("username", "email", "student_id").lambda();
+        queryWrapper.in(User::getUsername, usernames);
+        if (!emails.isEmpty()) {
+            queryWrapper.or().in(User::getEmail, emails);
+        }
+        if (!studentIds.isEmpty()) {
+            queryWrapper.or().in(User::getStudentId, studentIds);
+        }
+
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        Set<String> existingStudentIds = new HashSet<>();
+        for (User existing : userService.list(queryWrapper)) {
+            existingUsernames.add(existing.getUsername().toLowerCase(Locale.ROOT));
+            if (existing.getEmail() != null) {
+                existingEmails.add(existing.getEmail().toLowerCase(Locale.ROOT));
+            }
+            if (existing.getStudentId() != null) {
+                existingStudentIds.add(existing.getStudentId());
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            User user = row.user;
+            if (existingUsernames.contains(user.getUsername().toLowerCase(Locale.ROOT))) {
+                addError(result, row.line, user.getUsername(), "用户名已存在");
+            } else if (user.getEmail() != null && existingEmails.contains(user.getEmail().toLowerCase(Locale.ROOT))) {
+                addError(result, row.line, user.getUsername(), "邮箱已存在");
+            } else if (user.getStudentId() != null && existingStudentIds.contains(user.getStudentId())) {
+                addError(result, row.line, user.getUsername(), "学号已存在");
+            } else {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // BCrypt 每次几十毫秒，是导入的主要耗时；在专用池中并行，不占用公共 ForkJoinPool
+    private void hashPasswords(List<Row> rows) {
+        try {
+            hashPool.submit(() -> rows.parallelStream()
+                    .forEach(row -> row.user.setPassword(passwordEncoder.encode(row.rawPassword)))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("导入已中断");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("密码加密失败", e.getCause());
+        }
+    }
+
+    private Row parse(List<String> fields, Map<String, Integer> columns, int lineNumber, UserImportResult result) {
+        String username = field(fields, columns, "username");
+        if (username == null) {
+            addError(result, lineNumber, null, "用户名不能为空");
+            return null;
+        }
+        String realName = field(fields, columns, "realname");
+        String email = field(fields, columns, "email");
+        String phone = field(fields, columns, "phone");
+        String studentId = field(fields, columns, "studentid");
+        String password = field(fields, columns, "password");
+        String role = field(fields, columns, "role");
+
+        String error = realName == null ? "真实姓名不能为空"
+                : username.length() > 50 || realName.length() > 50 ? "用户名或姓名过长"
+                : email != null && (email.length() > 100 || !EMAIL.matcher(email).matches()) ? "邮箱格式不正确"
+                : phone != null && phone.length() > 20 ? "手机号过长"
+                : studentId != null && studentId.length() > 20 ? "学号过长"
+                : password == null ? "密码不能为空"
+                : password.equals(studentId) || password.equalsIgnoreCase(username) ? "密码不能与学号或用户名相同" : null;
+        UserRole userRole = UserRole.STUDENT;
+        if (error == null && role != null) {
+            try {
+                userRole = UserRole.valueOf(role.toUpperCase(Locale.ROOT));
+                if (userRole == UserRole.ADMIN) {
+                    error = "不能批量导入管理员";
+                }
+            } catch (IllegalArgumentException e) {
+                error = "角色无效：" + role;
+            }
+        }
+        if (error != null) {
+            addError(result, lineNumber, username, error);
+            return null;
+        }
+
+        User user = new User();
+        user.setUsername(username);
+        user.setRealName(realName);
+        user.setEmail(email);
+        user.setPhone(phone);
+        user.setStudentId(studentId);
+        user.setRole(userRole);
+        user.setStatus(1);
+        return new Row(lineNumber, user, password);
+    }
+
+    private void addError(UserImportResult result, int line, String username, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            UserImportError error = new UserImportError();
+            error.setLine(line);
+            error.setUsername(username);
+            error.setMessage(message);
+            result.getErrors().add(error);
+        }
+    }
+
+    // 列名不区分大小写，忽略下划线，real_name 与 realName 等价；去掉 Excel 导出时带的 BOM
+    private static Map<String, Integer> columns(String header) {
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = CsvUtils.parseLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    private static class Row {
+        private final int line;
+        private final User user;
+        private final String rawPassword;
+
+        Row(int line, User user, String rawPassword) {
+            this.line = line;
+            this.user = user;
+            this.rawPassword = rawPassword;
+        }
+    }
+}
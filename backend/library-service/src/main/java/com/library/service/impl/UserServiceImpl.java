@@ -1,34 +1,59 @@
 package com.library.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.library.dto.BatchUserStatusRequest;
 import com.library.dto.LoginRequest;
 import com.library.dto.LoginResponse;
 import com.library.dto.RegisterRequest;
 import com.library.entity.User;
+import com.library.enums.UserRole;
+import com.library.limit.ConcurrencyLimited;
+import com.library.limit.Priority;
 import com.library.mapper.UserMapper;
+import com.library.security.TokenRevocationService;
+import com.library.service.RefreshTokenService;
 import com.library.service.UserService;
 import com.library.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
+@ConcurrencyLimited
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    private static final int STATUS_UPDATE_CHUNK = 1000;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Override
+    @ConcurrencyLimited(enabled = false)
     public LoginResponse login(LoginRequest loginRequest) {
         LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(User::getUsername, loginRequest.getUsername())
@@ -43,10 +68,47 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new RuntimeException("用户名或密码错误");
         }
 
+        return buildLoginResponse(user, refreshTokenService.issue(user.getId()));
+    }
+
+    @Override
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+
+        User user = this.getById(rotation.getUserId());
+        if (user == null || user.getStatus() != 1) {
+            refreshTokenService.revoke(rotation.getRefreshToken());
+            throw new RuntimeException("用户不存在或已被禁用");
+        }
+
+        return buildLoginResponse(user, rotation.getRefreshToken());
+    }
+
+    @Override
+    public void logout(String refreshToken, String accessToken) {
+        refreshTokenService.revoke(refreshToken);
+        if (StringUtils.hasText(accessToken)) {
+            try {
+                Claims claims = jwtUtils.parseToken(accessToken);
+                tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException ignored) {
+                // 已过期或无效的令牌无需吊销
+            }
+        }
+    }
+
+    @Override
+    public void revokeUserTokens(Long userId) {
+        tokenRevocationService.revokeUser(userId);
+    }
+
+    private LoginResponse buildLoginResponse(User user, String refreshToken) {
         String token = jwtUtils.generateToken(user.getUsername(), user.getRole().name(), user.getId());
 
         LoginResponse response = new LoginResponse();
         response.setToken(token);
+        response.setRefreshToken(refreshToken);
+        response.setExpiresIn(jwtUtils.getExpiration() / 1000);
         response.setUsername(user.getUsername());
         response.setRole(user.getRole().name());
         response.setRealName(user.getRealName());
@@ -55,6 +117,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
+    @ConcurrencyLimited(enabled = false)
     public User register(RegisterRequest registerRequest) {
         LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(User::getUsername, registerRequest.getUsername());
@@ -99,6 +162,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
+    @ConcurrencyLimited(Priority.SHEDDABLE)
     public IPage<User> getUsersPage(int page, int size, String keyword) {
         Page<User> pageObj = new Page<>(page, size);
         LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
@@ -128,7 +192,53 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         
         user.setStatus(status);
         this.updateById(user);
+        if (status == 0) {
+            tokenRevocationService.revokeUser(userId);
+        }
         user.setPassword(null);
         return user;
     }
+
+    @Override
+    @Transactional
+    @ConcurrencyLimited(enabled = false)
+    public int updateUsersStatus(BatchUserStatusRequest request) {
+        Integer status = request.getStatus();
+        if (status != 0 && status != 1) {
+            throw new RuntimeException("状态值无效");
+        }
+
+        // 批量操作不涉及管理员账户，避免误停用后无人可以登录管理
+        LambdaQueryWrapper<User> queryWrapper = new QueryWrapper<User>().select("id").lambda();
+        queryWrapper.ne(User::getRole, UserRole.ADMIN)
+                .ne(User::getStatus, status);
+        if (!CollectionUtils.isEmpty(request.getUserIds())) {
+            queryWrapper.in(User::getId, request.getUserIds());
+        } else if (StringUtils.hasText(request.getStudentIdPrefix())) {
+            queryWrapper.eq(User::getRole, UserRole.STUDENT)
+                    .likeRight(User::getStudentId, request.getStudentIdPrefix().trim());
+        } else {
+            throw new RuntimeException("请指定用户ID或学号前缀");
+        }
+        List<Long> userIds = this.listObjs(queryWrapper, id -> ((Number) id).longValue());
+
+        for (int from = 0; from < userIds.size(); from += STATUS_UPDATE_CHUNK) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + STATUS_UPDATE_CHUNK, userIds.size()));
+            LambdaUpdateWrapper<User> updateWrapper = new LambdaUpdateWrapper<>();
+            updateWrapper.set(User::getStatus, status).in(User::getId, chunk);
+            this.update(updateWrapper);
+        }
+        if (status == 0) {
+            tokenRevocationService.revokeUsers(userIds);
+        }
+        return userIds.size();
+    }
+
+    // 批量导入按块调用，单次耗时是普通查询的几十倍
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    @ConcurrencyLimited(enabled = false)
+    public boolean saveBatch(Collection<User> entityList, int batchSize) {
+        return super.saveBatch(entityList, batchSize);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,374 @@
+package com.library.shard;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.library.entity.BorrowRecord;
+import com.library.mapper.BorrowRecordMapper;
+import com.library.trace.SqlTracingInterceptor;
+import com.library.trace.Tracer;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.flywaydb.core.Flyway;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 借阅记录按 user_id 分库。配置 library.sharding.urls 后，borrow_records 与 borrow_records_archive 存放在这些库中，
+ * 用户、图书等其余表仍在主库；未配置时只有一个分片即主库本身，读写都走原来的 mapper 和事务，与分库前完全一致。
+ * <p>
+ * 用户所在分片为 (user_id % 1024) % 分片数。分库后新记录的 ID 为 序号 * 1024 + user_id % 1024，序号由主库
+ * id_sequences 表按号段分配，全局唯一，只凭记录 ID 也能算出所在分片，且不超出前端 JavaScript 的安全整数范围。
+ */
+@Component
+public class BorrowRecordShards {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowRecordShards.class);
+
+    public static final int GENE_MODULUS = 1024;
+
+    private static final String SEQUENCE_NAME = "borrow_records";
+
+    @Autowired
+    private BorrowRecordMapper primaryMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MybatisPlusInterceptor mybatisPlusInterceptor;
+
+    @Autowired
+    private MetaObjectHandler metaObjectHandler;
+
+    @Autowired
+    private SqlTracingInterceptor sqlTracingInterceptor;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${library.sharding.urls:}")
+    private String[] urls;
+
+    @Value("${library.sharding.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${library.sharding.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${spring.datasource.driver-class-name:}")
+    private String driverClassName;
+
+    @Value("${spring.datasource.druid.max-active:20}")
+    private int maxActive;
+
+    @Value("${spring.datasource.druid.min-idle:5}")
+    private int minIdle;
+
+    @Value("${spring.datasource.druid.max-wait:60000}")
+    private long maxWait;
+
+    // 启用 Flyway 时用 db/shard 下的迁移脚本初始化各分片，否则执行这里配置的建表脚本
+    @Value("${spring.flyway.enabled:true}")
+    private boolean flywayEnabled;
+
+    @Value("${library.sharding.schema-locations:}")
+    private String[] schemaLocations;
+
+    @Value("${library.sharding.id-step:1000}")
+    private int idStep;
+
+    @Value("${library.sharding.scatter-threads:8}")
+    private int scatterThreads;
+
+    private final List<DruidDataSource> shardDataSources = new ArrayList<>();
+
+    private final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+
+    private BorrowRecordMapper shardMapper;
+
+    private TransactionTemplate primaryTransactionTemplate;
+
+    private TransactionTemplate shardTransactionTemplate;
+
+    private TransactionTemplate sequenceTransactionTemplate;
+
+    private ExecutorService scatterExecutor;
+
+    private long nextSequence;
+
+    private long sequenceEnd;
+
+    @PostConstruct
+    public void init() throws Exception {
+        primaryTransactionTemplate = new TransactionTemplate(transactionManager);
+        if (urls.length == 0) {
+            return;
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            DruidDataSource shard = createDataSource(i, urls[i].trim());
+            initSchema(shard);
+            shardDataSources.add(shard);
+            targets.put(i, shard);
+        }
+
+        // 分片由当前线程上的 currentShard 决定，未指定分片时直接报错，避免写错库
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return currentShard.get();
+            }
+        };
+        routing.setTargetDataSources(targets);
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+
+        shardMapper = createMapper(routing);
+        shardTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        sequenceTransactionTemplate = new TransactionTemplate(transactionManager);
+        sequenceTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger sequence = new AtomicInteger();
+        scatterExecutor = Executors.newFixedThreadPool(Math.max(urls.length, scatterThreads), runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Borrow records sharded across {} databases", urls.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+        shardDataSources.forEach(DruidDataSource::close);
+    }
+
+    public boolean isSharded() {
+        return !shardDataSources.isEmpty();
+    }
+
+    public int size() {
+        return isSharded() ? shardDataSources.size() : 1;
+    }
+
+    public int shardOfUser(Long userId) {
+        return Math.floorMod(userId, GENE_MODULUS) % size();
+    }
+
+    /**
+     * 按记录 ID 中的基因定位分片。分库前生成的记录没有基因，调用方在该分片查不到时应再查其他分片。
+     */
+    public int shardOfRecord(Long recordId) {
+        return Math.floorMod(recordId, GENE_MODULUS) % size();
+    }
+
+    public DataSource dataSource(int shard) {
+        return isSharded() ? shardDataSources.get(shard) : dataSource;
+    }
+
+    /**
+     * 在指定分片上执行。未分库时直接使用主库 mapper，参与调用方已有的事务。
+     */
+    public <T> T on(int shard, Function<BorrowRecordMapper, T> action) {
+        if (!isSharded()) {
+            return action.apply(primaryMapper);
+        }
+        Integer previous = currentShard.get();
+        currentShard.set(shard);
+        try {
+            return action.apply(shardMapper);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在指定分片的本地事务中执行，用于需要原子性的批量操作（如归档）。
+     */
+    public <T> T inTransaction(int shard, Function<BorrowRecordMapper, T> action) {
+        if (!isSharded()) {
+            return primaryTransactionTemplate.execute(status -> action.apply(primaryMapper));
+        }
+        Integer previous = currentShard.get();
+        currentShard.set(shard);
+        try {
+            return shardTransactionTemplate.execute(status -> action.apply(shardMapper));
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在所有分片上并行执行，按分片顺序返回结果。
+     */
+    public <T> List<T> scatter(Function<BorrowRecordMapper, T> action) {
+        if (!isSharded()) {
+            return Collections.singletonList(action.apply(primaryMapper));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(tracer.wrap(() -> on(shard, action)), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 写入新记录。分库时记录与主库的库存扣减不在同一个事务里：先写分片，主库事务没有提交成功时再删除这条记录；
+     * 进程恰好在两者之间退出会留下一条库存未扣减的记录。
+     */
+    public void insert(BorrowRecord record) {
+        if (!isSharded()) {
+            primaryMapper.insert(record);
+            return;
+        }
+        record.setId(nextId(record.getUserId()));
+        int shard = shardOfUser(record.getUserId());
+        on(shard, mapper -> mapper.insert(record));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        on(shard, mapper -> mapper.deleteById(record.getId()));
+                    }
+                }
+            });
+        }
+    }
+
+    private long nextId(Long userId) {
+        return nextSequence() * GENE_MODULUS + Math.floorMod(userId, GENE_MODULUS);
+    }
+
+    // 号段在独立事务中分配，行锁保证多个实例拿到的号段互不重叠，调用方事务回滚也不会回收号段
+    private synchronized long nextSequence() {
+        if (nextSequence >= sequenceEnd) {
+            Long end = sequenceTransactionTemplate.execute(status -> {
+                jdbcTemplate.update("UPDATE id_sequences SET next_value = next_value + ? WHERE name = ?",
+                        idStep, SEQUENCE_NAME);
+                return jdbcTemplate.queryForObject("SELECT next_value FROM id_sequences WHERE name = ?",
+                        Long.class, SEQUENCE_NAME);
+            });
+            sequenceEnd = end;
+            nextSequence = end - idStep;
+        }
+        return nextSequence++;
+    }
+
+    private void restore(Integer previous) {
+        if (previous == null) {
+            currentShard.remove();
+        } else {
+            currentShard.set(previous);
+        }
+    }
+
+    private DruidDataSource createDataSource(int index, String url) throws Exception {
+        DruidDataSource shard = new DruidDataSource();
+        shard.setName("borrow-shard-" + index);
+        shard.setUrl(url);
+        shard.setUsername(username);
+        shard.setPassword(password);
+        if (!driverClassName.isEmpty()) {
+            shard.setDriverClassName(driverClassName);
+        }
+        shard.setMaxActive(maxActive);
+        shard.setMinIdle(Math.min(minIdle, maxActive));
+        shard.setMaxWait(maxWait);
+        shard.setValidationQuery("SELECT 1");
+        shard.setTestWhileIdle(true);
+        shard.init();
+        return shard;
+    }
+
+    // 迁移历史记在单独的表中，把主库本身列为一个分片时不会与主库的迁移记录冲突
+    private void initSchema(DataSource shard) {
+        if (flywayEnabled) {
+            Flyway.configure()
+                    .dataSource(shard)
+                    .locations("classpath:db/shard")
+                    .table("flyway_shard_history")
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+        } else if (schemaLocations.length > 0) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+            DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+            for (String location : schemaLocations) {
+                populator.addScript(resourceLoader.getResource(location.trim()));
+            }
+            populator.execute(shard);
+        }
+    }
+
+    // 与主库 mapper 配置一致：下划线转驼峰、分页插件、SQL 追踪、创建/更新时间自动填充
+    private BorrowRecordMapper createMapper(DataSource routing) throws Exception {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setCacheEnabled(false);
+
+        GlobalConfig globalConfig = new GlobalConfig();
+        globalConfig.setBanner(false);
+        globalConfig.setMetaObjectHandler(metaObjectHandler);
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(routing);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setGlobalConfig(globalConfig);
+        factoryBean.setPlugins(mybatisPlusInterceptor, sqlTracingInterceptor);
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        sqlSessionFactory.getConfiguration().addMapper(BorrowRecordMapper.class);
+        return new SqlSessionTemplate(sqlSessionFactory).getMapper(BorrowRecordMapper.class);
+    }
+}
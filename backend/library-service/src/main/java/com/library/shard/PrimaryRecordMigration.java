@@ -0,0 +1,181 @@
+package com.library.shard;
+
+import com.library.mapper.BorrowRecordMapper;
+import com.library.service.BorrowArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 分库上线时把主库中已有的借阅记录（含归档表）搬到各用户所在的分片，记录沿用原 ID。
+ * library.sharding.migrate-primary 为 true 时在启动阶段、预热之前同步执行，搬完之前实例不会就绪。
+ * <p>
+ * 每批在主库事务中按 ID 顺序锁定一批记录，写入目标分片后从主库删除再提交，多个实例同时启动时后到的实例等锁释放后
+ * 只会看到剩余的记录。写分片和删主库不在同一个事务里，中途退出时两边各有一份，再次执行时跳过分片上已有的 ID，
+ * 只删除主库中的那份，因此可以重复执行。
+ */
+@Component
+@Order(0)
+public class PrimaryRecordMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PrimaryRecordMigration.class);
+
+    private static final String ARCHIVE_COLUMNS = BorrowRecordMapper.COLUMNS + ", archive_time";
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${library.sharding.migrate-primary:false}")
+    private boolean enabled;
+
+    @Value("${library.sharding.migrate-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        if (!shards.isSharded()) {
+            log.warn("library.sharding.migrate-primary is set but library.sharding.urls is empty, nothing to migrate");
+            return;
+        }
+        migrate();
+    }
+
+    public int migrate() {
+        Set<Integer> inPlace = primaryShards();
+        int records = migrateTable("borrow_records", BorrowRecordMapper.COLUMNS, inPlace);
+        int archived = migrateTable("borrow_records_archive", ARCHIVE_COLUMNS, inPlace);
+        if (archived > 0) {
+            // 归档表的统计缓存按分片保存，换一个批次号让它们失效
+            try {
+                redisTemplate.opsForValue().increment(BorrowArchiveService.GENERATION_KEY);
+            } catch (Exception e) {
+                log.warn("Failed to bump borrow archive generation: {}", e.getMessage());
+            }
+        }
+        log.info("Moved {} borrow records and {} archived records from the primary database to shards", records, archived);
+        return records + archived;
+    }
+
+    private int migrateTable(String table, String columns, Set<Integer> inPlace) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            Batch batch = transactionTemplate.execute(status -> moveBatch(table, columns, from, inPlace));
+            if (batch == null) {
+                return total;
+            }
+            total += batch.moved;
+            afterId = batch.lastId;
+            log.debug("Moved {} rows of {} up to id {}", total, table, afterId);
+        }
+    }
+
+    private Batch moveBatch(String table, String columns, long afterId, Set<Integer> inPlace) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT " + columns + " FROM " + table + " WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE",
+                afterId, batchSize);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<Integer, List<Map<String, Object>>> byShard = new TreeMap<>();
+        for (Map<String, Object> row : rows) {
+            int shard = shards.shardOfUser(((Number) row.get("user_id")).longValue());
+            if (!inPlace.contains(shard)) {
+                byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<Long> moved = new ArrayList<>();
+        for (Map.Entry<Integer, List<Map<String, Object>>> entry : byShard.entrySet()) {
+            moved.addAll(copy(entry.getKey(), table, columns, entry.getValue()));
+        }
+        if (!moved.isEmpty()) {
+            new NamedParameterJdbcTemplate(jdbcTemplate).update("DELETE FROM " + table + " WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", moved));
+        }
+        long lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        return new Batch(lastId, moved.size());
+    }
+
+    // 分片上已有的 ID 是上次中断时写入的同一条记录，不再重复写入
+    private List<Long> copy(int shard, String table, String columns, List<Map<String, Object>> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        NamedParameterJdbcTemplate target = new NamedParameterJdbcTemplate(shards.dataSource(shard));
+        Set<Long> existing = new HashSet<>(target.queryForList("SELECT id FROM " + table + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class));
+
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            if (!existing.contains(((Number) row.get("id")).longValue())) {
+                values.add(row.values().toArray());
+            }
+        }
+        if (!values.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(columns.split(",").length, "?"));
+            target.getJdbcTemplate().batchUpdate(
+                    "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")", values);
+        }
+        return ids;
+    }
+
+    // 主库本身也列为分片时，该分片上的记录已在原处，不能搬走后再删除；只有主库上有 id_sequences 表
+    private Set<Integer> primaryShards() {
+        Set<Integer> primary = new HashSet<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            try {
+                new JdbcTemplate(shards.dataSource(shard)).queryForObject("SELECT COUNT(*) FROM id_sequences", Long.class);
+                primary.add(shard);
+            } catch (DataAccessException e) {
+                log.debug("Shard {} has no id_sequences table, treating it as a separate database", shard);
+            }
+        }
+        return primary;
+    }
+
+    private static class Batch {
+        private final long lastId;
+        private final int moved;
+
+        private Batch(long lastId, int moved) {
+            this.lastId = lastId;
+            this.moved = moved;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.startup;
+
+import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * faststart 配置下开启全局懒加载，只有第一次用到的 Bean 才会创建。
+ * 定时任务、事件监听、Redis 订阅、生命周期组件和 Dubbo 服务不能等到被注入时才创建，排除在懒加载之外。
+ */
+@Configuration
+@Profile("faststart")
+public class FastStartupConfig {
+
+    // static：在 BeanFactoryPostProcessor 阶段就要用到
+    @Bean
+    public static LazyInitializationExcludeFilter eagerInfrastructureFilter() {
+        return (beanName, definition, beanType) -> beanType != null && mustBeEager(beanType);
+    }
+
+    private static boolean mustBeEager(Class<?> beanType) {
+        if (Lifecycle.class.isAssignableFrom(beanType) || MessageListener.class.isAssignableFrom(beanType)
+                || AnnotatedElementUtils.hasAnnotation(beanType, DubboService.class)) {
+            return true;
+        }
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType, method -> found.set(true), FastStartupConfig::isTriggered);
+        return found.get();
+    }
+
+    private static boolean isTriggered(Method method) {
+        return AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                || AnnotatedElementUtils.hasAnnotation(method, EventListener.class);
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 构建镜像时的训练运行：启动完成后立即退出，JVM 据此记录启动过程中加载的类，生成 CDS 归档。
+ */
+@Component
+@ConditionalOnProperty(name = "library.startup.exit-on-ready", havingValue = "true")
+public class TrainingRunExit {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingRunExit.class);
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    // 先于其他就绪监听执行：训练运行时没有 Redis 和数据库，不启动订阅与索引重建
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void exit() {
+        log.info("Training run finished, exiting");
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
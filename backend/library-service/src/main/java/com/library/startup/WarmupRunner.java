@@ -0,0 +1,204 @@
+package com.library.startup;
+
+import com.library.cache.BookETagCache;
+import com.library.cache.BookJsonCache;
+import com.library.entity.Book;
+import com.library.enums.BookStatus;
+import com.library.service.BookService;
+import com.library.service.BookSuggestService;
+import com.library.service.BorrowService;
+import com.library.shard.BorrowRecordShards;
+import com.library.utils.JwtUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 启动预热。作为 ApplicationRunner 在上下文刷新之后、ApplicationReadyEvent 之前同步执行，Spring Boot 要等所有 runner
+ * 返回后才把就绪状态切换为 ACCEPTING_TRAFFIC，因此预热期间 /actuator/health/readiness 返回 503，k8s 不会把流量转给该实例。
+ * 预热依次建立连接池的空闲连接、缓存热门图书的 ETag 和响应体、调用 JWT 签发解析，再把联想和借阅记录映射各走一遍，
+ * 让这些路径在真实请求到来前完成类加载。数据库是所有副本共用的，滚动发布时每个新实例都会预热一次，
+ * 因此只执行走主键或索引的查询，各一次，不做 LIKE 搜索、分类分页等扫描型查询。任何一步失败或超出时间预算都只记录日志，不阻止启动。
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "library.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookSuggestService bookSuggestService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private BookETagCache bookETagCache;
+
+    @Autowired
+    private BookJsonCache bookJsonCache;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Value("${library.warmup.max-duration:30000}")
+    private long maxDuration;
+
+    // 默认补足到连接池的 min-idle，faststart 下 initial-size 为 0，这一步尤其必要
+    @Value("${library.warmup.connections:${spring.datasource.druid.min-idle:5}}")
+    private int connections;
+
+    @Value("${library.warmup.hot-books:50}")
+    private int hotBookLimit;
+
+    @Value("${library.warmup.jwt-iterations:2000}")
+    private int jwtIterations;
+
+    private volatile double durationMillis = Double.NaN;
+
+    @Autowired
+    public WarmupRunner(MeterRegistry meterRegistry) {
+        Gauge.builder("library.warmup.duration", this, runner -> runner.durationMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        long deadline = start + maxDuration;
+        List<Book> hotBooks = new ArrayList<>();
+
+        step("connection pool", deadline, this::fillPool);
+        step("hot books", deadline, () -> hotBooks.addAll(loadHotBooks()));
+        step("jwt", deadline, this::exerciseJwt);
+        step("request paths", deadline, () -> exerciseRequestPaths(hotBooks));
+
+        long elapsed = System.currentTimeMillis() - start;
+        durationMillis = elapsed;
+        log.info("Warm-up finished in {} ms: {} hot books{}", elapsed, hotBooks.size(),
+                elapsed >= maxDuration ? " (time budget exhausted)" : "");
+    }
+
+    private void step(String name, long deadline, WarmupStep action) {
+        if (System.currentTimeMillis() >= deadline) {
+            log.warn("Warm-up step '{}' skipped, time budget exhausted", name);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            action.run();
+            log.debug("Warm-up step '{}' took {} ms", name, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Warm-up step '{}' failed: {}", name, e.getMessage());
+        }
+    }
+
+    // 同时持有多个连接迫使连接池建立物理连接，归还后留在池中作为空闲连接
+    private void fillPool() throws Exception {
+        List<Connection> held = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    // 当前在借最多的图书，走 idx_status_borrow_date，再按主键批量读取
+    private List<Book> loadHotBooks() throws IOException {
+        bookETagCache.refreshCatalogVersion();
+        long version = bookETagCache.currentVersion();
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (List<Long> shardHotIds : shards.scatter(mapper -> mapper.selectHotBookIds(hotBookLimit))) {
+            ids.addAll(shardHotIds);
+        }
+
+        List<Book> books = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return books;
+        }
+        for (Book book : bookService.listByIds(ids)) {
+            if (book.getStatus() != BookStatus.DELETED) {
+                bookJsonCache.put(book, bookETagCache.cacheBookETag(book, version));
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    private void exerciseJwt() {
+        for (int i = 0; i < jwtIterations; i++) {
+            String token = jwtUtils.generateToken("warmup", "STUDENT", 0L);
+            jwtUtils.parseToken(token);
+            jwtUtils.validateToken(token, "warmup");
+        }
+    }
+
+    // 联想只查本地索引（在本 runner 之前已建好）；借阅记录查询按用户走 idx_user_borrow_date，只查一次
+    private void exerciseRequestPaths(List<Book> hotBooks) {
+        for (String keyword : keywords(hotBooks)) {
+            bookSuggestService.suggest(keyword, 8);
+        }
+        if (!hotBooks.isEmpty()) {
+            bookService.getById(hotBooks.get(0).getId());
+        }
+        borrowService.findUserBorrowRecords(0L, 1, 10, null);
+    }
+
+    // 取热门书名的前两个字作为搜索词，与用户在搜索框中的输入相近
+    private static List<String> keywords(List<Book> hotBooks) {
+        Set<String> keywords = new LinkedHashSet<>();
+        for (Book book : hotBooks) {
+            if (keywords.size() >= 10) {
+                break;
+            }
+            String title = book.getTitle();
+            if (StringUtils.hasText(title)) {
+                keywords.add(title.trim().substring(0, Math.min(2, title.trim().length())));
+            }
+        }
+        return new ArrayList<>(keywords);
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.cache.BookETagCache;
+import com.library.dto.BookDelta;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookDeltaEvent;
+import com.library.mapper.BookMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 图书变更提交后递增目录版本号并发布到 Redis 频道，所有实例（包括本实例）收到后以 {@link BookDeltaEvent}
+ * 在本地分发给 SSE 连接、ETag 缓存等，这样无论请求落在哪个副本上都能看到变更。
+ */
+@Component
+public class BookDeltaBroadcaster implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BookDeltaBroadcaster.class);
+
+    private static final String CHANNEL = "library:book-delta";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        try {
+            Book book = event.getBook() != null ? event.getBook() : bookMapper.selectById(event.getBookId());
+            if (book == null) {
+                return;
+            }
+            BookDelta delta = toDelta(book);
+            delta.setCatalogVersion(redisTemplate.opsForValue().increment(BookETagCache.CATALOG_VERSION_KEY));
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(delta));
+        } catch (Exception e) {
+            log.warn("Failed to publish book delta for book {}", event.getBookId(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            eventPublisher.publishEvent(new BookDeltaEvent(objectMapper.readValue(message.getBody(), BookDelta.class)));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed book delta message", e);
+        }
+    }
+
+    private BookDelta toDelta(Book book) {
+        BookDelta delta = new BookDelta();
+        delta.setBookId(book.getId());
+        delta.setCategory(book.getCategory());
+        delta.setAvailableQuantity(book.getAvailableQuantity());
+        delta.setTotalQuantity(book.getTotalQuantity());
+        delta.setStatus(book.getStatus() == null ? null : book.getStatus().name());
+        delta.setUpdateTime(book.getUpdateTime());
+        return delta;
+    }
+}
@@ -0,0 +1,185 @@
+package com.library.stream;
+
+import com.library.dto.BookDelta;
+import com.library.event.BookDeltaEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本实例上的图书变更订阅。按 bookId、分类建立索引，分发时只触达相关连接；
+ * 实际写出在发送线程池上进行，慢客户端只会占住一个发送线程并在缓冲溢出后被断开。
+ */
+@Component
+public class BookStreamRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(BookStreamRegistry.class);
+
+    @Value("${library.stream.max-connections:2000}")
+    private int maxConnections;
+
+    @Value("${library.stream.max-pending:256}")
+    private int maxPending;
+
+    @Value("${library.stream.max-book-ids:500}")
+    private int maxBookIds;
+
+    @Value("${library.stream.timeout:1800000}")
+    private long timeout;
+
+    @Value("${library.stream.sender-threads:4}")
+    private int senderThreads;
+
+    private final Set<BookStreamSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<BookStreamSubscription>> byBook = new ConcurrentHashMap<>();
+    private final Map<String, Set<BookStreamSubscription>> byCategory = new ConcurrentHashMap<>();
+    private final Set<BookStreamSubscription> wildcard = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    // 每个连接同时最多有一个待执行的 flush，队列长度以连接数为上限
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "book-stream-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(subscription -> subscription.getEmitter().complete());
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Collection<Long> bookIds, Collection<String> categories) {
+        Set<Long> books = bookIds == null ? new HashSet<>() : new LinkedHashSet<>(bookIds);
+        Set<String> cats = categories == null ? new HashSet<>() : new LinkedHashSet<>(categories);
+        if (books.size() > maxBookIds) {
+            throw new RuntimeException("订阅的图书数量过多");
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new RuntimeException("实时连接数已达上限，请稍后重试");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout);
+        BookStreamSubscription subscription = new BookStreamSubscription(emitter, books, cats, maxPending);
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(() -> unregister(subscription));
+        emitter.onError(e -> unregister(subscription));
+
+        subscriptions.add(subscription);
+        if (subscription.isWildcard()) {
+            wildcard.add(subscription);
+        }
+        books.forEach(id -> addToIndex(byBook, id, subscription));
+        cats.forEach(category -> addToIndex(byCategory, category, subscription));
+
+        try {
+            emitter.send(SseEmitter.event().name("ready").data("ok"));
+        } catch (IOException e) {
+            unregister(subscription);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onBookDelta(BookDeltaEvent event) {
+        dispatch(event.getDelta());
+    }
+
+    public void dispatch(BookDelta delta) {
+        Set<BookStreamSubscription> targets = new HashSet<>(wildcard);
+        Set<BookStreamSubscription> forBook = byBook.get(delta.getBookId());
+        if (forBook != null) {
+            targets.addAll(forBook);
+        }
+        if (delta.getCategory() != null) {
+            Set<BookStreamSubscription> forCategory = byCategory.get(delta.getCategory());
+            if (forCategory != null) {
+                targets.addAll(forCategory);
+            }
+        }
+        for (BookStreamSubscription subscription : targets) {
+            if (subscription.offer(delta)) {
+                sender.execute(() -> flush(subscription));
+            } else if (subscription.isOverflowed()) {
+                log.debug("Closing slow book stream subscriber after buffer overflow");
+                subscription.getEmitter().complete();
+                unregister(subscription);
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    // 代理和负载均衡器通常会断开长时间无数据的连接，定期发送注释行保活，同时及时发现已断开的客户端
+    @Scheduled(fixedDelayString = "${library.stream.heartbeat-interval:25000}")
+    public void heartbeat() {
+        for (BookStreamSubscription subscription : subscriptions) {
+            if (subscription.requestHeartbeat()) {
+                sender.execute(() -> flush(subscription));
+            }
+        }
+    }
+
+    private void flush(BookStreamSubscription subscription) {
+        try {
+            subscription.flush();
+        } catch (IOException | IllegalStateException e) {
+            subscription.getEmitter().completeWithError(e);
+            unregister(subscription);
+        }
+    }
+
+    private void unregister(BookStreamSubscription subscription) {
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        connections.decrementAndGet();
+        wildcard.remove(subscription);
+        subscription.getBookIds().forEach(id -> removeFromIndex(byBook, id, subscription));
+        subscription.getCategories().forEach(category -> removeFromIndex(byCategory, category, subscription));
+    }
+
+    // 增删都在 compute 内完成，避免向刚被移除的空集合中添加
+    private static <K> void addToIndex(Map<K, Set<BookStreamSubscription>> index, K key,
+                                       BookStreamSubscription subscription) {
+        index.compute(key, (k, set) -> {
+            Set<BookStreamSubscription> target = set == null ? ConcurrentHashMap.newKeySet() : set;
+            target.add(subscription);
+            return target;
+        });
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<BookStreamSubscription>> index, K key,
+                                            BookStreamSubscription subscription) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
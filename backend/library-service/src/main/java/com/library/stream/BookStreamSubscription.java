@@ -0,0 +1,119 @@
+package com.library.stream;
+
+import com.library.dto.BookDelta;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单个 SSE 连接。待发送的变更按 bookId 合并，只保留每本书的最新状态；
+ * 合并后仍超过上限说明客户端消费太慢，由注册表断开连接，客户端重连后重新拉取即可。
+ */
+class BookStreamSubscription {
+
+    private final SseEmitter emitter;
+    private final Set<Long> bookIds;
+    private final Set<String> categories;
+    private final int maxPending;
+
+    private final Map<Long, BookDelta> pending = new LinkedHashMap<>();
+    private boolean heartbeat;
+    private boolean scheduled;
+    private boolean overflowed;
+
+    BookStreamSubscription(SseEmitter emitter, Set<Long> bookIds, Set<String> categories, int maxPending) {
+        this.emitter = emitter;
+        this.bookIds = Collections.unmodifiableSet(bookIds);
+        this.categories = Collections.unmodifiableSet(categories);
+        this.maxPending = maxPending;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    Set<Long> getBookIds() {
+        return bookIds;
+    }
+
+    Set<String> getCategories() {
+        return categories;
+    }
+
+    boolean isWildcard() {
+        return bookIds.isEmpty() && categories.isEmpty();
+    }
+
+    synchronized boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * 加入待发送队列，返回 true 表示调用方需要提交一次 {@link #flush()}。
+     */
+    synchronized boolean offer(BookDelta delta) {
+        if (overflowed) {
+            return false;
+        }
+        pending.remove(delta.getBookId());
+        pending.put(delta.getBookId(), delta);
+        if (pending.size() > maxPending) {
+            overflowed = true;
+            pending.clear();
+            return false;
+        }
+        return schedule();
+    }
+
+    synchronized boolean requestHeartbeat() {
+        if (overflowed) {
+            return false;
+        }
+        heartbeat = true;
+        return schedule();
+    }
+
+    private boolean schedule() {
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * 发送所有待发送内容。同一连接同一时刻只有一个线程在执行，发送期间到达的变更会在下一轮循环中发出。
+     */
+    void flush() throws IOException {
+        while (true) {
+            List<BookDelta> batch;
+            boolean ping;
+            synchronized (this) {
+                if (overflowed || (pending.isEmpty() && !heartbeat)) {
+                    scheduled = false;
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                ping = heartbeat;
+                heartbeat = false;
+            }
+            if (batch.isEmpty() && ping) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            for (BookDelta delta : batch) {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(delta.getBookId()))
+                        .name("delta")
+                        .data(delta, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.task;
+
+import com.library.service.BorrowArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@ConditionalOnProperty(name = "library.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class BorrowArchiveTask {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowArchiveTask.class);
+
+    @Autowired
+    private BorrowArchiveService borrowArchiveService;
+
+    @Value("${library.archive.retention-days:180}")
+    private int retentionDays;
+
+    @Scheduled(cron = "${library.archive.cron:0 30 3 * * ?}")
+    public void archiveReturnedRecords() {
+        try {
+            borrowArchiveService.archiveBefore(LocalDateTime.now().minusDays(retentionDays));
+        } catch (Exception e) {
+            log.error("Borrow record archiving failed", e);
+        }
+    }
+}
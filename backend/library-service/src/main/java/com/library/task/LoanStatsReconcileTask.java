@@ -0,0 +1,28 @@
+package com.library.task;
+
+import com.library.service.LoanStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "library.loan-stats.reconcile-enabled", havingValue = "true", matchIfMissing = true)
+public class LoanStatsReconcileTask {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanStatsReconcileTask.class);
+
+    @Autowired
+    private LoanStatsService loanStatsService;
+
+    @Scheduled(cron = "${library.loan-stats.reconcile-cron:0 0 4 * * ?}")
+    public void reconcile() {
+        try {
+            loanStatsService.reconcileAll();
+        } catch (Exception e) {
+            log.error("Loan stats reconciliation failed", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.trace;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * Dubbo 调用的 span。提供方从附件中读取 B3 上下文作为根 span，消费方在当前追踪下创建子 span 并把上下文写入附件。
+ * 异步接口的结果在其他线程返回，span 在 onResponse / onError 中结束。
+ */
+@Activate(group = {CommonConstants.PROVIDER, CommonConstants.CONSUMER})
+public class DubboTracingFilter implements Filter, Filter.Listener {
+
+    // Dubbo 附件名按小写传递
+    private static final String TRACE_ID = Tracer.TRACE_ID.toLowerCase();
+    private static final String SPAN_ID = Tracer.SPAN_ID.toLowerCase();
+    private static final String SAMPLED = Tracer.SAMPLED.toLowerCase();
+
+    private static final String SPAN = DubboTracingFilter.class.getName() + ".span";
+
+    private Tracer tracer;
+
+    // 由 Dubbo 从 Spring 容器注入
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (tracer == null) {
+            return invoker.invoke(invocation);
+        }
+        boolean consumer = invoker.getUrl().getSide(CommonConstants.PROVIDER).equals(CommonConstants.CONSUMER);
+        String name = invoker.getInterface().getSimpleName() + "." + invocation.getMethodName();
+        Span span;
+        if (consumer) {
+            span = tracer.startChild(name, Span.CLIENT);
+            if (span != null) {
+                invocation.setAttachment(TRACE_ID, span.getTraceId());
+                invocation.setAttachment(SPAN_ID, span.getSpanId());
+                invocation.setAttachment(SAMPLED, "1");
+            }
+        } else {
+            span = tracer.startRoot(name, Span.SERVER, invocation.getAttachment(TRACE_ID),
+                    invocation.getAttachment(SPAN_ID), invocation.getAttachment(SAMPLED));
+        }
+        if (span == null) {
+            return invoker.invoke(invocation);
+        }
+
+        span.tag("rpc.service", invoker.getInterface().getName())
+                .tag("rpc.method", invocation.getMethodName());
+        invocation.put(SPAN, span);
+        try {
+            return invoker.invoke(invocation);
+        } finally {
+            // 同步调用在这里已经有结果，异步调用还在执行，都在监听回调中结束
+            tracer.detach(span);
+        }
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        Span span = (Span) invocation.get(SPAN);
+        if (span != null) {
+            if (appResponse.hasException()) {
+                span.error(appResponse.getException());
+            }
+            tracer.finishDetached(span);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        Span span = (Span) invocation.get(SPAN);
+        if (span != null) {
+            tracer.finishDetached(span.error(t));
+        }
+    }
+}
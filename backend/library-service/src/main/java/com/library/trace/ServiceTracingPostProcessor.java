@@ -0,0 +1,92 @@
+package com.library.trace;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodClassKey;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为 com.library.service.impl 下各服务的公开方法创建 span，名称为“类名.方法名”。
+ * 放在事务、并发限制等切面的外层，span 耗时包含排队、开启和提交事务的时间。
+ */
+@Component
+public class ServiceTracingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String SERVICE_PACKAGE = "com.library.service.impl";
+
+    public ServiceTracingPostProcessor() {
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        ObjectProvider<Tracer> tracer = beanFactory.getBeanProvider(Tracer.class);
+        this.advisor = new DefaultPointcutAdvisor(new ServicePointcut(), new TracingInterceptor(tracer));
+    }
+
+    private static class ServicePointcut extends StaticMethodMatcherPointcut {
+
+        ServicePointcut() {
+            setClassFilter(clazz -> clazz.getPackage() != null && SERVICE_PACKAGE.equals(clazz.getPackage().getName()));
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+        }
+    }
+
+    private static class TracingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<Tracer> tracerProvider;
+
+        private final Map<MethodClassKey, String> names = new ConcurrentHashMap<>();
+
+        private volatile Tracer tracer;
+
+        TracingInterceptor(ObjectProvider<Tracer> tracerProvider) {
+            this.tracerProvider = tracerProvider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (tracer == null) {
+                tracer = tracerProvider.getObject();
+            }
+            if (!tracer.isTracing()) {
+                return invocation.proceed();
+            }
+            Span span = tracer.startChild(nameOf(invocation), null);
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            } finally {
+                tracer.finish(span);
+            }
+        }
+
+        private String nameOf(MethodInvocation invocation) {
+            Method method = invocation.getMethod();
+            Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+            return names.computeIfAbsent(new MethodClassKey(method, targetClass),
+                    key -> targetClass.getSimpleName() + "." + method.getName());
+        }
+    }
+}
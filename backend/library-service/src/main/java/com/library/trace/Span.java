@@ -0,0 +1,95 @@
+package com.library.trace;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次操作的耗时记录，字段与 Zipkin v2 的 span 对应。时间戳和耗时均为微秒。
+ */
+public final class Span {
+
+    public static final String SERVER = "SERVER";
+    public static final String CLIENT = "CLIENT";
+
+    // 由 nanoTime 换算微秒时间戳，同一毫秒内开始的父子 span 也能排出先后
+    private static final long EPOCH_MICROS_OFFSET = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentId;
+    private final String kind;
+    private final long timestampMicros;
+    private final long startNanos;
+    private String name;
+    private long durationMicros;
+    private Map<String, String> tags;
+
+    // 开始前线程上的当前 span，结束时恢复
+    final Span previous;
+
+    Span(String traceId, String spanId, String parentId, String name, String kind, Span previous) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+        this.previous = previous;
+        this.startNanos = System.nanoTime();
+        this.timestampMicros = EPOCH_MICROS_OFFSET + startNanos / 1000;
+    }
+
+    public Span tag(String key, String value) {
+        if (value != null) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key, value);
+        }
+        return this;
+    }
+
+    public Span error(Throwable error) {
+        return tag("error", error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+    }
+
+    public void rename(String name) {
+        this.name = name;
+    }
+
+    void end() {
+        durationMicros = Math.max(1, (System.nanoTime() - startNanos) / 1000);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, String> getTags() {
+        return tags != null ? tags : Collections.emptyMap();
+    }
+}
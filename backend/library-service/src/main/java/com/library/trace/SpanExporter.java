@@ -0,0 +1,205 @@
+package com.library.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把结束的 span 以 Zipkin v2 JSON 格式导出：zipkin-endpoint 不为空时批量 POST 到 Zipkin 或兼容的采集器，
+ * file 不为空时每个 span 一行追加到文件。请求线程只入队，队列满时丢弃；后台线程按 batch-size 或 flush-interval 导出。
+ */
+@Component
+public class SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(SpanExporter.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.application.name:library-service}")
+    private String serviceName;
+
+    @Value("${library.tracing.zipkin-endpoint:}")
+    private String zipkinEndpoint;
+
+    @Value("${library.tracing.file:}")
+    private String file;
+
+    @Value("${library.tracing.queue-size:10000}")
+    private int queueSize;
+
+    @Value("${library.tracing.batch-size:500}")
+    private int batchSize;
+
+    @Value("${library.tracing.flush-interval:1000}")
+    private long flushInterval;
+
+    private BlockingQueue<Span> queue;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private Map<String, String> localEndpoint;
+
+    private Counter exported;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueSize);
+        localEndpoint = Collections.singletonMap("serviceName", serviceName);
+        exported = Counter.builder("library.tracing.exported").register(meterRegistry);
+        dropped = Counter.builder("library.tracing.dropped").register(meterRegistry);
+        if (!StringUtils.hasText(zipkinEndpoint) && !StringUtils.hasText(file)) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::exportLoop, "trace-exporter");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Exporting trace spans to {}", StringUtils.hasText(zipkinEndpoint) ? zipkinEndpoint : file);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(flushInterval + TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isEnabled() {
+        return running;
+    }
+
+    void export(Span span) {
+        if (!running || !queue.offer(span)) {
+            dropped.increment();
+        }
+    }
+
+    private void exportLoop() {
+        List<Span> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Span first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            batch.clear();
+        }
+        // 关闭时导出剩余的 span
+        batch.clear();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Span> batch) {
+        try {
+            List<Map<String, Object>> spans = new ArrayList<>(batch.size());
+            for (Span span : batch) {
+                spans.add(toZipkin(span));
+            }
+            if (StringUtils.hasText(zipkinEndpoint)) {
+                post(objectMapper.writeValueAsBytes(spans));
+            }
+            if (StringUtils.hasText(file)) {
+                StringBuilder lines = new StringBuilder();
+                for (Map<String, Object> span : spans) {
+                    lines.append(objectMapper.writeValueAsString(span)).append('\n');
+                }
+                Path path = Paths.get(file);
+                Files.write(path, lines.toString().getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            exported.increment(batch.size());
+        } catch (Exception e) {
+            dropped.increment(batch.size());
+            log.warn("Failed to export {} trace spans: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void post(byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(zipkinEndpoint).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(2000);
+            connection.setReadTimeout(5000);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body);
+            }
+            int status = connection.getResponseCode();
+            if (status >= 300) {
+                throw new IOException("collector responded with HTTP " + status);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private Map<String, Object> toZipkin(Span span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("id", span.getSpanId());
+        if (span.getParentId() != null) {
+            json.put("parentId", span.getParentId());
+        }
+        json.put("name", span.getName());
+        if (span.getKind() != null) {
+            json.put("kind", span.getKind());
+        }
+        json.put("timestamp", span.getTimestampMicros());
+        json.put("duration", span.getDurationMicros());
+        json.put("localEndpoint", localEndpoint);
+        if (!span.getTags().isEmpty()) {
+            json.put("tags", span.getTags());
+        }
+        return json;
+    }
+}
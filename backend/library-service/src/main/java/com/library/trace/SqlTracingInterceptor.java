@@ -0,0 +1,68 @@
+package com.library.trace;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每条 MyBatis 语句一个 span，名称为“Mapper.方法”，标签 sql 为执行的 SQL（不含参数值）。
+ * 分页插件会在同一次调用中再调用一次 query，已在语句 span 内时不重复创建。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SqlTracingInterceptor implements Interceptor {
+
+    private static final String SQL = "sql";
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${library.tracing.max-sql-length:1000}")
+    private int maxSqlLength;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Span current = tracer.current();
+        if (current == null || current.getTags().containsKey(SQL)) {
+            return invocation.proceed();
+        }
+
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+        BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : statement.getBoundSql(args[1]);
+        String sql = boundSql.getSql().replaceAll("\\s+", " ").trim();
+        Span span = tracer.startChild(shortName(statement.getId()), Span.CLIENT)
+                .tag(SQL, sql.length() > maxSqlLength ? sql.substring(0, maxSqlLength) : sql);
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            tracer.finish(span);
+        }
+    }
+
+    // com.library.mapper.BookMapper.selectById -> BookMapper.selectById
+    private static String shortName(String id) {
+        int method = id.lastIndexOf('.');
+        int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+        return type >= 0 ? id.substring(type + 1) : id;
+    }
+}
@@ -0,0 +1,154 @@
+package com.library.trace;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的追踪上下文。HTTP 请求或 Dubbo 调用进入时决定是否采样，采样的请求在线程上保存当前 span，
+ * 服务方法、SQL、Dubbo 调用等埋点在其下创建子 span；未采样时各埋点只做一次 ThreadLocal 读取。
+ * 跨进程用 B3 格式（X-B3-TraceId / X-B3-SpanId / X-B3-Sampled）传递上下文。
+ */
+@Component
+public class Tracer {
+
+    public static final String TRACE_ID = "X-B3-TraceId";
+    public static final String SPAN_ID = "X-B3-SpanId";
+    public static final String SAMPLED = "X-B3-Sampled";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    @Autowired
+    private SpanExporter exporter;
+
+    // 0 表示只追踪上游明确要求采样（X-B3-Sampled: 1）的请求，且受 max-forced-per-second 限制
+    @Value("${library.tracing.sample-rate:0}")
+    private double sampleRate;
+
+    // 任何客户端都可以带上 X-B3-Sampled: 1，按它采样的请求每秒最多这么多条，超出的按 sample-rate 决定
+    @Value("${library.tracing.max-forced-per-second:10}")
+    private int maxForcedPerSecond;
+
+    private final AtomicLong forcedSecond = new AtomicLong();
+    private final AtomicInteger forcedCount = new AtomicInteger();
+
+    public Span current() {
+        return CURRENT.get();
+    }
+
+    public boolean isTracing() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * 请求入口处开始一条追踪。traceId、parentId 为上游传入的值，sampled 为上游的采样决定：
+     * 要求不采样时不采样，要求采样时在 max-forced-per-second 以内采样，其余情况按 sample-rate 决定。
+     * 不采样或没有配置导出目标时返回 null。
+     */
+    public Span startRoot(String name, String kind, String traceId, String parentId, String sampled) {
+        if (!exporter.isEnabled()) {
+            return null;
+        }
+        boolean forced = "1".equals(sampled) || "true".equalsIgnoreCase(sampled);
+        if (sampled != null && !forced) {
+            return null;
+        }
+        boolean sample = forced && tryForce()
+                || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!sample) {
+            return null;
+        }
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = newId();
+            parentId = null;
+        }
+        Span span = new Span(traceId, newId(), parentId, name, kind, CURRENT.get());
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * 在当前追踪下开始一个子 span，当前没有追踪时返回 null。
+     */
+    public Span startChild(String name, String kind) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return null;
+        }
+        Span span = new Span(parent.getTraceId(), newId(), parent.getSpanId(), name, kind, parent);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * 结束 span 并交给导出器，线程上的当前 span 恢复为开始前的值。span 为 null 时什么也不做。
+     */
+    public void finish(Span span) {
+        if (span == null) {
+            return;
+        }
+        detach(span);
+        finishDetached(span);
+    }
+
+    /**
+     * 只恢复线程上的当前 span，不结束。用于在其他线程上结束的异步调用。
+     */
+    public void detach(Span span) {
+        if (span != null && CURRENT.get() == span) {
+            if (span.previous != null) {
+                CURRENT.set(span.previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public void finishDetached(Span span) {
+        span.end();
+        exporter.export(span);
+    }
+
+    /**
+     * 把当前追踪上下文带到其他线程执行的任务中
+     */
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        Span captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(captured);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    // 按秒计数，换秒时清零；并发换秒时可能多放过几条，不影响限流的目的
+    private boolean tryForce() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = forcedSecond.get();
+        if (current != second && forcedSecond.compareAndSet(current, second)) {
+            forcedCount.set(0);
+        }
+        return forcedCount.incrementAndGet() <= maxForcedPerSecond;
+    }
+
+    private static String newId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.trace;
+
+import com.library.logging.RequestLogFilter;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 请求的根 span，包含安全过滤器、控制器及其下的全部调用。排在 {@link RequestLogFilter} 之后、安全过滤器之前；
+ * 采样的请求在响应头 X-B3-TraceId 中返回追踪 ID，日志 MDC 中也带有 traceId。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final String TRACE_ID = "traceId";
+
+    @Autowired
+    private Tracer tracer;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Span span = tracer.startRoot(request.getMethod() + " " + request.getRequestURI(), Span.SERVER,
+                request.getHeader(Tracer.TRACE_ID), request.getHeader(Tracer.SPAN_ID), request.getHeader(Tracer.SAMPLED));
+        if (span == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        MDC.put(TRACE_ID, span.getTraceId());
+        response.setHeader(Tracer.TRACE_ID, span.getTraceId());
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            // 按路由模板命名，同一接口的 span 可以聚合
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                span.rename(request.getMethod() + " " + pattern);
+            }
+            span.tag("http.method", request.getMethod())
+                    .tag("http.path", request.getRequestURI())
+                    .tag("http.status_code", String.valueOf(response.getStatus()));
+            tracer.finish(span);
+            MDC.remove(TRACE_ID);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.utils;
+
+public final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    // MurmurHash3 的 64 位 finalizer，打散连续的自增 ID
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,69 @@
+package com.library.utils;
+
+import java.nio.charset.Charset;
+
+/**
+ * 汉字拼音首字母。GB2312 一级汉字按拼音排序，按编码区间即可确定首字母；二级汉字及生僻字返回 0。
+ */
+public final class PinyinUtils {
+
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    private static final int[] BOUNDARIES = {
+            0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE, 0xBBF7,
+            0xBFA6, 0xC0AC, 0xC2E8, 0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB,
+            0xC8F6, 0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA
+    };
+
+    private static final char[] LETTERS = {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j',
+            'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r',
+            's', 't', 'w', 'x', 'y', 'z'
+    };
+
+    private PinyinUtils() {
+    }
+
+    public static boolean isChinese(char c) {
+        return c >= 0x4E00 && c <= 0x9FA5;
+    }
+
+    public static char initial(char c) {
+        if (!isChinese(c)) {
+            return 0;
+        }
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if (bytes.length != 2) {
+            return 0;
+        }
+        int code = ((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF);
+        if (code < BOUNDARIES[0] || code >= BOUNDARIES[BOUNDARIES.length - 1]) {
+            return 0;
+        }
+        for (int i = LETTERS.length - 1; i >= 0; i--) {
+            if (code >= BOUNDARIES[i]) {
+                return LETTERS[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 每个汉字取首字母，连续的字母数字原样保留（小写），其余字符忽略。例如 “Java核心技术” -> “javahxjs”。
+     */
+    public static String initials(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < 0x80) {
+                builder.append(Character.toLowerCase(c));
+            } else {
+                char initial = initial(c);
+                if (initial != 0) {
+                    builder.append(initial);
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.library.utils;
+
+/**
+ * 对称的稀疏共现矩阵：行、列、计数均为原始类型。每对 (a, b) 在两行中各存一份，读取一行即可得到全部共现项。
+ * 非线程安全，由调用方负责同步。
+ */
+public class SparseCooccurrenceMatrix {
+
+    private final LongObjectHashMap<LongIntHashMap> rows;
+    private final LongIntHashMap itemCounts;
+
+    public SparseCooccurrenceMatrix() {
+        this(1024);
+    }
+
+    public SparseCooccurrenceMatrix(int expectedItems) {
+        this.rows = new LongObjectHashMap<>(expectedItems);
+        this.itemCounts = new LongIntHashMap(expectedItems);
+    }
+
+    public void addItem(long item) {
+        itemCounts.addTo(item, 1);
+    }
+
+    public void addPair(long a, long b) {
+        if (a == b) {
+            return;
+        }
+        row(a).addTo(b, 1);
+        row(b).addTo(a, 1);
+    }
+
+    public int itemCount(long item) {
+        return itemCounts.get(item);
+    }
+
+    public LongIntHashMap getRow(long item) {
+        return rows.get(item);
+    }
+
+    public int itemSize() {
+        return itemCounts.size();
+    }
+
+    public void mergeFrom(SparseCooccurrenceMatrix other) {
+        other.itemCounts.forEach(itemCounts::addTo);
+        other.rows.forEach((item, otherRow) -> {
+            LongIntHashMap row = rows.get(item);
+            if (row == null) {
+                rows.put(item, otherRow);
+            } else {
+                otherRow.forEach(row::addTo);
+            }
+        });
+    }
+
+    private LongIntHashMap row(long item) {
+        return rows.computeIfAbsent(item, key -> new LongIntHashMap());
+    }
+}
@@ -0,0 +1,339 @@
+package com.library.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 输入联想用的前缀树。每个节点缓存以该前缀开头的权重最高的 K 个条目，查询只需沿前缀走到节点并复制缓存，
+ * 与条目总数无关。写入后沿路径自底向上重算缓存；权重只增不减时走快速路径，只调整缓存中的位置。
+ * 非线程安全，由调用方加锁。
+ */
+public class SuggestTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        if (a.weight != b.weight) {
+            return Long.compare(b.weight, a.weight);
+        }
+        return Long.compare(a.id, b.id);
+    };
+
+    private final int k;
+    private final Node root = new Node();
+    private final LongObjectHashMap<Entry> entries = new LongObjectHashMap<>();
+
+    public SuggestTrie(int k) {
+        this.k = k;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Entry get(long id) {
+        return entries.get(id);
+    }
+
+    /**
+     * 插入或替换条目。keys 应已规范化，重复的 key 会被忽略。
+     */
+    public void put(long id, Object payload, String[] keys, long weight) {
+        remove(id);
+        Entry entry = new Entry(id, payload, distinct(keys), weight);
+        entries.put(id, entry);
+        for (String key : entry.keys) {
+            Node[] path = walk(key, true);
+            Node last = path[key.length()];
+            last.terminals = append(last.terminals, entry);
+            recompute(path);
+        }
+    }
+
+    /**
+     * 批量装载：只挂载条目不维护缓存，全部装载后调用一次 {@link #refresh()}，避免逐条沿路径重算。
+     */
+    public void add(long id, Object payload, String[] keys, long weight) {
+        remove(id);
+        Entry entry = new Entry(id, payload, distinct(keys), weight);
+        entries.put(id, entry);
+        for (String key : entry.keys) {
+            Node last = walk(key, true)[key.length()];
+            last.terminals = append(last.terminals, entry);
+        }
+    }
+
+    public void refresh() {
+        refresh(root);
+    }
+
+    public boolean remove(long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        entries.remove(id);
+        for (String key : entry.keys) {
+            Node[] path = walk(key, false);
+            if (path == null) {
+                continue;
+            }
+            Node last = path[key.length()];
+            last.terminals = without(last.terminals, entry);
+            recompute(path);
+            prune(path, key);
+        }
+        return true;
+    }
+
+    public void setWeight(long id, long weight) {
+        Entry entry = entries.get(id);
+        if (entry == null || entry.weight == weight) {
+            return;
+        }
+        boolean increased = weight > entry.weight;
+        entry.weight = weight;
+        for (String key : entry.keys) {
+            Node[] path = walk(key, false);
+            if (path == null) {
+                continue;
+            }
+            if (increased) {
+                for (int i = path.length - 1; i >= 0; i--) {
+                    promote(path[i], entry);
+                }
+            } else {
+                recompute(path);
+            }
+        }
+    }
+
+    public void addWeight(long id, long delta) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            setWeight(id, entry.weight + delta);
+        }
+    }
+
+    /**
+     * 返回以 prefix 开头的条目，按权重降序，最多 min(limit, K) 个。
+     */
+    public Entry[] search(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return NO_ENTRIES;
+        }
+        return Arrays.copyOf(node.top, Math.min(limit, node.top.length));
+    }
+
+    private Node[] walk(String key, boolean create) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.child(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return null;
+                }
+                next = node.addChild(key.charAt(i));
+            }
+            node = next;
+            path[i + 1] = node;
+        }
+        return path;
+    }
+
+    private void refresh(Node node) {
+        for (Node child : node.children) {
+            refresh(child);
+        }
+        recompute(node);
+    }
+
+    private void recompute(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            recompute(path[i]);
+        }
+    }
+
+    // 合并本节点的终止条目与各子节点的缓存，取前 K 个
+    private void recompute(Node node) {
+        Entry[] merged = new Entry[Math.min(k, node.terminals.length + node.children.length * k)];
+        int count = 0;
+        for (Entry entry : node.terminals) {
+            count = insert(merged, count, entry);
+        }
+        for (Node child : node.children) {
+            for (Entry entry : child.top) {
+                count = insert(merged, count, entry);
+            }
+        }
+        node.top = count == merged.length ? merged : Arrays.copyOf(merged, count);
+    }
+
+    // 权重上升的条目：已在缓存中则上移，否则与第 K 名比较
+    private void promote(Node node, Entry entry) {
+        Entry[] top = node.top;
+        int index = indexOf(top, entry);
+        if (index < 0) {
+            if (top.length < k) {
+                Entry[] grown = Arrays.copyOf(top, top.length + 1);
+                node.top = grown;
+                insert(grown, top.length, entry);
+                return;
+            }
+            if (ORDER.compare(entry, top[top.length - 1]) >= 0) {
+                return;
+            }
+            index = top.length - 1;
+        }
+        while (index > 0 && ORDER.compare(entry, top[index - 1]) < 0) {
+            top[index] = top[index - 1];
+            index--;
+        }
+        top[index] = entry;
+    }
+
+    // 有序插入固定容量数组，已存在的条目（同一条目的多个 key 共享前缀）只保留一份
+    private static int insert(Entry[] sorted, int count, Entry entry) {
+        if (indexOf(sorted, count, entry) >= 0) {
+            return count;
+        }
+        if (count == sorted.length) {
+            if (count == 0 || ORDER.compare(entry, sorted[count - 1]) >= 0) {
+                return count;
+            }
+            count--;
+        }
+        int index = count;
+        while (index > 0 && ORDER.compare(entry, sorted[index - 1]) < 0) {
+            sorted[index] = sorted[index - 1];
+            index--;
+        }
+        sorted[index] = entry;
+        return count + 1;
+    }
+
+    private static int indexOf(Entry[] entries, Entry entry) {
+        return indexOf(entries, entries.length, entry);
+    }
+
+    private static int indexOf(Entry[] entries, int count, Entry entry) {
+        for (int i = 0; i < count; i++) {
+            if (entries[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void prune(Node[] path, String key) {
+        for (int i = key.length(); i > 0; i--) {
+            Node node = path[i];
+            if (node.terminals.length > 0 || node.children.length > 0) {
+                return;
+            }
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        return grown;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        int index = indexOf(entries, entry);
+        if (index < 0) {
+            return entries;
+        }
+        Entry[] shrunk = new Entry[entries.length - 1];
+        System.arraycopy(entries, 0, shrunk, 0, index);
+        System.arraycopy(entries, index + 1, shrunk, index, entries.length - index - 1);
+        return shrunk;
+    }
+
+    private static String[] distinct(String[] keys) {
+        return Arrays.stream(keys)
+                .filter(key -> key != null && !key.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    public static class Entry {
+        private final long id;
+        private final Object payload;
+        private final String[] keys;
+        private long weight;
+
+        private Entry(long id, Object payload, String[] keys, long weight) {
+            this.id = id;
+            this.payload = payload;
+            this.keys = keys;
+            this.weight = weight;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getPayload() {
+            return (T) payload;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    // 子节点按字符有序存放，二分查找；节点扇出通常很小，比哈希表省内存
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = NO_CHILDREN;
+        private Entry[] terminals = NO_ENTRIES;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char c) {
+            int index = -(Arrays.binarySearch(labels, c) + 1);
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newLabels[index] = c;
+            Node node = new Node();
+            newChildren[index] = node;
+            System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        private void removeChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- 借阅记录归档表（已归还的历史记录）
+CREATE TABLE IF NOT EXISTS `borrow_records_archive` (
+    `id` bigint NOT NULL COMMENT '借阅记录ID（沿用原记录ID）',
+    `user_id` bigint NOT NULL COMMENT '用户ID',
+    `book_id` bigint NOT NULL COMMENT '图书ID',
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '借阅日期',
+    `due_date` timestamp NOT NULL COMMENT '应还日期',
+    `return_date` timestamp NULL DEFAULT NULL COMMENT '实际还书日期',
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'RETURNED' COMMENT '借阅状态',
+    `fine_amount` decimal(10,2) DEFAULT '0.00' COMMENT '罚金金额',
+    `remark` varchar(500) DEFAULT NULL COMMENT '备注',
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+    `archive_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_book_id` (`book_id`),
+    KEY `idx_borrow_date` (`borrow_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅记录归档表';
@@ -0,0 +1,15 @@
+-- 借阅记录热点访问路径的联合索引
+-- idx_user_book_status: borrowBook 的重复借阅检查 (user_id, book_id, status)
+-- idx_user_borrow_date: 我的借阅记录 (user_id) ORDER BY borrow_date
+-- idx_status_due_date:  逾期查询 (status, due_date)
+-- idx_status_borrow_date: 按状态筛选的借阅列表 ORDER BY borrow_date
+-- idx_return_date: 归档任务按归还时间挑选记录
+-- idx_user_id / idx_status 被以上联合索引的最左前缀覆盖，一并删除
+ALTER TABLE `borrow_records`
+    ADD KEY `idx_user_book_status` (`user_id`, `book_id`, `status`),
+    ADD KEY `idx_user_borrow_date` (`user_id`, `borrow_date`),
+    ADD KEY `idx_status_due_date` (`status`, `due_date`),
+    ADD KEY `idx_status_borrow_date` (`status`, `borrow_date`),
+    ADD KEY `idx_return_date` (`return_date`),
+    DROP KEY `idx_user_id`,
+    DROP KEY `idx_status`;
@@ -0,0 +1,11 @@
+-- 号段分配表：借阅记录分库后由应用按号段分配全局唯一 ID（见 BorrowRecordShards）
+CREATE TABLE IF NOT EXISTS `id_sequences` (
+    `name` varchar(64) NOT NULL COMMENT '序列名',
+    `next_value` bigint NOT NULL COMMENT '下一个未分配的序号',
+    PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='ID号段分配表';
+
+-- 新记录 ID 为 序号 * 1024 + 分片基因，序号从现有最大 ID 之后开始，不会与分库前的记录重复
+INSERT INTO `id_sequences` (`name`, `next_value`)
+SELECT 'borrow_records', COALESCE(MAX(`id`), 0) + 1
+FROM (SELECT `id` FROM `borrow_records` UNION ALL SELECT `id` FROM `borrow_records_archive`) t;
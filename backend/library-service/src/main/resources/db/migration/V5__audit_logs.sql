@@ -0,0 +1,17 @@
+-- 操作审计日志：图书库存/状态、用户账户和借还操作，由 AuditLogWriter 在后台批量写入
+CREATE TABLE IF NOT EXISTS `audit_logs` (
+    `id` bigint NOT NULL AUTO_INCREMENT COMMENT '日志ID',
+    `action` varchar(50) NOT NULL COMMENT '操作',
+    `target_type` varchar(30) NOT NULL COMMENT '操作对象类型',
+    `target_id` bigint DEFAULT NULL COMMENT '操作对象ID',
+    `user_id` bigint DEFAULT NULL COMMENT '操作人ID',
+    `username` varchar(50) DEFAULT NULL COMMENT '操作人用户名',
+    `client_ip` varchar(64) DEFAULT NULL COMMENT '客户端IP',
+    `success` tinyint NOT NULL COMMENT '是否成功：1-成功，0-失败',
+    `detail` varchar(500) DEFAULT NULL COMMENT '操作参数或失败原因',
+    `event_time` timestamp(3) NOT NULL COMMENT '操作时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_target` (`target_type`, `target_id`, `event_time`),
+    KEY `idx_user_time` (`user_id`, `event_time`),
+    KEY `idx_event_time` (`event_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='操作审计日志表';
@@ -0,0 +1,10 @@
+-- 每个用户的借阅汇总，由借还操作增量维护，定期按借阅记录（含归档）校准；
+-- 用户第一次借还时按其借阅记录初始化，因此这里不回填
+CREATE TABLE IF NOT EXISTS `user_loan_stats` (
+    `user_id` bigint NOT NULL COMMENT '用户ID',
+    `active_loans` int NOT NULL DEFAULT 0 COMMENT '在借数量',
+    `overdue_count` int NOT NULL DEFAULT 0 COMMENT '逾期归还次数',
+    `fine_amount` decimal(10,2) NOT NULL DEFAULT '0.00' COMMENT '累计罚金',
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户借阅汇总表';
@@ -0,0 +1,3 @@
+-- 图书变更订阅按 (update_time, id) 水位线分页读取，含已删除的图书
+ALTER TABLE `books`
+    ADD KEY `idx_update_time_id` (`update_time`, `id`);
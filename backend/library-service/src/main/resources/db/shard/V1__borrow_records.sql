@@ -0,0 +1,42 @@
+-- 借阅记录分片的表结构，与主库 V1~V3 迁移后的 borrow_records / borrow_records_archive 一致。
+-- 用户和图书不在分片库中，因此不建外键；把主库本身列为分片时表已存在，IF NOT EXISTS 跳过建表。
+CREATE TABLE IF NOT EXISTS `borrow_records` (
+    `id` bigint NOT NULL AUTO_INCREMENT COMMENT '借阅记录ID',
+    `user_id` bigint NOT NULL COMMENT '用户ID',
+    `book_id` bigint NOT NULL COMMENT '图书ID',
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '借阅日期',
+    `due_date` timestamp NOT NULL COMMENT '应还日期',
+    `return_date` timestamp NULL DEFAULT NULL COMMENT '实际还书日期',
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'BORROWED' COMMENT '借阅状态',
+    `fine_amount` decimal(10,2) DEFAULT '0.00' COMMENT '罚金金额',
+    `remark` varchar(500) DEFAULT NULL COMMENT '备注',
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_book_id` (`book_id`),
+    KEY `idx_borrow_date` (`borrow_date`),
+    KEY `idx_user_book_status` (`user_id`, `book_id`, `status`),
+    KEY `idx_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_status_due_date` (`status`, `due_date`),
+    KEY `idx_status_borrow_date` (`status`, `borrow_date`),
+    KEY `idx_return_date` (`return_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅记录表';
+
+CREATE TABLE IF NOT EXISTS `borrow_records_archive` (
+    `id` bigint NOT NULL COMMENT '借阅记录ID（沿用原记录ID）',
+    `user_id` bigint NOT NULL COMMENT '用户ID',
+    `book_id` bigint NOT NULL COMMENT '图书ID',
+    `borrow_date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '借阅日期',
+    `due_date` timestamp NOT NULL COMMENT '应还日期',
+    `return_date` timestamp NULL DEFAULT NULL COMMENT '实际还书日期',
+    `status` enum('BORROWED','RETURNED','OVERDUE','LOST') NOT NULL DEFAULT 'RETURNED' COMMENT '借阅状态',
+    `fine_amount` decimal(10,2) DEFAULT '0.00' COMMENT '罚金金额',
+    `remark` varchar(500) DEFAULT NULL COMMENT '备注',
+    `create_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+    `archive_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_user_borrow_date` (`user_id`, `borrow_date`),
+    KEY `idx_book_id` (`book_id`),
+    KEY `idx_borrow_date` (`borrow_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅记录归档表';
@@ -0,0 +1,15 @@
+-- 把主库本身列为分片时，主库 borrow_records 上还有引用 users、books 的外键。借书时分片连接自动提交的插入要检查外键，
+-- 会等待主库事务已锁定的图书行，而主库事务在等这条插入返回，只能等到锁超时。独立的分片库没有这两个外键，这里什么也不做。
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+            WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'borrow_records' AND CONSTRAINT_NAME = 'fk_borrow_user');
+SET @ddl := IF(@fk IS NULL, 'DO 0', 'ALTER TABLE `borrow_records` DROP FOREIGN KEY `fk_borrow_user`');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+            WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'borrow_records' AND CONSTRAINT_NAME = 'fk_borrow_book');
+SET @ddl := IF(@fk IS NULL, 'DO 0', 'ALTER TABLE `borrow_records` DROP FOREIGN KEY `fk_borrow_book`');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
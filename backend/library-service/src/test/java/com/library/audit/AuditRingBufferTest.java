@@ -0,0 +1,130 @@
+package com.library.audit;
+
+import com.library.entity.AuditLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new AuditRingBuffer(1).capacity());
+        assertEquals(8, new AuditRingBuffer(5).capacity());
+        assertEquals(1024, new AuditRingBuffer(1024).capacity());
+    }
+
+    @Test
+    void pollReturnsEntriesInOfferOrder() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        assertNull(buffer.poll());
+
+        for (long i = 1; i <= 3; i++) {
+            assertTrue(buffer.offer(log(i)));
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(1L, buffer.poll().getTargetId());
+        assertEquals(2L, buffer.poll().getTargetId());
+        assertEquals(3L, buffer.poll().getTargetId());
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void offerFailsWhenFullUntilAnEntryIsPolled() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (long i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(log(i)));
+        }
+        assertFalse(buffer.offer(log(4)));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0L, buffer.poll().getTargetId());
+        assertTrue(buffer.offer(log(4)));
+        assertFalse(buffer.offer(log(5)));
+    }
+
+    @Test
+    void slotsAreReusedAcrossManyLaps() {
+        AuditRingBuffer buffer = new AuditRingBuffer(2);
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(buffer.offer(log(i)));
+            if (i % 2 == 1) {
+                assertEquals(i - 1, (long) buffer.poll().getTargetId());
+                assertEquals(i, (long) buffer.poll().getTargetId());
+            }
+        }
+        assertNull(buffer.poll());
+    }
+
+    // 多个写入线程、一个读取线程：每条恰好读到一次，同一线程写入的顺序不变
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (long i = 0; i < perProducer; i++) {
+                        AuditLog log = log(i);
+                        log.setUserId(producer);
+                        while (!buffer.offer(log)) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+
+            List<Long> next = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                next.add(0L);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            int received = 0;
+            while (received < producers * perProducer) {
+                AuditLog log = buffer.poll();
+                if (log == null) {
+                    assertTrue(System.nanoTime() < deadline, "timed out after " + received + " entries");
+                    Thread.yield();
+                    continue;
+                }
+                int producer = log.getUserId().intValue();
+                assertEquals(next.get(producer), log.getTargetId());
+                next.set(producer, log.getTargetId() + 1);
+                received++;
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AuditLog log(long targetId) {
+        AuditLog log = new AuditLog();
+        log.setAction("TEST");
+        log.setTargetId(targetId);
+        return log;
+    }
+}
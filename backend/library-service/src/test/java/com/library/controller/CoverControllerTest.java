@@ -0,0 +1,50 @@
+package com.library.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CoverControllerTest {
+
+    @Test
+    void parsesClosedAndOpenRanges() {
+        assertArrayEquals(new long[]{0, 99}, CoverController.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, CoverController.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{10, 20}, CoverController.parseRange("bytes= 10 - 20 ", 1000));
+    }
+
+    @Test
+    void clampsEndToLastByte() {
+        assertArrayEquals(new long[]{900, 999}, CoverController.parseRange("bytes=900-5000", 1000));
+        assertArrayEquals(new long[]{999, 999}, CoverController.parseRange("bytes=999-999", 1000));
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertArrayEquals(new long[]{900, 999}, CoverController.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, CoverController.parseRange("bytes=-5000", 1000));
+    }
+
+    @Test
+    void rangesOutsideTheFileAreUnsatisfiable() {
+        assertSame(CoverController.UNSATISFIABLE, CoverController.parseRange("bytes=1000-", 1000));
+        assertSame(CoverController.UNSATISFIABLE, CoverController.parseRange("bytes=1000-2000", 1000));
+        assertSame(CoverController.UNSATISFIABLE, CoverController.parseRange("bytes=-0", 1000));
+        assertSame(CoverController.UNSATISFIABLE, CoverController.parseRange("bytes=-10", 0));
+        assertSame(CoverController.UNSATISFIABLE, CoverController.parseRange("bytes=0-", 0));
+    }
+
+    // 格式不对或多个区间时忽略 Range，返回完整内容
+    @Test
+    void malformedOrMultipleRangesAreIgnored() {
+        assertNull(CoverController.parseRange("items=0-10", 1000));
+        assertNull(CoverController.parseRange("bytes=0-10,20-30", 1000));
+        assertNull(CoverController.parseRange("bytes=10", 1000));
+        assertNull(CoverController.parseRange("bytes=20-10", 1000));
+        assertNull(CoverController.parseRange("bytes=a-b", 1000));
+        assertNull(CoverController.parseRange("bytes=-", 1000));
+        assertNull(CoverController.parseRange("bytes=--5", 1000));
+    }
+}
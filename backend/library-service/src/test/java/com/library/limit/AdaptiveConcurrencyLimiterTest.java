@@ -0,0 +1,105 @@
+package com.library.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void lowerPrioritiesGetSmallerShareOfLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 10, 60000);
+
+        fill(limiter, Priority.SHEDDABLE, 7);
+        assertThrows(ServiceOverloadedException.class, () -> limiter.acquire(Priority.SHEDDABLE));
+        fill(limiter, Priority.NORMAL, 2);
+        assertThrows(ServiceOverloadedException.class, () -> limiter.acquire(Priority.NORMAL));
+        fill(limiter, Priority.CRITICAL, 1);
+        assertThrows(ServiceOverloadedException.class, () -> limiter.acquire(Priority.CRITICAL));
+
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(1.0, registry.get("library.limiter.rejected").tag("priority", "sheddable").counter().count());
+        assertEquals(1.0, registry.get("library.limiter.rejected").tag("priority", "critical").counter().count());
+    }
+
+    @Test
+    void droppedCallsShrinkLimitOncePerRound() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 10, 60000);
+        long first = limiter.acquire(Priority.NORMAL);
+        long second = limiter.acquire(Priority.NORMAL);
+
+        limiter.release(first, true);
+        assertEquals(9, limiter.getLimit());
+        // 第二个调用在收缩之前发起，不再重复收缩
+        limiter.release(second, true);
+        assertEquals(9, limiter.getLimit());
+
+        limiter.release(limiter.acquire(Priority.NORMAL), true);
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void slowCallsShrinkLimitDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 10, 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(Priority.CRITICAL), false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void limitGrowsOnlyWhenMostlyUsed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 4, 60000);
+        for (int i = 0; i < 50; i++) {
+            limiter.release(limiter.acquire(Priority.NORMAL), false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        fill(limiter, Priority.CRITICAL, 2);
+        for (int i = 0; i < 50; i++) {
+            limiter.release(limiter.acquire(Priority.CRITICAL), false);
+        }
+        assertTrue(limiter.getLimit() > 4, "limit " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 200, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void disabledLimiterOnlyCountsInFlight() {
+        AdaptiveConcurrencyLimiter limiter = limiter(false, 2, 0);
+        fill(limiter, Priority.SHEDDABLE, 5);
+        assertEquals(5, limiter.getInFlight());
+
+        limiter.release(System.nanoTime(), true);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(4, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(boolean enabled, int initialLimit, long maxLatencyMillis) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", registry);
+        ReflectionTestUtils.setField(limiter, "enabled", enabled);
+        ReflectionTestUtils.setField(limiter, "initialLimit", initialLimit);
+        ReflectionTestUtils.setField(limiter, "minLimit", 2);
+        ReflectionTestUtils.setField(limiter, "maxLimit", 200);
+        ReflectionTestUtils.setField(limiter, "tolerance", 2.0);
+        ReflectionTestUtils.setField(limiter, "maxLatencyMillis", maxLatencyMillis);
+        ReflectionTestUtils.setField(limiter, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(limiter, "normalShare", 0.9);
+        ReflectionTestUtils.setField(limiter, "sheddableShare", 0.7);
+        limiter.init();
+        return limiter;
+    }
+
+    private static void fill(AdaptiveConcurrencyLimiter limiter, Priority priority, int count) {
+        for (int i = 0; i < count; i++) {
+            limiter.acquire(priority);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.library.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.library.IntegrationTestSupport;
+import com.library.entity.User;
+import com.library.enums.BorrowStatus;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对热点 Mapper 语句执行 EXPLAIN，SQL 和参数取自 MyBatis 实际生成的 BoundSql，
+ * 表结构来自 Flyway 迁移脚本。语句或索引被改动导致不再使用预期索引、退化为全表扫描时测试失败。
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest extends IntegrationTestSupport {
+
+    private static final int USERS = 200;
+    private static final int BOOKS = 500;
+    private static final int RECORDS = 20000;
+    // 固定的日期与其他测试用 NOW() 写入的更新时间错开
+    private static final LocalDateTime BOOKS_UPDATED = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private long bookId;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"plan_user_" + i, "plan_user_" + i + "@test.local"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, email, role) VALUES (?, 'x', ?, 'STUDENT')", users);
+        // 更新时间每本间隔一分钟，变更订阅查询的时间窗口只命中少数几行，与线上增量拉取一致
+        List<Object[]> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Object[]{"PLAN-" + i, "Plan Book " + i, "category-" + (i % 10), BOOKS_UPDATED.plusMinutes(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (isbn, title, category, total_quantity, available_quantity, " +
+                "update_time) VALUES (?, ?, ?, 100, 100, ?)", books);
+
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE 'plan\\_user\\_%' ORDER BY id", Long.class);
+        List<Long> bookIds = jdbcTemplate.queryForList(
+                "SELECT id FROM books WHERE isbn LIKE 'PLAN-%' ORDER BY id", Long.class);
+        userId = userIds.get(0);
+        bookId = bookIds.get(0);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(400);
+        List<Object[]> records = new ArrayList<>();
+        List<Object[]> archived = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            LocalDateTime borrowDate = start.plusMinutes(i * 20L);
+            boolean active = i % 10 == 0;
+            records.add(new Object[]{userIds.get(i % USERS), bookIds.get(i % BOOKS), Timestamp.valueOf(borrowDate),
+                    Timestamp.valueOf(borrowDate.plusDays(30)),
+                    active ? null : Timestamp.valueOf(borrowDate.plusDays(7)),
+                    active ? "BORROWED" : "RETURNED"});
+            archived.add(new Object[]{100_000_000L + i, userIds.get(i % USERS), bookIds.get((i * 7) % BOOKS),
+                    Timestamp.valueOf(borrowDate.minusDays(400)), Timestamp.valueOf(borrowDate.minusDays(370)),
+                    Timestamp.valueOf(borrowDate.minusDays(390))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO borrow_records (user_id, book_id, borrow_date, due_date, return_date, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", records);
+        jdbcTemplate.batchUpdate("INSERT INTO borrow_records_archive (id, user_id, book_id, borrow_date, due_date, " +
+                "return_date, status) VALUES (?, ?, ?, ?, ?, ?, 'RETURNED')", archived);
+        List<Object[]> stats = new ArrayList<>();
+        for (Long id : userIds) {
+            stats.add(new Object[]{id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_loan_stats (user_id) VALUES (?)", stats);
+
+        jdbcTemplate.execute("ANALYZE TABLE users, books, borrow_records, borrow_records_archive, user_loan_stats");
+    }
+
+    @Test
+    void userBorrowRecordsReadBothTablesByUserIndex() {
+        List<Map<String, Object>> plan = explain("BorrowRecordMapper.selectPage",
+                params("userId", userId, "status", null, "archive", true, "offset", 0L, "size", 10L, "end", 10L));
+        assertUses(plan, "borrow_records", "idx_user_borrow_date");
+        assertUses(plan, "borrow_records_archive", "idx_user_borrow_date");
+    }
+
+    @Test
+    void activeBorrowRecordsUseStatusIndex() {
+        List<Map<String, Object>> plan = explain("BorrowRecordMapper.selectPage",
+                params("userId", null, "status", BorrowStatus.BORROWED, "archive", false,
+                        "offset", 20L, "size", 10L, "end", 30L));
+        assertUses(plan, "borrow_records", "idx_status_borrow_date");
+    }
+
+    @Test
+    void allBorrowRecordsReadBothTablesInBorrowDateOrder() {
+        List<Map<String, Object>> plan = explain("BorrowRecordMapper.selectPage",
+                params("userId", null, "status", null, "archive", true, "offset", 20L, "size", 10L, "end", 30L));
+        assertUses(plan, "borrow_records", "idx_borrow_date");
+        assertUses(plan, "borrow_records_archive", "idx_borrow_date");
+    }
+
+    @Test
+    void userBorrowRecordCountUsesUserIndexes() {
+        List<Map<String, Object>> plan = explain("BorrowRecordMapper.countPage",
+                params("userId", userId, "status", null, "archive", true));
+        assertUses(plan, "borrow_records", "idx_user_borrow_date", "idx_user_book_status");
+        assertUses(plan, "borrow_records_archive", "idx_user_borrow_date");
+    }
+
+    @Test
+    void duplicateLoanCheckUsesUserBookStatusIndex() {
+        assertUses(explain("BorrowRecordMapper.selectActiveLoanId",
+                params("userId", userId, "bookId", bookId)),
+                "borrow_records", "idx_user_book_status");
+    }
+
+    @Test
+    void archivableRecordsUseReturnDateIndex() {
+        assertUses(explain("BorrowRecordMapper.selectArchivableIds",
+                params("cutoff", LocalDateTime.now().minusDays(180), "limit", 500)),
+                "borrow_records", "idx_return_date");
+    }
+
+    @Test
+    void borrowedBookIdsUseUserIndexes() {
+        Long recordId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM borrow_records WHERE user_id = ?", Long.class, userId);
+        List<Map<String, Object>> plan = explain("BorrowRecordMapper.selectBorrowedBookIdsBefore",
+                params("userId", userId, "recordId", recordId));
+        assertUses(plan, "cur", "PRIMARY");
+        assertUses(plan, "br", "idx_user_book_status", "idx_user_borrow_date");
+        assertUses(plan, "borrow_records_archive", "idx_user_borrow_date");
+    }
+
+    @Test
+    void userStatusCountsUseUserIndexes() {
+        assertUses(explain("BorrowRecordMapper.countByStatus", params("userId", userId)),
+                "borrow_records", "idx_user_book_status", "idx_user_borrow_date");
+        assertUses(explain("BorrowRecordMapper.countArchivedByStatus", params("userId", userId)),
+                "borrow_records_archive", "idx_user_borrow_date");
+    }
+
+    @Test
+    void overdueLoanCountUsesUserIndexes() {
+        assertUses(explain("BorrowRecordMapper.countOverdueLoans", params("userId", userId, "now", LocalDateTime.now())),
+                "borrow_records", "idx_user_book_status", "idx_user_borrow_date");
+    }
+
+    // 全部用户的统计只扫描热表的状态索引，归档表的计数有缓存
+    @Test
+    void allStatusCountsScanStatusIndex() {
+        assertUses(explain("BorrowRecordMapper.countByStatus", params("userId", null)),
+                "borrow_records", "idx_status_borrow_date", "idx_status_due_date");
+    }
+
+    @Test
+    void loanSummaryUsesUserIndexes() {
+        List<Map<String, Object>> plan = explain("BorrowRecordMapper.summarizeByUser",
+                params("userIds", Arrays.asList(userId, userId + 1)));
+        assertUses(plan, "borrow_records", "idx_user_book_status", "idx_user_borrow_date");
+        assertUses(plan, "borrow_records_archive", "idx_user_borrow_date");
+    }
+
+    @Test
+    void hotBooksReadOnlyActiveRecords() {
+        assertUses(explain("BorrowRecordMapper.selectHotBookIds", params("limit", 50)),
+                "borrow_records", "idx_status_borrow_date", "idx_status_due_date");
+    }
+
+    @Test
+    void returnUpdatesByPrimaryKey() {
+        assertUses(explain("BorrowRecordMapper.markReturned", params("id", 1L, "status", BorrowStatus.RETURNED,
+                "returnDate", LocalDateTime.now(), "fineAmount", null)), "borrow_records", "PRIMARY");
+    }
+
+    @Test
+    void stockUpdatesByPrimaryKey() {
+        assertUses(explain("BookMapper.decrementAvailable", params("id", bookId)), "books", "PRIMARY");
+        assertUses(explain("BookMapper.incrementAvailable", params("id", bookId)), "books", "PRIMARY");
+    }
+
+    @Test
+    void bookChangeFeedUsesUpdateTimeIndex() {
+        LocalDateTime since = BOOKS_UPDATED.plusMinutes(BOOKS / 2);
+        assertUses(explain("BookMapper.selectChangedSince",
+                params("since", since, "afterId", 0L, "until", since.plusMinutes(5), "limit", 500)),
+                "books", "idx_update_time_id");
+    }
+
+    @Test
+    void loginLooksUpUsernameIndex() {
+        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(User::getUsername, "plan_user_1").eq(User::getStatus, 1);
+        assertUses(explain("UserMapper.selectList", params("ew", wrapper)), "users", "idx_username");
+    }
+
+    @Test
+    void loanStatsLockedByPrimaryKey() {
+        assertUses(explain("UserLoanStatsMapper.incrementActive", params("userId", userId, "limit", 5)),
+                "user_loan_stats", "PRIMARY");
+        assertUses(explain("UserLoanStatsMapper.lockBatch", params("afterUserId", 0L, "limit", 200)),
+                "user_loan_stats", "PRIMARY");
+    }
+
+    private List<Map<String, Object>> explain(String statement, Map<String, Object> params) {
+        MappedStatement mappedStatement = sqlSessionFactory.getConfiguration()
+                .getMappedStatement(getClass().getPackage().getName() + "." + statement);
+        BoundSql boundSql = mappedStatement.getBoundSql(params);
+        // 锁定子句不影响访问路径，MariaDB 10.2 也不支持 SKIP LOCKED
+        String sql = boundSql.getSql().replaceAll("(?i)\\s+FOR\\s+UPDATE(\\s+SKIP\\s+LOCKED)?\\s*$", "");
+        return jdbcTemplate.execute((ConnectionCallback<List<Map<String, Object>>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                new DefaultParameterHandler(mappedStatement, params, boundSql).setParameters(ps);
+                List<Map<String, Object>> rows = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    while (rs.next()) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (int i = 1; i <= meta.getColumnCount(); i++) {
+                            row.put(meta.getColumnLabel(i), rs.getObject(i));
+                        }
+                        rows.add(row);
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+
+    private static void assertUses(List<Map<String, Object>> plan, String table, String... indexes) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : plan) {
+            if (table.equals(row.get("table"))) {
+                rows.add(row);
+            }
+        }
+        assertFalse(rows.isEmpty(), () -> "执行计划中没有表 " + table + ": " + plan);
+        for (Map<String, Object> row : rows) {
+            assertNotEquals("ALL", row.get("type"), () -> table + " 退化为全表扫描: " + plan);
+            assertTrue(Arrays.asList(indexes).contains(row.get("key")),
+                    () -> table + " 没有使用索引 " + Arrays.toString(indexes) + ": " + plan);
+        }
+    }
+
+    private static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,76 @@
+package com.library.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private static final long USER_ID = 42L;
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(service, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(service, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        service.start();
+    }
+
+    @Test
+    void tokenIssuedEarlierInTheRevocationSecondIsRevoked() {
+        long second = revoke() / 1000 * 1000;
+        // 例如 12:00:00.300 登录、12:00:00.800 停用，iat 都是 12:00:00
+        assertTrue(service.isRevoked(claims(second)));
+        assertTrue(service.isRevoked(claims(second - 1000)));
+    }
+
+    @Test
+    void tokenIssuedInALaterSecondIsAccepted() {
+        long second = revoke() / 1000 * 1000;
+        assertFalse(service.isRevoked(claims(second + 1000)));
+    }
+
+    @Test
+    void otherUsersAreNotAffected() {
+        revoke();
+        Claims claims = claims(0);
+        claims.put("userId", USER_ID + 1);
+        assertFalse(service.isRevoked(claims));
+    }
+
+    @SuppressWarnings("unchecked")
+    private long revoke() {
+        service.revokeUser(USER_ID);
+        Map<Long, Long> notBefore = (Map<Long, Long>) ReflectionTestUtils.getField(service, "userNotBefore");
+        return notBefore.get(USER_ID);
+    }
+
+    // 与 JwtUtils 签发的令牌一致，iat 截断到秒
+    private static Claims claims(long issuedAtMillis) {
+        Claims claims = Jwts.claims();
+        claims.setIssuedAt(new Date(issuedAtMillis / 1000 * 1000));
+        claims.put("userId", USER_ID);
+        return claims;
+    }
+}
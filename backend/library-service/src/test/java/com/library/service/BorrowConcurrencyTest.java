@@ -0,0 +1,349 @@
+package com.library.service;
+
+import com.library.IntegrationTestSupport;
+import com.library.entity.Book;
+import com.library.entity.BorrowRecord;
+import com.library.enums.BookStatus;
+import com.library.enums.UserRole;
+import com.library.shard.BorrowRecordShards;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 借还库存的并发测试：多个线程直接调用 {@link BorrowService} 和 {@link BookService}，
+ * 对少量图书随机借书、还书、修改总数量、上下架和删除/恢复，部分还书请求会同时交给两个线程以模拟重复归还。
+ * 结束后按数据库校验本测试写入的图书和读者：
+ * <ul>
+ *     <li>每本书 可借数量 + 在借记录数 = 总数量，且 0 &lt;= 可借数量 &lt;= 总数量</li>
+ *     <li>同一读者对同一本书最多一条在借记录</li>
+ *     <li>已删除的图书没有在借记录</li>
+ *     <li>每个读者的在借记录数等于 user_loan_stats.active_loans，且不超过角色上限</li>
+ *     <li>同一条借阅记录只被成功归还一次</li>
+ *     <li>分库时在借记录都在读者所在的分片上</li>
+ * </ul>
+ * 图书少、读者多，同一行上的锁冲突集中；数据库是 InnoDB，加锁和隔离级别与线上一致。
+ * 结束时把各操作的成功、拒绝次数、平均耗时和总吞吐量输出到标准输出和 target/concurrency/&lt;测试类名&gt;.txt。
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BorrowConcurrencyTest extends IntegrationTestSupport {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 300;
+    private static final int BOOKS = 6;
+    private static final int USERS = 60;
+    private static final int COPIES = 5;
+    private static final long SEED = 42;
+
+    enum Action {
+        BORROW(50),
+        RETURN(38),
+        UPDATE_TOTAL(6),
+        STATUS(6);
+
+        private final int weight;
+
+        Action(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static class Reader {
+        private final long id;
+        private final UserRole role;
+        private final UsernamePasswordAuthenticationToken authentication;
+
+        private Reader(long id, String username, UserRole role) {
+            this.id = id;
+            this.role = role;
+            // 与 JwtAuthenticationFilter 认证后的内容一致
+            this.authentication = new UsernamePasswordAuthenticationToken(username, null,
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name())));
+            this.authentication.setDetails(id);
+        }
+    }
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentLinkedQueue<Long> activeRecords = new ConcurrentLinkedQueue<>();
+    private final Set<Long> returnedRecords = ConcurrentHashMap.newKeySet();
+    private final LongAdder doubleReturns = new LongAdder();
+    private final Map<Action, LongAdder> succeeded = new ConcurrentHashMap<>();
+    private final Map<Action, LongAdder> rejected = new ConcurrentHashMap<>();
+    private final Map<Action, LongAdder> calls = new ConcurrentHashMap<>();
+    private final Map<Action, LongAdder> nanos = new ConcurrentHashMap<>();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    private List<Reader> readers;
+    private List<Long> bookIds;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"stress_user_" + i, i % 5 == 0 ? UserRole.TEACHER.name() : UserRole.STUDENT.name()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, role) VALUES (?, 'x', ?)", users);
+        readers = jdbcTemplate.query("SELECT id, username, role FROM users WHERE username LIKE 'stress\\_user\\_%' ORDER BY id",
+                (rs, i) -> new Reader(rs.getLong("id"), rs.getString("username"), UserRole.valueOf(rs.getString("role"))));
+
+        List<Object[]> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Object[]{"STRESS-" + i, "Stress Book " + i, COPIES, COPIES});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (isbn, title, total_quantity, available_quantity) VALUES (?, ?, ?, ?)", books);
+        bookIds = jdbcTemplate.queryForList("SELECT id FROM books WHERE isbn LIKE 'STRESS-%' ORDER BY id", Long.class);
+
+        for (Action action : Action.values()) {
+            succeeded.put(action, new LongAdder());
+            rejected.put(action, new LongAdder());
+            calls.put(action, new LongAdder());
+            nanos.put(action, new LongAdder());
+        }
+    }
+
+    @Test
+    void inventoryInvariantsHoldUnderConcurrentBorrowReturnAndEdits() throws InterruptedException, IOException {
+        long start = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            Random random = new Random(SEED + i);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int n = 0; n < OPERATIONS_PER_THREAD; n++) {
+                        execute(pick(random), random);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES), "stress threads did not finish");
+        report(System.nanoTime() - start);
+
+        assertTrue(failures.isEmpty(), () -> "unexpected failures: " + failures);
+        assertTrue(succeeded.get(Action.BORROW).sum() > 0 && succeeded.get(Action.RETURN).sum() > 0,
+                () -> "too little progress: " + succeeded);
+        List<String> violations = verify();
+        assertTrue(violations.isEmpty(), () -> violations.size() + " invariant violations: " + violations);
+    }
+
+    private Action pick(Random random) {
+        int total = 0;
+        for (Action action : Action.values()) {
+            total += action.weight;
+        }
+        int value = random.nextInt(total);
+        for (Action action : Action.values()) {
+            value -= action.weight;
+            if (value < 0) {
+                return action;
+            }
+        }
+        return Action.BORROW;
+    }
+
+    private void execute(Action action, Random random) {
+        long bookId = bookIds.get(random.nextInt(bookIds.size()));
+        long start = System.nanoTime();
+        try {
+            switch (action) {
+                case BORROW:
+                    borrow(readers.get(random.nextInt(readers.size())), bookId);
+                    break;
+                case RETURN:
+                    Long recordId = activeRecords.poll();
+                    if (recordId == null) {
+                        action = Action.BORROW;
+                        borrow(readers.get(random.nextInt(readers.size())), bookId);
+                        break;
+                    }
+                    // 四分之一的记录放回队列，另一个线程可能同时归还同一条记录
+                    if (random.nextInt(4) == 0) {
+                        activeRecords.offer(recordId);
+                    }
+                    borrowService.returnBook(recordId);
+                    if (!returnedRecords.add(recordId)) {
+                        doubleReturns.increment();
+                    }
+                    break;
+                case UPDATE_TOTAL:
+                    updateTotal(bookId, random);
+                    break;
+                default:
+                    changeStatus(bookId, random);
+            }
+            succeeded.get(action).increment();
+        } catch (RuntimeException e) {
+            // 服务层的业务拒绝是不带 cause 的 RuntimeException，其余（数据库异常、死锁等）都是失败
+            if (e.getClass() != RuntimeException.class || e.getCause() != null) {
+                failures.putIfAbsent(action + " " + e.getClass().getSimpleName(), e);
+            } else {
+                rejected.get(action).increment();
+            }
+        } finally {
+            calls.get(action).increment();
+            nanos.get(action).add(System.nanoTime() - start);
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void borrow(Reader reader, long bookId) {
+        SecurityContextHolder.getContext().setAuthentication(reader.authentication);
+        BorrowRecord record = borrowService.borrowBook(bookId);
+        activeRecords.offer(record.getId());
+    }
+
+    // 总数量在 1 到两倍初始值之间随机加减一本
+    private void updateTotal(long bookId, Random random) {
+        Book current = bookService.getById(bookId);
+        int total = current.getTotalQuantity() + (random.nextBoolean() ? 1 : -1);
+        if (total < 1 || total > COPIES * 2) {
+            total = current.getTotalQuantity() - (total - current.getTotalQuantity());
+        }
+        Book update = new Book();
+        update.setId(bookId);
+        update.setTotalQuantity(total);
+        bookService.updateBook(update);
+    }
+
+    // 删除、下架或上架；服务没有恢复已删除图书的接口，直接用 SQL 恢复，让这本书继续参与借还
+    private void changeStatus(long bookId, Random random) {
+        if (bookService.getById(bookId).getStatus() == BookStatus.DELETED) {
+            jdbcTemplate.update("UPDATE books SET status = 'AVAILABLE' WHERE id = ? AND status = 'DELETED'", bookId);
+            return;
+        }
+        switch (random.nextInt(3)) {
+            case 0:
+                bookService.deleteBook(bookId);
+                break;
+            case 1:
+                bookService.updateBookStatus(bookId, BookStatus.UNAVAILABLE.name());
+                break;
+            default:
+                bookService.updateBookStatus(bookId, BookStatus.AVAILABLE.name());
+        }
+    }
+
+    // 吞吐量只算成功的操作，平均耗时包括被拒绝和失败的调用
+    private void report(long elapsedNanos) throws IOException {
+        long operations = (long) THREADS * OPERATIONS_PER_THREAD;
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder(String.format("%s: %d threads, %d operations in %.2f s, %.1f ops/s, %d shard(s)%n",
+                getClass().getSimpleName(), THREADS, operations, seconds, operations / seconds, shards.size()));
+        for (Action action : Action.values()) {
+            long ok = succeeded.get(action).sum();
+            long refused = rejected.get(action).sum();
+            long count = calls.get(action).sum();
+            report.append(String.format("  %-12s succeeded %6d  rejected %6d  %8.1f ops/s  mean %7.2f ms%n",
+                    action, ok, refused, ok / seconds, count == 0 ? 0 : nanos.get(action).sum() / 1e6 / count));
+        }
+        System.out.print(report);
+        Path file = Paths.get("target", "concurrency", getClass().getSimpleName() + ".txt");
+        Files.createDirectories(file.getParent());
+        Files.write(file, report.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> verify() {
+        MapSqlParameterSource params = new MapSqlParameterSource("bookIds", bookIds);
+        Map<Long, Long> activeByBook = new HashMap<>();
+        Map<Long, Long> activeByUser = new HashMap<>();
+        List<String> violations = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            new NamedParameterJdbcTemplate(shards.dataSource(shard)).query(
+                    "SELECT book_id, user_id, COUNT(*) AS loans FROM borrow_records " +
+                    "WHERE status = 'BORROWED' AND book_id IN (:bookIds) GROUP BY book_id, user_id", params, rs -> {
+                        long loans = rs.getLong("loans");
+                        activeByBook.merge(rs.getLong("book_id"), loans, Long::sum);
+                        activeByUser.merge(rs.getLong("user_id"), loans, Long::sum);
+                        if (shards.shardOfUser(rs.getLong("user_id")) != shard) {
+                            violations.add(String.format("user %d has active loans on shard %d", rs.getLong("user_id"), shard));
+                        }
+                        if (loans > 1) {
+                            violations.add(String.format("user %d holds %d active loans of book %d",
+                                    rs.getLong("user_id"), loans, rs.getLong("book_id")));
+                        }
+                    });
+        }
+
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "SELECT id, total_quantity, available_quantity, status FROM books WHERE id IN (:bookIds)", params, rs -> {
+                    long id = rs.getLong("id");
+                    int total = rs.getInt("total_quantity");
+                    int available = rs.getInt("available_quantity");
+                    long active = activeByBook.getOrDefault(id, 0L);
+                    if (available < 0 || available > total) {
+                        violations.add(String.format("book %d available %d outside [0, %d]", id, available, total));
+                    }
+                    if (available + active != total) {
+                        violations.add(String.format("book %d available %d + active loans %d != total %d",
+                                id, available, active, total));
+                    }
+                    if (active > 0 && BookStatus.DELETED.name().equals(rs.getString("status"))) {
+                        violations.add(String.format("deleted book %d has %d active loans", id, active));
+                    }
+                });
+
+        for (Reader reader : readers) {
+            long active = activeByUser.getOrDefault(reader.id, 0L);
+            List<Integer> recorded = jdbcTemplate.queryForList(
+                    "SELECT active_loans FROM user_loan_stats WHERE user_id = ?", Integer.class, reader.id);
+            int stats = recorded.isEmpty() ? 0 : recorded.get(0);
+            if (stats != active) {
+                violations.add(String.format("user %d has %d active loans but user_loan_stats says %d",
+                        reader.id, active, stats));
+            }
+            if (active > reader.role.getMaxLoans()) {
+                violations.add(String.format("user %d has %d active loans, limit %d",
+                        reader.id, active, reader.role.getMaxLoans()));
+            }
+        }
+
+        if (doubleReturns.sum() > 0) {
+            violations.add(doubleReturns.sum() + " borrow records were returned successfully more than once");
+        }
+        assertEquals(BOOKS, bookIds.size());
+        return violations;
+    }
+}
@@ -0,0 +1,16 @@
+package com.library.service;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * 与 {@link BorrowConcurrencyTest} 相同的并发借还，借阅记录分布在两个分片上：借书时记录以自动提交写入分片，
+ * 主库事务回滚后再删除，校验的不变量不变，回滚后残留的记录会表现为在借记录多于实际扣减的库存。
+ */
+class ShardedBorrowConcurrencyTest extends BorrowConcurrencyTest {
+
+    @DynamicPropertySource
+    static void sharding(DynamicPropertyRegistry registry) {
+        shardingProperties(registry);
+    }
+}
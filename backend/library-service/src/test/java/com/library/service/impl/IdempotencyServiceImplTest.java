@@ -0,0 +1,81 @@
+package com.library.service.impl;
+
+import com.library.service.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceImplTest {
+
+    private final Map<String, String> redis = new HashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(call -> redis.putIfAbsent(call.getArgument(0), call.getArgument(1)) == null);
+        when(values.get(anyString())).thenAnswer(call -> redis.get(call.<String>getArgument(0)));
+        doAnswer(call -> redis.put(call.getArgument(0), call.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.delete(anyString())).thenAnswer(call -> redis.remove(call.<String>getArgument(0)) != null);
+
+        service = new IdempotencyServiceImpl();
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "ttl", 60000L);
+        ReflectionTestUtils.setField(service, "pendingTtl", 60000L);
+        ReflectionTestUtils.setField(service, "pendingWait", 100L);
+    }
+
+    @Test
+    void retryWithSameRequestReplaysFirstResult() {
+        assertEquals(7L, borrow("key-1", 5L, 7L));
+        assertEquals(7L, borrow("key-1", 5L, 8L));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejectedWithoutRunning() {
+        borrow("key-1", 5L, 7L);
+        assertThrows(IdempotencyKeyReusedException.class, () -> borrow("key-1", 6L, 8L));
+        assertEquals(1, executions.get());
+        assertEquals(9L, borrow("key-2", 6L, 9L));
+    }
+
+    @Test
+    void failedRequestReleasesKey() {
+        assertThrows(RuntimeException.class, () -> service.execute("borrow", "alice", "key-1", "bookId=5",
+                () -> {
+                    throw new RuntimeException("图书库存不足");
+                }, id -> id, id -> id));
+        assertTrue(redis.isEmpty());
+        assertEquals(7L, borrow("key-1", 6L, 7L));
+    }
+
+    private Long borrow(String key, Long bookId, Long recordId) {
+        return service.execute("borrow", "alice", key, "bookId=" + bookId, () -> {
+            executions.incrementAndGet();
+            return recordId;
+        }, id -> id, id -> id);
+    }
+}
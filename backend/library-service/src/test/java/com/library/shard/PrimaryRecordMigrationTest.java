@@ -0,0 +1,115 @@
+package com.library.shard;
+
+import com.library.IntegrationTestSupport;
+import com.library.entity.BorrowRecord;
+import com.library.service.BorrowService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分库上线时搬迁主库已有记录：主库本身是分片 0，其上用户的记录留在原处；分片 1 上用户的记录连同归档记录搬过去，
+ * 沿用原 ID 和归档时间。其中一条记录预先写入分片 1，模拟上次搬迁在删除主库记录之前中断。
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PrimaryRecordMigrationTest extends IntegrationTestSupport {
+
+    private static final Timestamp ARCHIVED_AT = Timestamp.valueOf("2024-01-31 12:00:00");
+
+    @DynamicPropertySource
+    static void sharding(DynamicPropertyRegistry registry) {
+        shardingProperties(registry);
+    }
+
+    @Autowired
+    private PrimaryRecordMigration migration;
+
+    @Autowired
+    private BorrowRecordShards shards;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long stayingUser;
+    private long movingUser;
+    private long bookId;
+
+    @BeforeAll
+    void seed() {
+        for (int i = 0; i < 2; i++) {
+            jdbcTemplate.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'STUDENT')", "migrate_user_" + i);
+        }
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE 'migrate\\_user\\_%' ORDER BY id", Long.class);
+        stayingUser = userIds.stream().filter(id -> shards.shardOfUser(id) == 0).findFirst().get();
+        movingUser = userIds.stream().filter(id -> shards.shardOfUser(id) == 1).findFirst().get();
+        jdbcTemplate.update("INSERT INTO books (isbn, title, total_quantity, available_quantity) VALUES ('MIGRATE-0', 'Migrate', 9, 9)");
+        bookId = jdbcTemplate.queryForObject("SELECT id FROM books WHERE isbn = 'MIGRATE-0'", Long.class);
+
+        for (long userId : new long[]{stayingUser, movingUser}) {
+            for (int i = 0; i < 3; i++) {
+                jdbcTemplate.update("INSERT INTO borrow_records (user_id, book_id, due_date, status) VALUES (?, ?, ?, ?)",
+                        userId, bookId, Timestamp.valueOf("2024-03-0" + (i + 1) + " 00:00:00"), i == 0 ? "BORROWED" : "RETURNED");
+            }
+            jdbcTemplate.update("INSERT INTO borrow_records_archive (id, user_id, book_id, due_date, status, archive_time) " +
+                    "SELECT COALESCE(MAX(id), 0) + 1000, ?, ?, '2024-01-01 00:00:00', 'RETURNED', ? FROM borrow_records",
+                    userId, bookId, ARCHIVED_AT);
+        }
+
+        Long interrupted = ids("borrow_records", movingUser).get(0);
+        new JdbcTemplate(shards.dataSource(1)).update(
+                "INSERT INTO borrow_records (id, user_id, book_id, due_date, status) VALUES (?, ?, ?, '2024-03-01 00:00:00', 'BORROWED')",
+                interrupted, movingUser, bookId);
+    }
+
+    @Test
+    void movesRecordsOfOtherShardsAndKeepsIds() {
+        List<Long> staying = ids("borrow_records", stayingUser);
+        List<Long> moving = ids("borrow_records", movingUser);
+        List<Long> movingArchived = ids("borrow_records_archive", movingUser);
+
+        migration.migrate();
+
+        assertEquals(staying, ids("borrow_records", stayingUser));
+        assertEquals(1, ids("borrow_records_archive", stayingUser).size());
+        assertTrue(ids("borrow_records", movingUser).isEmpty());
+        assertTrue(ids("borrow_records_archive", movingUser).isEmpty());
+
+        JdbcTemplate shard = new JdbcTemplate(shards.dataSource(1));
+        assertEquals(moving, shard.queryForList(
+                "SELECT id FROM borrow_records WHERE user_id = ? ORDER BY id", Long.class, movingUser));
+        assertEquals(movingArchived, shard.queryForList(
+                "SELECT id FROM borrow_records_archive WHERE user_id = ? ORDER BY id", Long.class, movingUser));
+        assertEquals(ARCHIVED_AT, shard.queryForObject(
+                "SELECT archive_time FROM borrow_records_archive WHERE user_id = ?", Timestamp.class, movingUser));
+
+        List<Long> listed = borrowService.findUserBorrowRecords(movingUser, 1, 10, null).getRecords().stream()
+                .map(BorrowRecord::getId).sorted().collect(Collectors.toList());
+        List<Long> expected = new ArrayList<>(moving);
+        expected.addAll(movingArchived);
+        assertEquals(expected, listed);
+        assertEquals(movingUser, borrowService.getBorrowRecordDetail(moving.get(1)).getUserId().longValue());
+
+        // 再次执行时没有可搬的记录
+        assertEquals(0, migration.migrate());
+    }
+
+    private List<Long> ids(String table, long userId) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE user_id = ? ORDER BY id", Long.class, userId);
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.trace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TracerTest {
+
+    @Test
+    void forcedSamplingIsCappedPerSecond() {
+        Tracer tracer = tracer(0, 3);
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            Span span = tracer.startRoot("GET /api/books", Span.SERVER, null, null, "1");
+            if (span != null) {
+                sampled++;
+                tracer.finish(span);
+            }
+        }
+        // 跨秒时计数清零，最多多放过一秒的份额
+        assertTrue(sampled >= 3 && sampled <= 6, "sampled " + sampled);
+    }
+
+    @Test
+    void upstreamTraceIdIsKeptWhenSampled() {
+        Tracer tracer = tracer(0, 10);
+        Span span = tracer.startRoot("GET /api/books", Span.SERVER, "00000000000000aa", "00000000000000bb", "true");
+        assertNotNull(span);
+        assertEquals("00000000000000aa", span.getTraceId());
+        assertEquals("00000000000000bb", span.getParentId());
+        tracer.finish(span);
+    }
+
+    @Test
+    void upstreamRefusalIsAlwaysHonoured() {
+        Tracer tracer = tracer(1.0, 10);
+        assertNull(tracer.startRoot("GET /api/books", Span.SERVER, null, null, "0"));
+        Span span = tracer.startRoot("GET /api/books", Span.SERVER, null, null, null);
+        assertNotNull(span);
+        tracer.finish(span);
+    }
+
+    @Test
+    void forcedRequestsBeyondCapFallBackToSampleRate() {
+        Tracer tracer = tracer(1.0, 0);
+        Span span = tracer.startRoot("GET /api/books", Span.SERVER, null, null, "1");
+        assertNotNull(span);
+        tracer.finish(span);
+
+        assertNull(tracer(0, 0).startRoot("GET /api/books", Span.SERVER, null, null, "1"));
+    }
+
+    private static Tracer tracer(double sampleRate, int maxForcedPerSecond) {
+        SpanExporter exporter = mock(SpanExporter.class);
+        when(exporter.isEnabled()).thenReturn(true);
+        Tracer tracer = new Tracer();
+        ReflectionTestUtils.setField(tracer, "exporter", exporter);
+        ReflectionTestUtils.setField(tracer, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(tracer, "maxForcedPerSecond", maxForcedPerSecond);
+        return tracer;
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvUtilsTest {
+
+    @Test
+    void splitsOnCommasAndTrimsFields() {
+        assertEquals(Arrays.asList("alice", "Alice Wang", "a@example.com"),
+                CsvUtils.parseLine("alice, Alice Wang ,a@example.com"));
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertEquals(Arrays.asList("bob", "", "", ""), CsvUtils.parseLine("bob,,,"));
+        assertEquals(Arrays.asList(""), CsvUtils.parseLine(""));
+    }
+
+    @Test
+    void quotedFieldsMayContainCommasAndQuotes() {
+        assertEquals(Arrays.asList("carol", "Smith, Carol", "say \"hi\""),
+                CsvUtils.parseLine("carol,\"Smith, Carol\",\"say \"\"hi\"\"\""));
+        assertEquals(Arrays.asList("", "x"), CsvUtils.parseLine("\"\",x"));
+    }
+
+    @Test
+    void keepsNonAsciiText() {
+        assertEquals(Arrays.asList("2024001", "张三", "计算机学院"), CsvUtils.parseLine("2024001,张三,\"计算机学院\""));
+    }
+
+    // 未闭合的引号一直读到行尾
+    @Test
+    void unterminatedQuoteRunsToEndOfLine() {
+        assertEquals(Arrays.asList("dave", "a,b"), CsvUtils.parseLine("dave,\"a,b"));
+    }
+}
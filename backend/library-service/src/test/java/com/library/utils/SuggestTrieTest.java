@@ -0,0 +1,175 @@
+package com.library.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestTrieTest {
+
+    @Test
+    void searchReturnsPrefixMatchesByWeightThenId() {
+        SuggestTrie trie = new SuggestTrie(5);
+        trie.put(1, "java", new String[]{"java"}, 3);
+        trie.put(2, "javascript", new String[]{"javascript"}, 7);
+        trie.put(3, "jvm", new String[]{"jvm"}, 3);
+        trie.put(4, "python", new String[]{"python"}, 10);
+
+        assertEquals(Arrays.asList(2L, 1L, 3L), ids(trie.search("j", 10)));
+        assertEquals(Arrays.asList(2L, 1L), ids(trie.search("java", 10)));
+        assertEquals(Arrays.asList(2L), ids(trie.search("j", 1)));
+        assertEquals(0, trie.search("x", 10).length);
+        assertEquals("javascript", trie.search("javas", 1)[0].getPayload());
+    }
+
+    @Test
+    void entryWithSeveralKeysUnderOnePrefixIsReturnedOnce() {
+        SuggestTrie trie = new SuggestTrie(5);
+        trie.put(1, "a", new String[]{"abc", "abd", "abc", ""}, 1);
+
+        assertEquals(Arrays.asList(1L), ids(trie.search("ab", 10)));
+        assertEquals(Arrays.asList(1L), ids(trie.search("abd", 10)));
+    }
+
+    @Test
+    void searchIsCappedAtK() {
+        SuggestTrie trie = new SuggestTrie(3);
+        for (long id = 1; id <= 10; id++) {
+            trie.put(id, null, new String[]{"book" + id}, id);
+        }
+
+        assertEquals(Arrays.asList(10L, 9L, 8L), ids(trie.search("book", 10)));
+    }
+
+    @Test
+    void weightChangesReorderCachedTopEntries() {
+        SuggestTrie trie = new SuggestTrie(2);
+        trie.put(1, null, new String[]{"aa"}, 5);
+        trie.put(2, null, new String[]{"ab"}, 4);
+        trie.put(3, null, new String[]{"ac"}, 1);
+
+        trie.addWeight(3, 10);
+        assertEquals(Arrays.asList(3L, 1L), ids(trie.search("a", 10)));
+
+        trie.setWeight(3, 0);
+        assertEquals(Arrays.asList(1L, 2L), ids(trie.search("a", 10)));
+
+        trie.addWeight(99, 1);
+        assertNull(trie.get(99));
+    }
+
+    @Test
+    void removeAndReplaceUpdatePrefixes() {
+        SuggestTrie trie = new SuggestTrie(5);
+        trie.put(1, "old", new String[]{"old title"}, 2);
+        trie.put(1, "new", new String[]{"new title"}, 2);
+
+        assertEquals(0, trie.search("old", 10).length);
+        assertEquals(Arrays.asList(1L), ids(trie.search("new", 10)));
+
+        assertTrue(trie.remove(1));
+        assertFalse(trie.remove(1));
+        assertEquals(0, trie.size());
+        assertEquals(0, trie.search("n", 10).length);
+    }
+
+    @Test
+    void bulkLoadMatchesIncrementalInserts() {
+        SuggestTrie bulk = new SuggestTrie(4);
+        SuggestTrie incremental = new SuggestTrie(4);
+        Random random = new Random(7);
+        for (long id = 1; id <= 200; id++) {
+            String[] keys = {randomKey(random), randomKey(random)};
+            long weight = random.nextInt(20);
+            bulk.add(id, null, keys, weight);
+            incremental.put(id, null, keys, weight);
+        }
+        bulk.refresh();
+
+        for (String prefix : new String[]{"", "a", "b", "ab", "cab", "abc"}) {
+            assertEquals(ids(incremental.search(prefix, 4)), ids(bulk.search(prefix, 4)), prefix);
+        }
+    }
+
+    @Test
+    void randomOperationsMatchBruteForce() {
+        int k = 5;
+        SuggestTrie trie = new SuggestTrie(k);
+        Map<Long, String[]> keys = new HashMap<>();
+        Map<Long, Long> weights = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 5000; step++) {
+            long id = random.nextInt(60);
+            int op = random.nextInt(10);
+            if (op < 4) {
+                String[] entryKeys = {randomKey(random), randomKey(random)};
+                long weight = random.nextInt(50);
+                trie.put(id, null, entryKeys, weight);
+                keys.put(id, entryKeys);
+                weights.put(id, weight);
+            } else if (op < 6) {
+                assertEquals(keys.remove(id) != null, trie.remove(id));
+                weights.remove(id);
+            } else if (op < 8) {
+                long delta = 1 + random.nextInt(5);
+                trie.addWeight(id, delta);
+                weights.computeIfPresent(id, (key, weight) -> weight + delta);
+            } else if (weights.containsKey(id)) {
+                long weight = random.nextInt(50);
+                trie.setWeight(id, weight);
+                weights.put(id, weight);
+            }
+
+            String key = randomKey(random);
+            String prefix = key.substring(0, random.nextInt(Math.min(3, key.length()) + 1));
+            assertEquals(expected(keys, weights, prefix, k), ids(trie.search(prefix, k)), "prefix " + prefix);
+        }
+        assertEquals(keys.size(), trie.size());
+    }
+
+    private static List<Long> expected(Map<Long, String[]> keys, Map<Long, Long> weights, String prefix, int k) {
+        return keys.entrySet().stream()
+                .filter(entry -> {
+                    for (String key : entry.getValue()) {
+                        if (key.startsWith(prefix)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.<Long>comparingLong(weights::get).reversed().thenComparing(id -> id))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    // 只用三个字母，前缀大量重叠
+    private static String randomKey(Random random) {
+        StringBuilder key = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            key.append((char) ('a' + random.nextInt(3)));
+        }
+        return key.toString();
+    }
+
+    private static List<Long> ids(SuggestTrie.Entry[] entries) {
+        List<Long> ids = new ArrayList<>();
+        for (SuggestTrie.Entry entry : entries) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+}
@@ -1,5 +1,6 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { 
+  AutoComplete,
   Table, 
   Button, 
   Input, 
@@ -10,18 +11,22 @@ import {
   message, 
   Tag, 
   Popconfirm,
-  Card
+  Card,
+  Upload
 } from 'antd';
 import { 
   PlusOutlined, 
   SearchOutlined, 
   EditOutlined, 
-  DeleteOutlined 
+  DeleteOutlined,
+  PictureOutlined
 } from '@ant-design/icons';
 import type { ColumnsType } from 'antd/es/table';
 import { bookAPI } from '../../services/api';
+import { subscribeBookDeltas } from '../../services/bookStream';
 import { getUser } from '../../utils/auth';
-import type { Book, PageResult } from '../../types';
+import { coverThumbnail } from '../../utils/cover';
+import type { Book, BookSuggestion, PageResult } from '../../types';
 import { BookStatus, UserRole } from '../../types';
 
 const { Search } = Input;
@@ -37,6 +42,8 @@ const BookManage: React.FC = () => {
   const [category, setCategory] = useState('');
   const [isModalOpen, setIsModalOpen] = useState(false);
   const [editingBook, setEditingBook] = useState<Book | null>(null);
+  const [suggestions, setSuggestions] = useState<BookSuggestion[]>([]);
+  const suggestTimer = useRef<ReturnType<typeof setTimeout>>();
   const [form] = Form.useForm();
   
   const user = getUser();
@@ -66,12 +73,55 @@ const BookManage: React.FC = () => {
     fetchBooks();
   }, []);
 
+  // 当前页图书的库存和状态由服务端推送，不再依赖重新查询
+  const bookIdsKey = books.map(book => book.id).join(',');
+  useEffect(() => {
+    if (!bookIdsKey) {
+      return undefined;
+    }
+    return subscribeBookDeltas(
+      bookIdsKey.split(',').map(Number),
+      (delta) => {
+        setBooks(prev => prev.map(book => (
+          book.id === delta.bookId
+            ? {
+                ...book,
+                availableQuantity: delta.availableQuantity,
+                totalQuantity: delta.totalQuantity,
+                status: delta.status,
+              }
+            : book
+        )));
+      },
+      () => fetchBooks(current, pageSize, keyword, category)
+    );
+  }, [bookIdsKey]);
+
   const handleSearch = (value: string) => {
     setKeyword(value);
     setCurrent(1);
     fetchBooks(1, pageSize, value, category);
   };
 
+  // 输入联想走独立的 suggest 接口，不触发分页查询
+  const handleSuggest = (value: string) => {
+    if (suggestTimer.current) {
+      clearTimeout(suggestTimer.current);
+    }
+    if (!value.trim()) {
+      setSuggestions([]);
+      return;
+    }
+    suggestTimer.current = setTimeout(async () => {
+      try {
+        const response = await bookAPI.suggest(value.trim());
+        setSuggestions(response.data);
+      } catch (error) {
+        setSuggestions([]);
+      }
+    }, 150);
+  };
+
   const handleCategoryChange = (value: string) => {
     setCategory(value);
     setCurrent(1);
@@ -115,6 +165,16 @@ const BookManage: React.FC = () => {
     }
   };
 
+  const handleUploadCover = async (bookId: number, file: File) => {
+    try {
+      const response = await bookAPI.uploadCover(bookId, file);
+      message.success('封面已更新');
+      setBooks(prev => prev.map(book => (book.id === bookId ? { ...book, coverUrl: response.data.coverUrl } : book)));
+    } catch (error) {
+      console.error('上传封面失败:', error);
+    }
+  };
+
   const handleSubmit = async (values: any) => {
     try {
       if (editingBook) {
@@ -132,6 +192,15 @@ const BookManage: React.FC = () => {
   };
 
   const columns: ColumnsType<Book> = [
+    {
+      title: '封面',
+      dataIndex: 'coverUrl',
+      key: 'coverUrl',
+      width: 64,
+      render: (coverUrl?: string) => coverUrl
+        ? <img src={coverThumbnail(coverUrl)} alt="" width={40} height={56} loading="lazy" style={{ objectFit: 'cover' }} />
+        : '-',
+    },
     {
       title: 'ISBN',
       dataIndex: 'isbn',
@@ -189,7 +258,7 @@ const BookManage: React.FC = () => {
     {
       title: '操作',
       key: 'action',
-      width: 200,
+      width: 280,
       render: (_, record) => (
         <Space size="small">
           {record.status === BookStatus.AVAILABLE && record.availableQuantity > 0 && (
@@ -210,6 +279,20 @@ const BookManage: React.FC = () => {
               编辑
             </Button>
           )}
+          {canModify && (
+            <Upload
+              accept="image/jpeg,image/png,image/gif"
+              showUploadList={false}
+              beforeUpload={(file) => {
+                handleUploadCover(record.id, file);
+                return false;
+              }}
+            >
+              <Button size="small" icon={<PictureOutlined />}>
+                封面
+              </Button>
+            </Upload>
+          )}
           {canDelete && (
             <Popconfirm
               title="确定删除这本书吗？"
@@ -235,12 +318,21 @@ const BookManage: React.FC = () => {
     <Card>
       <div style={{ marginBottom: 16 }}>
         <Space>
-          <Search
-            placeholder="搜索书名、作者、ISBN"
-            allowClear
+          <AutoComplete
             style={{ width: 300 }}
-            onSearch={handleSearch}
-          />
+            options={suggestions.map(item => ({
+              value: item.title,
+              label: `${item.title}${item.author ? ` - ${item.author}` : ''}`,
+            }))}
+            onSearch={handleSuggest}
+            onSelect={handleSearch}
+          >
+            <Search
+              placeholder="搜索书名、作者、ISBN"
+              allowClear
+              onSearch={handleSearch}
+            />
+          </AutoComplete>
           <Select
             placeholder="选择分类"
             style={{ width: 120 }}
@@ -274,7 +366,7 @@ const BookManage: React.FC = () => {
           showTotal: (total) => `共 ${total} 条记录`,
         }}
         onChange={handleTableChange}
-        scroll={{ x: 1200 }}
+        scroll={{ x: 1340 }}
       />
 
       <Modal
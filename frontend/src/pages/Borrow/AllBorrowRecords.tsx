@@ -1,8 +1,8 @@
 import React, { useState, useEffect } from 'react';
 import { Table, Input, Select, Tag, Card, Space } from 'antd';
 import type { ColumnsType } from 'antd/es/table';
-import { borrowAPI } from '../../services/api';
-import type { BorrowRecord } from '../../types';
+import { queryAPI } from '../../services/api';
+import type { BorrowCounts, BorrowRecord } from '../../types';
 import { BorrowStatus } from '../../types';
 import dayjs from 'dayjs';
 
@@ -17,18 +17,35 @@ const AllBorrowRecords: React.FC = () => {
   const [pageSize, setPageSize] = useState(10);
   const [keyword, setKeyword] = useState('');
   const [status, setStatus] = useState('');
+  const [counts, setCounts] = useState<BorrowCounts>();
 
+  // 记录连同借阅人、图书信息和各状态数量一次取回，服务端按 ID 批量加载关联数据
   const fetchRecords = async (page = 1, size = 10, search = '', statusFilter = '') => {
     setLoading(true);
     try {
-      const response = await borrowAPI.getBorrowRecords({ 
-        page, 
-        size, 
-        keyword: search, 
-        status: statusFilter 
+      const response = await queryAPI.query<{
+        records: { total: number; records: BorrowRecord[] };
+        counts: BorrowCounts;
+      }>({
+        records: {
+          field: 'borrowRecords',
+          args: { page, size, keyword: search, status: statusFilter },
+          select: [
+            'total',
+            {
+              records: [
+                'id', 'userId', 'bookId', 'borrowDate', 'dueDate', 'returnDate', 'status', 'fineAmount',
+                { user: ['username', 'realName'] },
+                { book: ['title', 'author'] },
+              ],
+            },
+          ],
+        },
+        counts: { field: 'borrowCounts' },
       });
-      setRecords(response.data.records);
-      setTotal(response.data.total);
+      setRecords(response.data.records.records);
+      setTotal(response.data.records.total);
+      setCounts(response.data.counts);
       setCurrent(page);
     } catch (error) {
       console.error('获取借阅记录失败:', error);
@@ -117,7 +134,17 @@ const AllBorrowRecords: React.FC = () => {
   };
 
   return (
-    <Card title="所有借阅记录">
+    <Card
+      title="所有借阅记录"
+      extra={counts && (
+        <Space>
+          <Tag color="blue">在借 {counts.borrowed}</Tag>
+          <Tag color="red">逾期 {counts.overdue}</Tag>
+          <Tag color="orange">丢失 {counts.lost}</Tag>
+          <Tag>共 {counts.total}</Tag>
+        </Space>
+      )}
+    >
       <div style={{ marginBottom: 16 }}>
         <Space>
           <Search
@@ -1,8 +1,8 @@
 import React, { useState, useEffect } from 'react';
-import { Table, Button, Tag, Card, message } from 'antd';
+import { Table, Button, Tag, Card, Space, message } from 'antd';
 import type { ColumnsType } from 'antd/es/table';
-import { borrowAPI } from '../../services/api';
-import type { BorrowRecord } from '../../types';
+import { borrowAPI, queryAPI } from '../../services/api';
+import type { BorrowRecord, LoanSummary } from '../../types';
 import { BorrowStatus } from '../../types';
 import dayjs from 'dayjs';
 
@@ -12,13 +12,26 @@ const MyBorrowRecords: React.FC = () => {
   const [total, setTotal] = useState(0);
   const [current, setCurrent] = useState(1);
   const [pageSize, setPageSize] = useState(10);
+  const [summary, setSummary] = useState<LoanSummary>();
 
+  // 记录、图书信息和借阅汇总在一次请求中取回
   const fetchRecords = async (page = 1, size = 10) => {
     setLoading(true);
     try {
-      const response = await borrowAPI.getMyBorrowRecords({ page, size });
-      setRecords(response.data.records);
-      setTotal(response.data.total);
+      const response = await queryAPI.query<{
+        records: { total: number; records: BorrowRecord[] };
+        summary: LoanSummary;
+      }>({
+        records: {
+          field: 'myBorrowRecords',
+          args: { page, size },
+          select: ['total', { records: ['id', 'bookId', 'borrowDate', 'dueDate', 'returnDate', 'status', 'fineAmount', { book: ['title', 'author'] }] }],
+        },
+        summary: { field: 'myLoanSummary' },
+      });
+      setRecords(response.data.records.records);
+      setTotal(response.data.records.total);
+      setSummary(response.data.summary);
       setCurrent(page);
     } catch (error) {
       console.error('获取借阅记录失败:', error);
@@ -115,7 +128,17 @@ const MyBorrowRecords: React.FC = () => {
   };
 
   return (
-    <Card title="我的借阅记录">
+    <Card
+      title="我的借阅记录"
+      extra={summary && (
+        <Space>
+          <Tag color="blue">在借 {summary.activeLoans} / {summary.maxLoans}</Tag>
+          {summary.overdueLoans > 0 && <Tag color="red">逾期未还 {summary.overdueLoans}</Tag>}
+          {summary.lateReturns > 0 && <Tag color="volcano">逾期归还 {summary.lateReturns} 次</Tag>}
+          {summary.finesAccrued > 0 && <Tag color="orange">累计罚金 ¥{summary.finesAccrued}</Tag>}
+        </Space>
+      )}
+    >
       <Table
         columns={columns}
         dataSource={records}
@@ -3,7 +3,7 @@ import { Card, Form, Input, Button, message, Typography } from 'antd';
 import { UserOutlined, LockOutlined } from '@ant-design/icons';
 import { useNavigate } from 'react-router-dom';
 import { authAPI } from '../services/api';
-import { setToken, setUser, clearUserData } from '../utils/auth';
+import { setToken, setRefreshToken, setUser, clearUserData } from '../utils/auth';
 import type { LoginRequest } from '../types';
 import './Login.css';
 
@@ -20,9 +20,10 @@ const Login: React.FC = () => {
       clearUserData();
       
       const response = await authAPI.login(values);
-      const { token } = response.data;
+      const { token, refreshToken } = response.data;
       
       setToken(token);
+      setRefreshToken(refreshToken);
       
       // 获取完整用户信息并保存
       const userResponse = await authAPI.getCurrentUser();
@@ -6,7 +6,10 @@ import type {
   RegisterRequest, 
   User, 
   Book, 
+  BookSuggestion,
   BorrowRecord, 
+  LoanSummary,
+  QueryField,
   Result, 
   PageResult 
 } from '../types';
@@ -29,6 +32,29 @@ request.interceptors.request.use(
   }
 );
 
+let refreshing: Promise<string> | null = null;
+
+// 访问令牌过期时用刷新令牌换取新令牌（并发请求共用同一次刷新），失败再跳转登录页
+const refreshAccessToken = (): Promise<string> => {
+  if (!refreshing) {
+    const refreshToken = localStorage.getItem('refreshToken');
+    refreshing = (refreshToken
+      ? axios.post('/api/auth/refresh', { refreshToken }).then(({ data }) => {
+          if (data.code !== 200) {
+            throw new Error(data.message);
+          }
+          localStorage.setItem('token', data.data.token);
+          localStorage.setItem('refreshToken', data.data.refreshToken);
+          return data.data.token as string;
+        })
+      : Promise.reject(new Error('no refresh token'))
+    ).finally(() => {
+      refreshing = null;
+    });
+  }
+  return refreshing;
+};
+
 request.interceptors.response.use(
   (response) => {
     const { data } = response;
@@ -38,9 +64,25 @@ request.interceptors.response.use(
     }
     return data;
   },
-  (error) => {
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._retried) {
+      original._retried = true;
+      try {
+        const token = await refreshAccessToken();
+        original.headers.Authorization = `Bearer ${token}`;
+        return request(original);
+      } catch (refreshError) {
+        localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
+        localStorage.removeItem('user');
+        window.location.href = '/login';
+        return Promise.reject(refreshError);
+      }
+    }
     if (error.response?.status === 401) {
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       localStorage.removeItem('user');
       window.location.href = '/login';
     }
@@ -53,6 +95,9 @@ export const authAPI = {
   login: (params: LoginRequest): Promise<Result<LoginResponse>> =>
     request.post('/auth/login', params),
     
+  refresh: (refreshToken: string): Promise<Result<LoginResponse>> =>
+    request.post('/auth/refresh', { refreshToken }),
+
   register: (params: RegisterRequest): Promise<Result<User>> =>
     request.post('/auth/register', params),
     
@@ -72,6 +117,9 @@ export const bookAPI = {
   getBook: (id: number): Promise<Result<Book>> =>
     request.get(`/books/${id}`),
     
+  suggest: (q: string, limit = 8): Promise<Result<BookSuggestion[]>> =>
+    request.get('/books/suggest', { params: { q, limit } }),
+    
   addBook: (params: Partial<Book>): Promise<Result<Book>> =>
     request.post('/books', params),
     
@@ -83,14 +131,29 @@ export const bookAPI = {
     
   updateBookStatus: (id: number, status: string): Promise<Result<Book>> =>
     request.put(`/books/${id}/status`, null, { params: { status } }),
+
+  streamTicket: (): Promise<Result<string>> =>
+    request.post('/books/stream/ticket'),
+
+  uploadCover: (id: number, file: File): Promise<Result<Book>> => {
+    const data = new FormData();
+    data.append('file', file);
+    return request.post(`/books/${id}/cover`, data);
+  },
 };
 
+// 每次借还操作生成一个幂等键，令牌刷新后的重放沿用同一请求配置，不会重复借还
+const idempotencyKey = (): string =>
+  typeof crypto !== 'undefined' && typeof crypto.randomUUID === 'function'
+    ? crypto.randomUUID()
+    : `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}${Math.random().toString(36).slice(2)}`;
+
 export const borrowAPI = {
   borrowBook: (bookId: number): Promise<Result<BorrowRecord>> =>
-    request.post(`/borrow/${bookId}`),
+    request.post(`/borrow/${bookId}`, null, { headers: { 'Idempotency-Key': idempotencyKey() } }),
     
   returnBook: (recordId: number): Promise<Result<BorrowRecord>> =>
-    request.put(`/borrow/return/${recordId}`),
+    request.put(`/borrow/return/${recordId}`, null, { headers: { 'Idempotency-Key': idempotencyKey() } }),
     
   getBorrowRecords: (params: {
     page?: number;
@@ -103,7 +166,8 @@ export const borrowAPI = {
   getMyBorrowRecords: (params: {
     page?: number;
     size?: number;
-  }): Promise<Result<PageResult<BorrowRecord>>> =>
+    status?: string;
+  }): Promise<Result<PageResult<BorrowRecord> & { summary: LoanSummary }>> =>
     request.get('/borrow/my-records', { params }),
 };
 
@@ -120,4 +184,10 @@ export const userAPI = {
     
   updateUserStatus: (id: number, status: number): Promise<Result<User>> =>
     request.put(`/users/${id}/status`, null, { params: { status } }),
-};
\ No newline at end of file
+};
+
+export const queryAPI = {
+  // 一次请求取回多个查询的结果，关联的图书、用户在服务端批量加载
+  query: <T = Record<string, any>>(query: Record<string, QueryField>): Promise<Result<T>> =>
+    request.post('/query', query),
+};
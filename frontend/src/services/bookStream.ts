@@ -0,0 +1,69 @@
+import { getToken } from '../utils/auth';
+import { bookAPI } from './api';
+import type { BookDelta } from '../types';
+
+const RETRY_DELAY = 5000;
+
+/**
+ * 订阅图书库存/状态变更，返回取消订阅函数。
+ * 断线重连后可能漏掉期间的变更，onResync 用于重新拉取当前页数据。
+ */
+export const subscribeBookDeltas = (
+  bookIds: number[],
+  onDelta: (delta: BookDelta) => void,
+  onResync?: () => void
+): (() => void) => {
+  let source: EventSource | null = null;
+  let retryTimer: ReturnType<typeof setTimeout> | undefined;
+  let connected = false;
+  let closed = false;
+
+  const connect = async () => {
+    if (!getToken() || closed) {
+      return;
+    }
+    // 访问令牌不放进 URL，每次建立连接前换一张一次性票据
+    let ticket: string;
+    try {
+      ticket = (await bookAPI.streamTicket()).data;
+    } catch {
+      if (!closed) {
+        retryTimer = setTimeout(connect, RETRY_DELAY);
+      }
+      return;
+    }
+    if (closed) {
+      return;
+    }
+    const params = new URLSearchParams();
+    params.set('bookIds', bookIds.join(','));
+    params.set('ticket', ticket);
+    source = new EventSource(`/api/books/stream?${params.toString()}`);
+
+    source.addEventListener('ready', () => {
+      if (connected && onResync) {
+        onResync();
+      }
+      connected = true;
+    });
+    source.addEventListener('delta', (event) => {
+      onDelta(JSON.parse((event as MessageEvent).data));
+    });
+    source.onerror = () => {
+      // 票据只能使用一次，浏览器自动重连会被拒绝而进入 CLOSED，此时换新票据重新订阅
+      if (source && source.readyState === EventSource.CLOSED && !closed) {
+        retryTimer = setTimeout(connect, RETRY_DELAY);
+      }
+    };
+  };
+
+  connect();
+
+  return () => {
+    closed = true;
+    if (retryTimer) {
+      clearTimeout(retryTimer);
+    }
+    source?.close();
+  };
+};
@@ -49,6 +49,23 @@ export interface Book {
   updateTime: string;
 }
 
+export interface BookSuggestion {
+  bookId: number;
+  title: string;
+  author?: string;
+  isbn?: string;
+  borrowCount: number;
+}
+
+export interface BookDelta {
+  bookId: number;
+  category?: string;
+  availableQuantity: number;
+  totalQuantity: number;
+  status: BookStatus;
+  updateTime?: string;
+}
+
 export interface BorrowRecord {
   id: number;
   userId: number;
@@ -72,6 +89,8 @@ export interface LoginRequest {
 
 export interface LoginResponse {
   token: string;
+  refreshToken: string;
+  expiresIn: number;
   username: string;
   role: string;
   realName: string;
@@ -93,6 +112,31 @@ export interface Result<T> {
   data: T;
 }
 
+export interface BorrowCounts {
+  borrowed: number;
+  returned: number;
+  overdue: number;
+  lost: number;
+  total: number;
+}
+
+// 当前用户的借阅汇总，maxLoans 为角色允许同时在借的数量；overdueLoans 为在借且已过应还日期的数量，
+// lateReturns、finesAccrued 为历史上逾期归还的次数和累计罚金
+export interface LoanSummary {
+  activeLoans: number;
+  maxLoans: number;
+  overdueLoans: number;
+  lateReturns: number;
+  finesAccrued: number;
+}
+
+// POST /api/query 的单个查询：field 为查询入口，select 为返回字段，嵌套对象写成 { book: ['title'] }
+export interface QueryField {
+  field: string;
+  args?: Record<string, unknown>;
+  select?: Array<string | Record<string, QueryField['select']>>;
+}
+
 export interface PageResult<T> {
   records: T[];
   total: number;
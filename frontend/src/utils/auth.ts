@@ -12,6 +12,18 @@ export const removeToken = (): void => {
   localStorage.removeItem('token');
 };
 
+export const getRefreshToken = (): string | null => {
+  return localStorage.getItem('refreshToken');
+};
+
+export const setRefreshToken = (refreshToken: string): void => {
+  localStorage.setItem('refreshToken', refreshToken);
+};
+
+export const removeRefreshToken = (): void => {
+  localStorage.removeItem('refreshToken');
+};
+
 export const getUser = (): User | null => {
   const userStr = localStorage.getItem('user');
   return userStr ? JSON.parse(userStr) : null;
@@ -30,7 +42,21 @@ export const isAuthenticated = (): boolean => {
 };
 
 export const logout = (): void => {
+  const refreshToken = getRefreshToken();
+  const token = getToken();
+  if (refreshToken) {
+    fetch('/api/auth/logout', {
+      method: 'POST',
+      keepalive: true,
+      headers: {
+        'Content-Type': 'application/json',
+        ...(token ? { Authorization: `Bearer ${token}` } : {}),
+      },
+      body: JSON.stringify({ refreshToken }),
+    }).catch(() => undefined);
+  }
   removeToken();
+  removeRefreshToken();
   removeUser();
   window.location.href = '/login';
 };
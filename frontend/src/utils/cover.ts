@@ -0,0 +1,10 @@
+// 本服务保存的封面按内容哈希命名，缩略图为同名的 .thumb.jpg；外部链接原样返回
+const STORED_COVER = /^(\/api\/covers\/[0-9a-f]{32})\.(jpg|png|gif)$/;
+
+export const coverThumbnail = (coverUrl?: string): string | undefined => {
+  if (!coverUrl) {
+    return undefined;
+  }
+  const match = STORED_COVER.exec(coverUrl);
+  return match ? `${match[1]}.thumb.jpg` : coverUrl;
+};